@@ -0,0 +1,72 @@
+package dumb.coglog1;
+
+import dumb.coglog1.CoglogEngine.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thoughts/sec of the worker-pool {@link ExecuteLoop} as the worker count grows. Each invocation drains
+ * {@link #NOTES} {@code convert_note_to_goal} notes through the bootstrap META_THOUGHTs (note -> goal -> note, three
+ * activations each, no LLM) and waits until all of them are DONE. The score is time per activation, so
+ * thoughts/sec = 1e6 / score.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecuteLoopScaling {
+
+    private static final int NOTES = 2000, ACTIVATIONS = NOTES * 3;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int workers;
+
+    @Param({"false"})
+    boolean virtual;
+
+    ThoughtStore store;
+    ExecuteLoop loop;
+    ScheduledExecutorService scheduler;
+    TimerWheel timers;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        var d = Configuration.DEFAULT;
+        var config = new Configuration(d.maxRetries(), d.pollIntervalMillis(), d.maxActiveDurationMillis(), d.gcThresholdMillis(),
+                d.persistencePath(), d.llmApiEndpoint(), d.llmModelName(), d.llmApiKey(), workers, virtual, false);
+        var signal = new WorkSignal(new ConsoleNotifier());
+        store = new IndexedThoughtStore(signal);
+        LlmService llm = prompt -> { throw new LlmException("no LLM in benchmark"); };
+        var executor = new ActionExecutor(store, llm);
+        executor.setThoughtGenerator(new BasicThoughtGenerator(llm));
+        scheduler = Executors.newScheduledThreadPool(2);
+        timers = new TimerWheel(10, 512, "bench-timer");
+        loop = new ExecuteLoop(store, new Unifier(), executor, config, scheduler, signal, timers);
+        new Bootstrap(store).loadBootstrapMetaThoughts();
+        for (var i = 0; i < NOTES; i++) store.addThought(Thought.create(Role.NOTE, new Atom("convert_note_to_goal"), Belief.DEFAULT_POSITIVE));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        loop.stop();
+        timers.close();
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACTIVATIONS)
+    public long drain() throws InterruptedException {
+        loop.start();
+        long done;
+        while ((done = store.getStatusCounts().getOrDefault(Status.DONE, 0L)) < ACTIVATIONS) Thread.sleep(1);
+        return done;
+    }
+}
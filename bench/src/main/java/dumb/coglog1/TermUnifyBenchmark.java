@@ -0,0 +1,95 @@
+package dumb.coglog1;
+
+import dumb.coglog1.CoglogEngine.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coglog unification: the exception-based {@code Helpers.unify} against the trail-based {@link Bindings}. Each pattern
+ * is a ground term with random subterms replaced by variables; {@code fail} pairs differ from it in one leaf.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermUnifyBenchmark {
+
+    private static final int PAIRS = 256;
+
+    @Param({"2", "4"})
+    int depth;
+
+    @Param({"match", "fail"})
+    String outcome;
+
+    Term[] patterns, subjects;
+
+    @Setup
+    public void setup() {
+        var random = new Random(7);
+        patterns = new Term[PAIRS];
+        subjects = new Term[PAIRS];
+        for (var i = 0; i < PAIRS; i++) {
+            var ground = ground(random, depth);
+            patterns[i] = abstractVars(random, ground, new int[1]);
+            subjects[i] = "fail".equals(outcome) ? mutateLeaf(random, ground) : ground;
+        }
+    }
+
+    private static Term ground(Random random, int depth) {
+        if (depth == 0) return random.nextInt(4) == 0 ? new NumberTerm(random.nextInt(10)) : new Atom("a" + random.nextInt(8));
+        List<Term> args = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(3); i < n; i++) args.add(ground(random, depth - 1));
+        return random.nextInt(5) == 0 ? new ListTerm(args) : new Structure("f" + random.nextInt(4), args);
+    }
+
+    private static Term abstractVars(Random random, Term t, int[] counter) {
+        if (random.nextInt(4) == 0) return new Variable("V" + counter[0]++);
+        return switch (t) {
+            case Structure s -> new Structure(s.name(), s.args().stream().map(a -> abstractVars(random, a, counter)).toList());
+            case ListTerm l -> new ListTerm(l.elements().stream().map(a -> abstractVars(random, a, counter)).toList());
+            default -> t;
+        };
+    }
+
+    private static Term mutateLeaf(Random random, Term t) {
+        return switch (t) {
+            case Structure s -> new Structure(s.name(), mutateOne(random, s.args()));
+            case ListTerm l -> new ListTerm(mutateOne(random, l.elements()));
+            default -> new Atom("mismatch");
+        };
+    }
+
+    private static List<Term> mutateOne(Random random, List<Term> args) {
+        var out = new ArrayList<>(args);
+        var i = random.nextInt(out.size());
+        out.set(i, mutateLeaf(random, out.get(i)));
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void legacy(Blackhole bh) {
+        for (var i = 0; i < PAIRS; i++) {
+            try { bh.consume(Helpers.unify(subjects[i], patterns[i])); }
+            catch (UnificationException e) { bh.consume(e); }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void bindings(Blackhole bh) {
+        var env = new Bindings();
+        for (var i = 0; i < PAIRS; i++) {
+            if (env.unify(subjects[i], patterns[i])) { bh.consume(env.toMap()); env.undo(0); }
+            else bh.consume(false);
+        }
+    }
+}
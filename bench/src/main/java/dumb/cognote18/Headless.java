@@ -0,0 +1,81 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reasoning core wired without {@code SwingUI}, the WebSocket server or a {@link Cog} instance: events run on a
+ * plain thread pool so a benchmark can wait for the derivation closure to go quiet.
+ */
+final class Headless implements AutoCloseable {
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    final ThreadPoolExecutor exe;
+    final Events events;
+    final BasicTMS tms;
+    final Cognition cognition;
+    final ReasonerContext context;
+
+    Headless(int capacity, int threads) {
+        exe = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        events = new Events(exe);
+        tms = new BasicTMS(events);
+        cognition = new Cognition(capacity, events, tms, new Skolemizer(), new Operators(), null);
+        context = new ReasonerContext(cognition, events);
+    }
+
+    /**
+     * KB capacity warnings are printed per commit once a KB is nearly full; keep them out of the measurements. Returns
+     * the action that restores the previous streams, for the matching trial teardown.
+     */
+    static Runnable silence() {
+        var out = System.out;
+        var err = System.err;
+        System.setOut(NULL_OUT);
+        System.setErr(NULL_OUT);
+        return () -> { System.setOut(out); System.setErr(err); };
+    }
+
+    Headless withForwardChaining(int maxDepth) {
+        new ForwardChainingReasonerPlugin() {
+            @Override protected int getMaxDerivationDepth() { return maxDepth; }
+        }.initialize(context);
+        return this;
+    }
+
+    Headless load(SyntheticKb kb) {
+        kb.rules.forEach(this::rule);
+        kb.facts.forEach(this::fact);
+        return this;
+    }
+
+    void rule(String kif) {
+        try { cognition.addRule(Rule.parseRule(Cog.generateId("rule_"), (KifList) KifParser.parseKif(kif).getFirst(), 1.0)); }
+        catch (ParseException e) { throw new IllegalArgumentException(e); }
+    }
+
+    Assertion fact(String kif) {
+        try { return commit((KifList) KifParser.parseKif(kif).getFirst()); }
+        catch (ParseException e) { throw new IllegalArgumentException(e); }
+    }
+
+    Assertion commit(KifList list) {
+        var pa = new PotentialAssertion(list, 1.0 / (1 + list.weight()), Set.of(), "bench", false, false, false, null, AssertionType.GROUND, List.of(), 0);
+        return cognition.tryCommitAssertion(pa, "bench");
+    }
+
+    void awaitQuiescence() {
+        while (exe.getTaskCount() != exe.getCompletedTaskCount() || !exe.getQueue().isEmpty()) Thread.onSpinWait();
+    }
+
+    @Override public void close() {
+        exe.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.KifParser;
+import dumb.cognote18.Cog.KifTerm;
+import dumb.cognote18.Cog.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KifParserBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    String document;
+
+    @Setup
+    public void setup() {
+        var kb = SyntheticKb.generate(size, 4, SyntheticKb.RuleShape.TAXONOMY, 1);
+        document = String.join("\n", kb.rules) + "\n" + String.join("\n", kb.facts) + "\n" + String.join("\n", SyntheticKb.terms(size, 3, 0.3, 2));
+    }
+
+    @Benchmark
+    public List<KifTerm> parseDocument() throws ParseException {
+        return KifParser.parseKif(document);
+    }
+}
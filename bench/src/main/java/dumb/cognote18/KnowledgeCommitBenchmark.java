@@ -0,0 +1,58 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits into a KB that is already at capacity, so every commit also pays for an eviction. Each invocation commits
+ * a batch of fresh ground facts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnowledgeCommitBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"256", "2048"})
+    int capacity;
+
+    Headless core;
+    Runnable loud;
+    int next;
+    List<KifList> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        loud = Headless.silence();
+        core = new Headless(capacity, 1);
+        for (var i = 0; i < capacity; i++) core.fact("(seed S" + i + ")");
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() throws ParseException {
+        var sb = new StringBuilder();
+        for (var i = 0; i < BATCH; i++) sb.append("(fresh F").append(next++).append(")\n");
+        batch = KifParser.parseKif(sb.toString()).stream().map(KifList.class::cast).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        core.close();
+        loud.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int commitWithEviction() {
+        var n = 0;
+        for (var kif : batch) if (core.commit(kif) != null) n++;
+        return n;
+    }
+}
@@ -0,0 +1,62 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    Headless core;
+    Runnable loud;
+    PathIndex index;
+    List<Assertion> assertions;
+    List<KifTerm> queries;
+
+    @Setup
+    public void setup() throws ParseException {
+        loud = Headless.silence();
+        core = new Headless(size * 2, 1);
+        var kb = SyntheticKb.generate(size, 4, SyntheticKb.RuleShape.TAXONOMY, 1);
+        assertions = new ArrayList<>(kb.facts.size());
+        kb.facts.forEach(f -> assertions.add(core.fact(f)));
+        index = core.cognition.kb(null).paths;
+        queries = KifParser.parseKif(String.join("\n", kb.queries) + "\n(subclass ?x C0)\n(instance ?x ?y)");
+    }
+
+    @TearDown
+    public void tearDown() {
+        core.close();
+        loud.run();
+    }
+
+    @Benchmark
+    public void findUnifiable(Blackhole bh) {
+        for (var q : queries) bh.consume(index.findUnifiableAssertions(q).count());
+    }
+
+    @Benchmark
+    public void findInstances(Blackhole bh) {
+        for (var q : queries) bh.consume(index.findInstancesOf(q).count());
+    }
+
+    /** Re-indexes every assertion into a fresh index; measures path insertion without the KB commit around it. */
+    @Benchmark
+    public PathIndex addAll() {
+        var fresh = new PathIndex(core.tms);
+        for (var a : assertions) fresh.add(a);
+        return fresh;
+    }
+}
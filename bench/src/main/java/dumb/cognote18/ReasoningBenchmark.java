@@ -0,0 +1,92 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end reasoning on synthetic KBs: forward chaining to a fixed point from an empty KB, and backward-chaining
+ * queries against a loaded one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReasoningBenchmark {
+
+    private static final int MAX_DEPTH = 8;
+
+    @State(Scope.Thread)
+    public static class Shape {
+        @Param({"100", "1000"})
+        int size;
+        @Param({"TAXONOMY", "CHAIN", "FANOUT"})
+        SyntheticKb.RuleShape shape;
+        @Param({"4"})
+        int fanout;
+
+        SyntheticKb kb;
+        Runnable loud;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            loud = Headless.silence();
+            kb = SyntheticKb.generate(size, fanout, shape, 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void restore() { loud.run(); }
+    }
+
+    @State(Scope.Thread)
+    public static class Closure {
+        Headless core;
+
+        @Setup(Level.Invocation)
+        public void setup(Shape s) { core = new Headless(s.size * (s.fanout + 2) * MAX_DEPTH, Runtime.getRuntime().availableProcessors()).withForwardChaining(MAX_DEPTH); }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() { core.close(); }
+    }
+
+    @State(Scope.Thread)
+    public static class Loaded {
+        Headless core;
+        AsyncProver prover;
+        List<Query> queries;
+
+        @Setup(Level.Trial)
+        public void setup(Shape s) throws ParseException {
+            core = new Headless(s.size * 2, Runtime.getRuntime().availableProcessors()).load(s.kb);
+            core.awaitQuiescence();
+            prover = new AsyncProver(core.context, Runtime.getRuntime()::availableProcessors);
+            var i = 0;
+            queries = new ArrayList<>();
+            for (var q : KifParser.parseKif(String.join("\n", s.kb.queries)))
+                queries.add(new Query("q" + i++, QueryType.ASK_BINDINGS, q, null, Map.of()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() { core.close(); }
+    }
+
+    /** Loads rules and facts, then waits until no derivation task is queued or running. Returns the KB size. */
+    @Benchmark
+    public int forwardClosure(Shape s, Closure c) {
+        c.core.load(s.kb);
+        c.core.awaitQuiescence();
+        return c.core.cognition.kb(null).getAssertionCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void backwardQuery(Loaded l, Blackhole bh) {
+        for (var q : l.queries) bh.consume(l.prover.solve(q, MAX_DEPTH, 30_000).join());
+    }
+}
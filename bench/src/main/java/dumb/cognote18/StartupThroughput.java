@@ -0,0 +1,69 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.SwingUI;
+
+import javax.swing.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-to-ready and steady-state input throughput of a full {@link Cog}, headless versus with {@link SwingUI}.
+ * Not a JMH benchmark: startup is a one-shot measurement, so run it in a fresh JVM per mode.
+ * <pre>
+ * java -cp target/benchmarks.jar dumb.cognote18.StartupThroughput headless [facts]
+ * java -cp target/benchmarks.jar dumb.cognote18.StartupThroughput gui [facts]
+ * </pre>
+ * Ready means the WebSocket port accepts a connection. Throughput is facts sent over that connection until the last
+ * one is committed to the global KB. Run from an empty directory: the notes file is read and written in the cwd.
+ */
+public final class StartupThroughput {
+    private static final int PORT = 18887;
+
+    public static void main(String[] args) throws Exception {
+        var gui = args.length > 0 && args[0].equals("gui");
+        var facts = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        var t0 = System.nanoTime();
+
+        Cog cog;
+        if (gui) {
+            var f = new CompletableFuture<Cog>();
+            SwingUtilities.invokeLater(() -> {
+                var ui = new SwingUI(null);
+                var c = new Cog(PORT, ui, null);
+                ui.setSystemReference(c);
+                c.startSystem();
+                ui.setVisible(true);
+                f.complete(c);
+            });
+            cog = f.get();
+        } else {
+            cog = new Cog(PORT, null, null);
+            cog.startSystem();
+        }
+        var ws = connect();
+        var readyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        var kb = cog.context.kbGlobal();
+        var before = kb.getAssertionCount();
+        var t1 = System.nanoTime();
+        for (var i = 0; i < facts; i++) ws.sendText("(benchFact F" + i + ")", true).join();
+        while (kb.getAssertionCount() - before < facts) Thread.sleep(5);
+        var secs = (System.nanoTime() - t1) / 1e9;
+
+        System.err.printf("%s: ready=%d ms, throughput=%.0f facts/s (%d facts in %.2f s)%n", gui ? "gui" : "headless", readyMs, facts / secs, facts, secs);
+        ws.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        cog.stopSystem();
+        System.exit(0);
+    }
+
+    private static WebSocket connect() throws InterruptedException {
+        var http = HttpClient.newHttpClient();
+        while (true) {
+            try { return http.newWebSocketBuilder().buildAsync(URI.create("ws://localhost:" + PORT), new WebSocket.Listener() {}).join(); }
+            catch (Exception e) { Thread.sleep(1); }
+        }
+    }
+}
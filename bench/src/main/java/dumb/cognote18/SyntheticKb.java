@@ -0,0 +1,68 @@
+package dumb.cognote18;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic knowledge bases for the benchmarks. {@code size} is the number of ground facts and
+ * {@code fanout} controls the rule shape: the branching factor of the taxonomy, the length of the rule chain, or the
+ * number of rules triggered by a single fact.
+ */
+public final class SyntheticKb {
+
+    public enum RuleShape {
+        /** Class tree plus instance-inheritance rule; forward closure grows with tree depth. */
+        TAXONOMY,
+        /** Predicates p0..pN linked by single-antecedent rules; every fact derives N more. */
+        CHAIN,
+        /** One base predicate feeding N independent rules. */
+        FANOUT
+    }
+
+    final List<String> facts = new ArrayList<>();
+    final List<String> rules = new ArrayList<>();
+    final List<String> queries = new ArrayList<>();
+
+    private SyntheticKb() {}
+
+    static SyntheticKb generate(int size, int fanout, RuleShape shape, long seed) {
+        var kb = new SyntheticKb();
+        var rnd = new Random(seed);
+        switch (shape) {
+            case TAXONOMY -> {
+                var classes = Math.max(2, size / 2);
+                for (var c = 1; c < classes; c++) kb.facts.add("(subclass C" + c + " C" + ((c - 1) / fanout) + ")");
+                for (var i = 0; kb.facts.size() < size; i++) kb.facts.add("(instance I" + i + " C" + rnd.nextInt(classes) + ")");
+                kb.rules.add("(=> (and (instance ?x ?a) (subclass ?a ?b)) (instance ?x ?b))");
+                for (var i = 0; i < 16; i++) kb.queries.add("(instance I" + i + " ?c)");
+            }
+            case CHAIN -> {
+                for (var p = 0; p < fanout; p++) kb.rules.add("(=> (p" + p + " ?x ?y) (p" + (p + 1) + " ?x ?y))");
+                for (var i = 0; i < size; i++) kb.facts.add("(p0 A" + i + " B" + rnd.nextInt(size) + ")");
+                for (var i = 0; i < 16; i++) kb.queries.add("(p" + fanout + " A" + i + " ?y)");
+            }
+            case FANOUT -> {
+                for (var q = 0; q < fanout; q++) kb.rules.add("(=> (base ?x) (q" + q + " ?x))");
+                for (var i = 0; i < size; i++) kb.facts.add("(base A" + i + ")");
+                for (var i = 0; i < 16; i++) kb.queries.add("(q" + rnd.nextInt(fanout) + " ?x)");
+            }
+        }
+        return kb;
+    }
+
+    /** Random ground and non-ground terms of the given nesting depth, for parser and unifier benchmarks. */
+    static List<String> terms(int count, int depth, double varRatio, long seed) {
+        var rnd = new Random(seed);
+        var out = new ArrayList<String>(count);
+        for (var i = 0; i < count; i++) out.add(term(rnd, depth, varRatio));
+        return out;
+    }
+
+    private static String term(Random rnd, int depth, double varRatio) {
+        if (depth == 0) return rnd.nextDouble() < varRatio ? "?V" + rnd.nextInt(4) : "a" + rnd.nextInt(8);
+        var sb = new StringBuilder("(f").append(rnd.nextInt(3));
+        for (var i = 0; i < 3; i++) sb.append(' ').append(term(rnd, depth - 1, varRatio));
+        return sb.append(')').toString();
+    }
+}
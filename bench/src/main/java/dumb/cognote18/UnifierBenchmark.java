@@ -0,0 +1,68 @@
+package dumb.cognote18;
+
+import dumb.cognote18.Cog.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Pairs of random terms; roughly a third unify, the rest fail somewhere below the root. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnifierBenchmark {
+
+    private static final int PAIRS = 256;
+
+    @Param({"2", "4"})
+    int depth;
+
+    KifTerm[] left, right;
+    Map<KifVar, KifTerm>[] solutions;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ParseException {
+        left = parse(SyntheticKb.terms(PAIRS, depth, 0.4, 3));
+        right = parse(SyntheticKb.terms(PAIRS, depth, 0.0, 3));
+        solutions = new Map[PAIRS];
+        for (var i = 0; i < PAIRS; i++) {
+            var b = Unifier.unify(left[i], right[i], Map.of());
+            solutions[i] = b != null ? b : varsOf(left[i]);
+        }
+    }
+
+    private static KifTerm[] parse(List<String> terms) throws ParseException {
+        return KifParser.parseKif(String.join("\n", terms)).toArray(KifTerm[]::new);
+    }
+
+    private static Map<KifVar, KifTerm> varsOf(KifTerm t) {
+        var m = new HashMap<KifVar, KifTerm>();
+        t.vars().forEach(v -> m.put(v, KifAtom.of("x")));
+        return m;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void unify(Blackhole bh) {
+        for (var i = 0; i < PAIRS; i++) bh.consume(Unifier.unify(left[i], right[i], Map.of()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void match(Blackhole bh) {
+        for (var i = 0; i < PAIRS; i++) bh.consume(Unifier.match(left[i], right[i], Map.of()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void subst(Blackhole bh) {
+        for (var i = 0; i < PAIRS; i++) bh.consume(Unifier.subst(left[i], solutions[i]));
+    }
+}
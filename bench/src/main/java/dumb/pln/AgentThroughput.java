@@ -0,0 +1,103 @@
+package dumb.pln;
+
+import dumb.pln.Cog.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+/**
+ * Headless {@link Cog.Agent} experiments: one {@link BasicGridWorld} per worker thread, all stepping in parallel with
+ * console logging off. Each worker runs episodes until it has run its share of agent cycles. The agents either share
+ * one Cog ({@code shared}) or have one each ({@code partitioned}). Reports cycles/s, knowledge-base growth, and
+ * planning latency percentiles. Not a JMH benchmark: learning makes every cycle depend on the ones before it.
+ * <pre>
+ * java -cp target/benchmarks.jar dumb.pln.AgentThroughput [workers] [cycles per worker] [shared|partitioned] [grid size]
+ * </pre>
+ * Every episode has a random goal cell and its own agent node. A HOLDS_AT fact has no time in its id, so with a shared
+ * agent node a goal reached once would count as achieved in every later episode. What carries over between episodes
+ * is action utility.
+ */
+public final class AgentThroughput {
+
+    public static void main(String[] args) throws Exception {
+        var workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        var cycles = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        var shared = args.length > 2 && args[2].equals("shared");
+        var size = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        Cog.logging(false);
+
+        var cogs = new Cog[shared ? 1 : workers];
+        Arrays.setAll(cogs, i -> new Cog());
+        var atomsBefore = Arrays.stream(cogs).mapToLong(Cog::size).sum();
+
+        var pool = Executors.newFixedThreadPool(workers);
+        var runs = new ArrayList<Future<Worker>>(workers);
+        var t0 = System.nanoTime();
+        for (var w = 0; w < workers; w++) {
+            var worker = new Worker(w, cogs[shared ? 0 : w], size);
+            runs.add(pool.submit(() -> worker.run(cycles)));
+        }
+        int total = 0, episodes = 0, reached = 0;
+        var plans = LongStream.empty();
+        for (var r : runs) {
+            var w = r.get();
+            total += w.cycles;
+            episodes += w.episodes;
+            reached += w.reached;
+            plans = LongStream.concat(plans, w.planNanos.build());
+        }
+        var secs = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+        var atomsAfter = Arrays.stream(cogs).mapToLong(Cog::size).sum();
+        var p = plans.sorted().toArray();
+
+        System.out.printf("%s, %d workers, %dx%d grid: %.0f cycles/s (%d cycles in %.2f s), %d episodes, %d reached the goal%n",
+                shared ? "shared" : "partitioned", workers, size, size, total / secs, total, secs, episodes, reached);
+        System.out.printf("atoms: %d -> %d (%.1f per cycle)%n", atomsBefore, atomsAfter, (atomsAfter - atomsBefore) / (double) Math.max(1, total));
+        System.out.printf("planning (%d): p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, max=%.2f ms%n",
+                p.length, percentile(p, 50), percentile(p, 90), percentile(p, 99), percentile(p, 100));
+        for (var c : cogs) c.shutdown();
+    }
+
+    private static double percentile(long[] sorted, int pct) {
+        if (sorted.length == 0) return Double.NaN;
+        var i = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * pct / 100.0) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    private static final class Worker {
+        final int id, size;
+        final Cog cog;
+        final SplittableRandom random;
+        final LongStream.Builder planNanos = LongStream.builder();
+        int cycles, episodes, reached;
+
+        Worker(int id, Cog cog, int size) {
+            this.id = id;
+            this.cog = cog;
+            this.size = size;
+            this.random = new SplittableRandom(id);
+        }
+
+        Worker run(int budget) {
+            var agent = cog.new Agent();
+            agent.onPlan(planNanos);
+            var at = cog.node("Predicate:AtLocation");
+            while (cycles < budget) {
+                var cell = 1 + random.nextInt(size * size - 1); // Not the start cell (0, 0)
+                int gx = cell % size, gy = cell / size;
+                var self = "Self" + id + "_" + episodes;
+                var world = new BasicGridWorld(cog, self, size, gx, gy);
+                var goal = cog.learn(Type.HOLDS_AT, Truth.UNKNOWN, 1.0, cog.learn(Type.EVALUATION, Truth.UNKNOWN, 1.0, at, cog.node(self), cog.node("Pos_" + gx + "_" + gy)));
+                cycles += agent.run(world, goal, budget - cycles);
+                episodes++;
+                if (world.reached()) reached++;
+            }
+            return this;
+        }
+    }
+}
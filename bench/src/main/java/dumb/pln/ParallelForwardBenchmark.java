@@ -0,0 +1,66 @@
+package dumb.pln;
+
+import dumb.pln.Cog.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PLN forward chaining on a random INHERITANCE graph, sequential ({@code threads = 0}, the deterministic default) vs.
+ * {@link Infer#parallel} on a ForkJoinPool of 1–16 workers. A parallel round executes one agenda batch per worker, so
+ * each invocation runs {@link #STEPS} sequential steps or {@code STEPS / threads} parallel rounds: the same number of
+ * attempted inferences either way. The score is time per attempted inference.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelForwardBenchmark {
+
+    private static final int NODES = 1000, LINKS = 4000, STEPS = 64, BATCH = 50;
+
+    @Param({"0", "1", "2", "4", "8", "16"})
+    int threads;
+
+    Infer infer;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void quiet() {
+        Cog.logging(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void loud() {
+        Cog.logging(true);
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        var mem = new Memory(System::currentTimeMillis);
+        infer = new Infer(mem);
+        if (threads > 0) infer.parallel(pool = new ForkJoinPool(threads));
+
+        var rnd = new SplittableRandom(1);
+        var nodes = new ArrayList<Node>(NODES);
+        for (var i = 0; i < NODES; i++) nodes.add(mem.node("n" + i, Truth.of(0.9, 5), 0.5));
+        for (var i = 0; i < LINKS; i++)
+            mem.link(Type.INHERITANCE, Truth.of(0.5 + rnd.nextDouble() / 2, 3), 0.3, null, nodes.get(rnd.nextInt(NODES)), nodes.get(rnd.nextInt(NODES)));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS * BATCH)
+    public void forward() {
+        infer.forward(threads > 0 ? Math.max(1, STEPS / threads) : STEPS);
+    }
+}
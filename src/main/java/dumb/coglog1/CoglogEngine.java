@@ -7,22 +7,31 @@ package dumb.coglog1; // Use a package name
 // Features:    Immutable data structures, probabilistic execution, meta-circularity,
 //              reflection, error handling, retries, persistence, garbage collection.
 // Dependencies: Minimal standard Java libraries (UUID, Collections, IO, net.http).
-// Version: 2.6.1.8 (Handle StackOverflowError during LLM response parsing in generator)
+// Version: 2.6.1.9 (Iterative term parser and unifier; parsing no longer risks StackOverflowError)
 
 import java.io.*;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * Main container class for the Coglog 2.6.1 Engine and its components.
@@ -33,6 +42,8 @@ public class CoglogEngine implements AutoCloseable {
 
     // --- Configuration ---
     private final Configuration config;
+    private static final int CHECKPOINT_EVERY = 100_000; // Journal records between background checkpoints
+    private static final int GC_MAX_PER_RUN = 50_000; // Evictions per GC run; the backlog drains over later runs
 
     // --- Core Components ---
     private final ThoughtStore thoughtStore;
@@ -44,6 +55,8 @@ public class CoglogEngine implements AutoCloseable {
     private final Unifier unifier;
     private final ActionExecutor actionExecutor;
     private final ExecuteLoop executeLoop;
+    private final WorkSignal workSignal;
+    private final TimerWheel timerWheel = new TimerWheel(10, 512, "CoglogTimer"); // 10ms ticks, ~5s per rotation
     private final GarbageCollector garbageCollector;
     private final Bootstrap bootstrap;
 
@@ -59,9 +72,11 @@ public class CoglogEngine implements AutoCloseable {
     /** Constructor using specified configuration */
     public CoglogEngine(Configuration config) {
         this.config = Objects.requireNonNull(config, "Configuration cannot be null");
-        this.storeNotifier = new ConsoleNotifier();
-        this.thoughtStore = new InMemoryThoughtStore(storeNotifier);
-        this.persistenceService = new FilePersistenceService();
+        LogPersistenceService journal = new LogPersistenceService(new ConsoleNotifier(), CHECKPOINT_EVERY);
+        this.workSignal = new WorkSignal(journal); // Journal every change, then wake workers
+        this.storeNotifier = workSignal;
+        this.thoughtStore = new IndexedThoughtStore(storeNotifier);
+        this.persistenceService = journal;
         this.textParserService = new BasicTextParser();
         // Instantiate the Ollama HTTP client
         this.llmService = new OllamaHttpLlmService(config.llmApiEndpoint(), config.llmModelName(), config.llmApiKey());
@@ -69,8 +84,9 @@ public class CoglogEngine implements AutoCloseable {
         this.thoughtGenerator = new BasicThoughtGenerator(llmService); // Pass LLM service
         this.actionExecutor.setThoughtGenerator(this.thoughtGenerator); // Resolve cyclic dependency
         this.unifier = new Unifier();
-        this.executeLoop = new ExecuteLoop(thoughtStore, unifier, actionExecutor, config, scheduler);
-        this.garbageCollector = new GarbageCollector(thoughtStore, config.gcThresholdMillis());
+        this.executeLoop = new ExecuteLoop(thoughtStore, unifier, actionExecutor, config, scheduler, workSignal, timerWheel);
+        this.garbageCollector = new GarbageCollector(thoughtStore, config.gcThresholdMillis(), GC_MAX_PER_RUN,
+                config.archiveEvicted() ? journal.archiver(Paths.get(config.persistencePath())) : null);
         this.bootstrap = new Bootstrap(thoughtStore);
 
         loadState(); // Load or bootstrap
@@ -86,7 +102,8 @@ public class CoglogEngine implements AutoCloseable {
     /** Starts the engine's execution loop and garbage collection scheduling. */
     public void start() {
         executeLoop.start();
-        long gcInterval = Math.max(60_000L, config.gcThresholdMillis()); // GC min every minute
+        // Runs are bounded and index-driven, so collect often in small steps rather than rarely over the whole store
+        long gcInterval = Math.clamp(config.gcThresholdMillis() / 60, 1_000L, 60_000L);
         scheduler.scheduleAtFixedRate(garbageCollector, gcInterval, gcInterval, TimeUnit.MILLISECONDS);
         System.out.println("CoglogEngine started (GC scheduled every " + gcInterval + "ms).");
     }
@@ -96,6 +113,7 @@ public class CoglogEngine implements AutoCloseable {
     public void close() {
         System.out.println("Shutting down CoglogEngine...");
         executeLoop.stop(); // Stop processing loop first
+        timerWheel.close();
         scheduler.shutdown();
         try {
             // Wait for scheduler tasks
@@ -109,6 +127,7 @@ public class CoglogEngine implements AutoCloseable {
             scheduler.shutdownNow();
         }
         saveState(); // Save state after stopping
+        persistenceService.close();
         System.out.println("CoglogEngine shut down complete.");
     }
 
@@ -126,8 +145,7 @@ public class CoglogEngine implements AutoCloseable {
 
     /** Provides a map of Thought counts grouped by their status. */
     public Map<Status, Long> getStatusCounts() {
-        return thoughtStore.getAllThoughts().stream()
-                .collect(Collectors.groupingBy(Thought::status, Collectors.counting()));
+        return thoughtStore.getStatusCounts();
     }
 
     // --- Persistence Handling ---
@@ -172,12 +190,13 @@ public class CoglogEngine implements AutoCloseable {
             System.out.println("No previous state loaded or state was empty/invalid. Bootstrapping...");
             bootstrap.loadBootstrapMetaThoughts();
         }
+        saveState(); // Checkpoint the loaded/bootstrapped state; later changes are journaled incrementally
     }
 
     /** Saves the current state of the ThoughtStore to the persistence path. */
     private void saveState() {
         try {
-            persistenceService.save(thoughtStore.getAllThoughts(), config.persistencePath());
+            persistenceService.checkpoint(thoughtStore::getAllThoughts, config.persistencePath());
         } catch (PersistenceException e) {
             System.err.println("ERROR: Failed to save state to " + config.persistencePath() + ": " + e.getMessage());
             System.err.println("       Cause: " + (e.getCause() != null ? e.getCause().getClass().getSimpleName() + ": " + e.getCause().getMessage() : "N/A"));
@@ -241,7 +260,10 @@ public class CoglogEngine implements AutoCloseable {
             String persistencePath,
             String llmApiEndpoint,
             String llmModelName, // Added for Ollama
-            String llmApiKey // Kept for potential future use with other APIs
+            String llmApiKey, // Kept for potential future use with other APIs
+            int workerCount, // ExecuteLoop workers; 0 = legacy single fixed-delay poll
+            boolean virtualWorkers, // Run workers on virtual threads (suits LLM-bound actions)
+            boolean archiveEvicted // GC appends evicted thoughts to <persistencePath>.archive instead of dropping them
     ) {
         static final Configuration DEFAULT = new Configuration(
                 3,                    // maxRetries
@@ -251,7 +273,10 @@ public class CoglogEngine implements AutoCloseable {
                 "coglog_state.dat",   // persistencePath
                 "http://localhost:11434/api/generate", // llmApiEndpoint (Default Ollama)
                 "llamablit",           // llmModelName (Default Ollama model)
-                ""                    // llmApiKey (Optional)
+                "",                   // llmApiKey (Optional)
+                Runtime.getRuntime().availableProcessors(), // workerCount
+                false,                // virtualWorkers
+                false                 // archiveEvicted
         );
     }
 
@@ -340,22 +365,44 @@ public class CoglogEngine implements AutoCloseable {
         @Override public String toString() { return String.format("B(%.1f, %.1f)", positive, negative); }
     }
 
-    /** The primary unit of processing. Represents information or a task. Immutable and serializable. */
+    /**
+     * The primary unit of processing. Represents information or a task. Immutable and serializable. The standard
+     * metadata keys are typed fields; {@code metadata} holds only the extras (e.g. target_role, error_info), so a
+     * status or belief change shares it instead of copying. getMetadata() answers for both.
+     */
     record Thought(
             String id,                // Unique identifier (UUID v4 string)
             Role role,                // Purpose
             Term content,             // Logical content
             Belief belief,            // Confidence
             Status status,            // Processing state
-            Map<String, Object> metadata // Auxiliary data (immutable map)
+            String parentId,          // parent_id: id of the thought that spawned this one, or null
+            int retryCount,           // retry_count: failed attempts so far
+            long createdAt,           // creation_timestamp (epoch millis)
+            long updatedAt,           // last_updated_timestamp (epoch millis)
+            List<String> provenance,  // provenance: META/LLM sources, oldest first (immutable list)
+            Map<String, Object> metadata // Extra auxiliary data (immutable map, usually empty)
     ) implements Serializable {
 
+        static final String PARENT_ID = "parent_id", RETRY_COUNT = "retry_count", CREATED = "creation_timestamp",
+                UPDATED = "last_updated_timestamp", PROVENANCE = "provenance";
         private static final Map<String, Object> EMPTY_METADATA = Map.of();
 
         Thought { // Ensure immutability and validate metadata
             Objects.requireNonNull(id); Objects.requireNonNull(role); Objects.requireNonNull(content);
             Objects.requireNonNull(belief); Objects.requireNonNull(status);
+            provenance = provenance == null ? List.of() : List.copyOf(provenance); // No copy if already immutable
             metadata = (metadata == null || metadata.isEmpty()) ? EMPTY_METADATA : Map.copyOf(metadata);
+            if (hasStandardKey(metadata)) {
+                // Lift standard keys passed as plain metadata (e.g. state serialized before these fields existed)
+                Map<String, Object> extras = new HashMap<>(metadata);
+                if (extras.remove(PARENT_ID) instanceof String p) parentId = p;
+                if (extras.remove(RETRY_COUNT) instanceof Number n) retryCount = n.intValue();
+                if (extras.remove(CREATED) instanceof Number n) createdAt = n.longValue();
+                if (extras.remove(UPDATED) instanceof Number n) updatedAt = n.longValue();
+                if (extras.remove(PROVENANCE) instanceof List<?> l) provenance = l.stream().filter(Objects::nonNull).map(String::valueOf).toList();
+                metadata = Map.copyOf(extras);
+            }
             validateMetadataValueTypes(metadata); // Validate value types
         }
 
@@ -364,14 +411,34 @@ public class CoglogEngine implements AutoCloseable {
 
         /** Concise string representation for logging. */
         @Override public String toString() {
+            Map<String, Object> all = allMetadata();
             return String.format("Thought[%s, %s, %s, %s, %s, %s]",
                     id.substring(0, Math.min(id.length(), 8)), role, status, belief, content,
-                    metadata.isEmpty() ? "{}" : metadata);
+                    all.isEmpty() ? "{}" : all);
         }
 
-        /** Safely retrieves metadata, casting to the expected type. */
+        /** Safely retrieves metadata (standard or extra), casting to the expected type. */
         public <T> Optional<T> getMetadata(String key, Class<T> type) {
-            return Optional.ofNullable(metadata.get(key)).filter(type::isInstance).map(type::cast);
+            Object value = switch (key) {
+                case PARENT_ID -> parentId;
+                case RETRY_COUNT -> retryCount;
+                case CREATED -> createdAt;
+                case UPDATED -> updatedAt;
+                case PROVENANCE -> provenance;
+                default -> metadata.get(key);
+            };
+            return Optional.ofNullable(value).filter(type::isInstance).map(type::cast);
+        }
+
+        /** All metadata as one map, standard keys included. Allocates; for display and export, not the hot path. */
+        public Map<String, Object> allMetadata() {
+            Map<String, Object> all = new LinkedHashMap<>();
+            if (parentId != null) all.put(PARENT_ID, parentId);
+            if (retryCount != 0) all.put(RETRY_COUNT, retryCount);
+            all.put(CREATED, createdAt); all.put(UPDATED, updatedAt);
+            if (!provenance.isEmpty()) all.put(PROVENANCE, provenance);
+            all.putAll(metadata);
+            return all;
         }
 
         /** Creates new Thought with default metadata. */
@@ -382,8 +449,19 @@ public class CoglogEngine implements AutoCloseable {
             return create(role, content, Belief.DEFAULT_UNCERTAIN);
         }
 
+        private static boolean hasStandardKey(Map<String, Object> metadata) {
+            if (metadata.isEmpty()) return false;
+            for (String key : metadata.keySet()) if (isStandardKey(key)) return true;
+            return false;
+        }
+
+        static boolean isStandardKey(String key) {
+            return switch (key) { case PARENT_ID, RETRY_COUNT, CREATED, UPDATED, PROVENANCE -> true; default -> false; };
+        }
+
         // Validate allowed metadata types
         private static void validateMetadataValueTypes(Map<String, Object> metadata) {
+            if (metadata.isEmpty()) return;
             for (Map.Entry<String, Object> entry : metadata.entrySet()) {
                 Object value = entry.getValue();
                 // Allow primitive wrappers, String, and List<String> (allowing nulls in list)
@@ -395,22 +473,26 @@ public class CoglogEngine implements AutoCloseable {
         }
     }
 
-    /** Builder for convenient creation/modification of immutable Thought objects. */
+    /** Builder for convenient creation/modification of immutable Thought objects. Extras are copied only when changed. */
     static class ThoughtBuilder {
         private String id; private Role role; private Term content;
         private Belief belief; private Status status;
-        private final Map<String, Object> metadata; // Mutable during build
+        private String parentId; private int retryCount; private long createdAt;
+        private List<String> provenance;
+        private Map<String, Object> metadata; // Shared with the original until first modified
+        private boolean metadataOwned;
 
         ThoughtBuilder() { // For new thoughts
-            this.id = Helpers.generateUUID(); this.metadata = new HashMap<>();
-            this.metadata.put("creation_timestamp", System.currentTimeMillis());
+            this.id = Helpers.generateUUID(); this.createdAt = System.currentTimeMillis();
+            this.provenance = List.of(); this.metadata = Map.of();
             this.status = Status.PENDING; this.belief = Belief.DEFAULT_UNCERTAIN;
         }
 
         ThoughtBuilder(Thought original) { // For modification
             this.id = original.id(); this.role = original.role(); this.content = original.content();
             this.belief = original.belief(); this.status = original.status();
-            this.metadata = new HashMap<>(original.metadata()); // Start with copy
+            this.parentId = original.parentId(); this.retryCount = original.retryCount(); this.createdAt = original.createdAt();
+            this.provenance = original.provenance(); this.metadata = original.metadata(); // Immutable, shared
         }
 
         // Chainable builder methods
@@ -419,7 +501,20 @@ public class CoglogEngine implements AutoCloseable {
         public ThoughtBuilder content(Term content) { this.content = Objects.requireNonNull(content); return this; }
         public ThoughtBuilder belief(Belief belief) { this.belief = Objects.requireNonNull(belief); return this; }
         public ThoughtBuilder status(Status status) { this.status = Objects.requireNonNull(status); return this; }
-        public ThoughtBuilder metadata(Map<String, Object> metadata) { this.metadata.clear(); this.metadata.putAll(Objects.requireNonNull(metadata)); return this; }
+        public ThoughtBuilder parentId(String parentId) { this.parentId = parentId; return this; }
+        public ThoughtBuilder retryCount(int retryCount) { this.retryCount = retryCount; return this; }
+        public ThoughtBuilder provenance(List<String> provenance) { this.provenance = List.copyOf(provenance); return this; }
+        public ThoughtBuilder addProvenance(String entry) {
+            String[] updated = provenance.toArray(new String[provenance.size() + 1]);
+            updated[provenance.size()] = Objects.requireNonNull(entry);
+            this.provenance = List.of(updated);
+            return this;
+        }
+        public ThoughtBuilder metadata(Map<String, Object> metadata) {
+            this.metadata = new HashMap<>(); this.metadataOwned = true;
+            Objects.requireNonNull(metadata).forEach(this::putMetadata);
+            return this;
+        }
         public ThoughtBuilder putMetadata(String key, Object value) {
             Objects.requireNonNull(key);
             // Validate type before adding
@@ -427,30 +522,32 @@ public class CoglogEngine implements AutoCloseable {
                     (value instanceof List<?> list && list.stream().allMatch(item -> item instanceof String || item == null)))) {
                 throw new IllegalArgumentException("Invalid metadata value type for key '" + key + "': " + value.getClass().getName());
             }
-            // Ensure lists are immutable copies
-            this.metadata.put(key, (value instanceof List<?> listValue) ? List.copyOf(listValue) : value);
+            switch (key) { // Standard keys go to their typed fields, coerced as before
+                case Thought.PARENT_ID -> parentId = value instanceof String p ? p : null;
+                case Thought.RETRY_COUNT -> retryCount = value instanceof Number n ? n.intValue() : 0;
+                case Thought.CREATED -> createdAt = value instanceof Number n ? n.longValue() : System.currentTimeMillis();
+                case Thought.UPDATED -> { /* Always stamped by build() */ }
+                case Thought.PROVENANCE -> {
+                    if (value == null) provenance = List.of(); // Use empty list if null
+                    else if (value instanceof List<?> list && list.stream().allMatch(o -> o instanceof String)) provenance = list.stream().map(String.class::cast).toList();
+                    else {
+                        System.err.println("WARN: Correcting invalid provenance type for key '" + key + "': " + value.getClass().getName());
+                        provenance = List.of("INVALID_PROVENANCE_TYPE:" + value.getClass().getSimpleName());
+                    }
+                }
+                default -> {
+                    if (!metadataOwned) { metadata = new HashMap<>(metadata); metadataOwned = true; } // Copy on first write
+                    if (value == null) metadata.remove(key);
+                    else metadata.put(key, (value instanceof List<?> listValue) ? List.copyOf(listValue) : value); // Ensure lists are immutable copies
+                }
+            }
             return this;
         }
 
-        /** Builds the immutable Thought, applying final checks and defaults. */
+        /** Builds the immutable Thought, stamping last_updated_timestamp. */
         public Thought build() {
-            metadata.put("last_updated_timestamp", System.currentTimeMillis());
-            // Ensure standard metadata fields have correct types
-            metadata.computeIfPresent("retry_count", (k, v) -> (v instanceof Number n) ? n.intValue() : 0);
-            metadata.computeIfPresent("creation_timestamp", (k, v) -> (v instanceof Number n) ? n.longValue() : System.currentTimeMillis());
-            metadata.computeIfPresent("last_updated_timestamp", (k, v) -> (v instanceof Number n) ? n.longValue() : System.currentTimeMillis());
-            metadata.computeIfPresent("provenance", (k,v) -> {
-                if (v instanceof List<?> list && list.stream().allMatch(o -> o instanceof String)) {
-                    return List.copyOf((List<String>)list); // Ensure immutable copy
-                } else if (v == null) {
-                    return List.of(); // Use empty list if null
-                }
-                System.err.println("WARN: Correcting invalid provenance type for key '" + k + "': " + v.getClass().getName());
-                return List.of("INVALID_PROVENANCE_TYPE:" + v.getClass().getSimpleName());
-            });
-
-            // Constructor handles final null checks and Map.copyOf
-            return new Thought(id, role, content, belief, status, metadata);
+            // Constructor handles final null checks; unchanged extras are already immutable and are not copied
+            return new Thought(id, role, content, belief, status, parentId, retryCount, createdAt, System.currentTimeMillis(), provenance, metadata);
         }
     }
 
@@ -460,6 +557,11 @@ public class CoglogEngine implements AutoCloseable {
     static class UnboundVariableException extends CoglogException { UnboundVariableException(Variable v) { super("Unbound variable during substitution: " + v.name()); } }
     static class ActionExecutionException extends CoglogException { ActionExecutionException(String m) { super("Action execution failed: " + m); } ActionExecutionException(String m, Throwable c) { super("Action execution failed: " + m, c); } }
     static class PersistenceException extends CoglogException { PersistenceException(String m, Throwable c) { super("Persistence error: " + m, c); } }
+    /** Malformed term text; position is the character index (in the parsed text) where parsing stopped. */
+    static class TermParseException extends IllegalArgumentException {
+        final int position;
+        TermParseException(String m, int position) { super(m + " at index " + position); this.position = position; }
+    }
     static class LlmException extends CoglogException { LlmException(String m) { super("LLM service error: " + m); } LlmException(String m, Throwable c) { super("LLM service error: " + m, c); } }
 
 
@@ -474,11 +576,27 @@ public class CoglogEngine implements AutoCloseable {
         List<Thought> findThoughtsByParentId(String parentId);
         Collection<Thought> getAllThoughts(); // Returns immutable view or copy
         void clear(); // Clears all thoughts
+        default Map<Status, Long> getStatusCounts() { // Stores with a status index override this scan
+            return getAllThoughts().stream().collect(Collectors.groupingBy(Thought::status, Collectors.counting()));
+        }
+        default Map<Status, Integer> getChildStatusCounts(String parentId) { // Children of parentId counted by status
+            return findThoughtsByParentId(parentId).stream().collect(Collectors.groupingBy(Thought::status, () -> new EnumMap<>(Status.class), Collectors.summingInt(t -> 1)));
+        }
+        default List<Thought> findExpiredTerminal(long cutoffMillis, int limit) { // Oldest DONE/FAILED updated before cutoff; stores with an expiry index avoid this scan
+            return getAllThoughts().stream().filter(t -> GarbageCollector.TERMINAL_STATUSES.contains(t.status()) && t.updatedAt() < cutoffMillis)
+                    .sorted(Comparator.comparingLong(Thought::updatedAt)).limit(limit).toList();
+        }
+        default List<Thought> getMetaCandidates(Thought activeThought) { // Superset of the METAs that can match; stores with a META index narrow it
+            return getMetaThoughts();
+        }
     }
 
     interface PersistenceService {
         void save(Collection<Thought> thoughts, String path);
+        /** Saves the state the supplier returns. Journaling implementations call it at the point where the journal is cut. */
+        default void checkpoint(Supplier<? extends Collection<Thought>> state, String path) { save(state.get(), path); }
         Collection<Thought> load(String path); // Throws PersistenceException
+        default void close() {} // Releases open files after the final save
     }
 
     interface StoreNotifier {
@@ -488,21 +606,16 @@ public class CoglogEngine implements AutoCloseable {
 
     interface TextParserService { List<Thought> parse(String text); }
     interface LlmService { String generateText(String prompt); } // Throws LlmException on failure
-    interface ThoughtGenerator { List<Thought> generate(Term prompt, Map<Variable, Term> bindings, String parentId); }
+    interface ThoughtGenerator { List<Thought> generate(Term prompt, Bindings bindings, String parentId); }
 
     // --- Helper Class and Functions ---
     static class Helpers {
         private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
-        // Regex patterns pre-compiled for performance
-        // Structure pattern is non-greedy (.*?) to prevent StackOverflow on complex inputs
-        private static final Pattern STRUCTURE_PATTERN = Pattern.compile("^([a-z_][\\w]*)\\((.*?)\\)$", Pattern.DOTALL);
-        private static final Pattern VARIABLE_PATTERN = Pattern.compile("^[_A-Z][_a-zA-Z0-9]*$");
-        private static final Pattern NUMBER_PATTERN = Pattern.compile("^-?\\d+(\\.\\d+)?$");
 
         /** Generates a standard UUID v4 string. */
         public static String generateUUID() { return UUID.randomUUID().toString(); }
 
-        /** Performs standard unification with occurs check. Returns substitution map or throws UnificationException. */
+        /** Performs standard unification with occurs check. Returns substitution map or throws UnificationException. See also Bindings. */
         public static Map<Variable, Term> unify(Term term1, Term term2) throws UnificationException {
             return unifyRecursive(term1, term2, Collections.emptyMap());
         }
@@ -616,77 +729,65 @@ public class CoglogEngine implements AutoCloseable {
             return Optional.of(validItems.getLast().getValue());
         }
 
-        /** Parses a string into a Term. Order: Number, List, Structure, Variable, Atom. */
-        public static Term parseTerm(String input) throws IllegalArgumentException {
-            input = input.trim();
-            if (input.isEmpty()) throw new IllegalArgumentException("Cannot parse empty string to Term");
+        /** Parses a string into a Term. See TermParser. */
+        public static Term parseTerm(String input) throws IllegalArgumentException { return TermParser.parse(input); }
 
-            // 1. Try Number
-            if (NUMBER_PATTERN.matcher(input).matches()) {
-                try { return new NumberTerm(Double.parseDouble(input)); } catch (NumberFormatException ignored) {}
-            }
-            // 2. Try List: [...]
-            if (input.startsWith("[") && input.endsWith("]")) {
-                String content = input.substring(1, input.length() - 1).trim();
-                return new ListTerm(parseTermListContent(content));
-            }
-            // 3. Try Structure: name(...)
-            // Uses the non-greedy STRUCTURE_PATTERN now
-            Matcher structureMatcher = STRUCTURE_PATTERN.matcher(input);
-            if (structureMatcher.matches()) {
-                String name = structureMatcher.group(1);
-                String argsContent = structureMatcher.group(2).trim();
-                return new Structure(name, parseTermListContent(argsContent));
-            }
-            // 4. Try Variable: Starts with uppercase or underscore
-            if (VARIABLE_PATTERN.matcher(input).matches()) {
-                return new Variable(input);
+        /** Returns the string value of the first "key": "..." pair in json, with escapes decoded. Single pass, no regex. */
+        public static Optional<String> extractJsonStringValue(String json, String key) {
+            int n = json.length();
+            for (int i = 0; i < n; i++) {
+                if (json.charAt(i) != '"') continue;
+                int close = skipJsonString(json, i);
+                if (close < 0) return Optional.empty();
+                boolean isKey = close - i - 1 == key.length() && json.regionMatches(i + 1, key, 0, key.length());
+                i = close;
+                if (!isKey) continue;
+                int j = skipWhitespace(json, close + 1, n);
+                if (j >= n || json.charAt(j) != ':') continue; // A value equal to key, not a key
+                j = skipWhitespace(json, j + 1, n);
+                if (j >= n || json.charAt(j) != '"') continue; // Key maps to a non-string value
+                return decodeJsonString(json, j);
             }
-            // 5. Default to Atom: If it wasn't parsed as anything else, it's an Atom.
-            return new Atom(input);
+            return Optional.empty();
         }
 
-        /**
-         * Helper to parse comma-separated term content within lists or structures, handling nesting.
-         * This is the recursive part vulnerable to StackOverflowError on deeply nested or complex input.
-         */
-        private static List<Term> parseTermListContent(String content) throws IllegalArgumentException {
-            content = content.trim();
-            if (content.isEmpty()) return Collections.emptyList();
-
-            List<Term> terms = new ArrayList<>();
-            int balance = 0; int start = 0; boolean inQuotes = false;
-
-            for (int i = 0; i < content.length(); i++) {
-                char c = content.charAt(i);
-                if (c == '"' && (i == 0 || content.charAt(i - 1) != '\\')) inQuotes = !inQuotes;
-                if (!inQuotes) {
-                    if (c == '(' || c == '[') balance++;
-                    else if (c == ')' || c == ']') balance--;
-                    else if (c == ',' && balance == 0) {
-                        // Recursively parse the segment before the comma
-                        terms.add(parseTerm(content.substring(start, i)));
-                        start = i + 1;
+        // Index of the quote closing the JSON string opened at start, or -1 if unterminated.
+        private static int skipJsonString(String json, int start) {
+            for (int i = start + 1; i < json.length(); i++) {
+                char c = json.charAt(i);
+                if (c == '\\') i++;
+                else if (c == '"') return i;
+            }
+            return -1;
+        }
+
+        private static Optional<String> decodeJsonString(String json, int start) {
+            StringBuilder out = new StringBuilder();
+            for (int i = start + 1; i < json.length(); i++) {
+                char c = json.charAt(i);
+                if (c == '"') return Optional.of(out.toString());
+                if (c != '\\') { out.append(c); continue; }
+                if (++i >= json.length()) break;
+                switch (json.charAt(i)) {
+                    case 'n' -> out.append('\n');
+                    case 't' -> out.append('\t');
+                    case 'r' -> out.append('\r');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        if (i + 4 >= json.length()) return Optional.empty();
+                        try { out.append((char) Integer.parseInt(json, i + 1, i + 5, 16)); } catch (NumberFormatException e) { return Optional.empty(); }
+                        i += 4;
                     }
+                    default -> out.append(json.charAt(i)); // \" \\ \/
                 }
-                if (balance < 0) throw new IllegalArgumentException("Mismatched closing parenthesis/bracket near index " + i + " in: '" + content + "'");
             }
-            if (balance != 0) throw new IllegalArgumentException("Mismatched parentheses/brackets (unbalanced end) in: '" + content + "'");
-            if (inQuotes) throw new IllegalArgumentException("Unclosed quotes in term list: '" + content + "'");
-            // Recursively parse the last segment
-            terms.add(parseTerm(content.substring(start)));
-            return List.copyOf(terms);
+            return Optional.empty(); // Unterminated
         }
 
-        /** Very basic JSON string value extractor. Assumes simple structure like {"key": "value"}. */
-        public static Optional<String> extractJsonStringValue(String json, String key) {
-            // Look for "key": "value" pattern, handling basic escapes
-            Pattern pattern = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
-            Matcher matcher = pattern.matcher(json);
-            if (matcher.find()) {
-                return Optional.of(matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
-            }
-            return Optional.empty();
+        static int skipWhitespace(CharSequence s, int i, int end) {
+            while (i < end && Character.isWhitespace(s.charAt(i))) i++;
+            return i;
         }
 
         /**
@@ -723,6 +824,143 @@ public class CoglogEngine implements AutoCloseable {
         }
     }
 
+    /**
+     * Single-pass term parser for name(args), [list], Variable, number and "quoted" syntax. Iterative (an explicit
+     * frame stack, so nesting depth is bounded by heap, not the call stack), regex-free, and it copies only token text.
+     * Errors carry the index where parsing stopped. A top-level input that does not start a list or structure is taken
+     * whole as a Number, Variable or Atom, so free text such as "Hello, world" parses as an Atom. Quoted strings become
+     * Atoms that keep their quotes, so toString() round-trips; within an argument, quoted text may contain delimiters.
+     */
+    static final class TermParser {
+        private TermParser() {}
+
+        // An open list or structure: name is null for a list.
+        private record Frame(String name, List<Term> items, int open) {
+            char closer() { return name == null ? ']' : ')'; }
+            Term build() { return name == null ? new ListTerm(items) : new Structure(name, items); }
+        }
+
+        static Term parse(CharSequence text) { return parse(text, 0, text.length()); }
+
+        /** Parses text[from, to), ignoring surrounding whitespace. Error positions are indexes into text. */
+        static Term parse(CharSequence text, int from, int to) {
+            int start = Helpers.skipWhitespace(text, from, to), end = to;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+            if (start == end) throw new TermParseException("Cannot parse empty string to Term", from);
+            char c = text.charAt(start);
+            int name = isFunctorStart(c) ? functorEnd(text, start, end) : start;
+            boolean isCompound = c == '[' || (name > start && name < end && text.charAt(name) == '(');
+            return isCompound ? compound(text, start, end) : scalar(text, start, end); // Otherwise the whole input is one token
+        }
+
+        private static Term compound(CharSequence text, int pos, int end) {
+            Deque<Frame> stack = new ArrayDeque<>();
+            while (true) {
+                // Expect a term, or the closer of an empty frame
+                pos = Helpers.skipWhitespace(text, pos, end);
+                if (pos >= end) throw unclosed(stack.peek(), end);
+                char c = text.charAt(pos);
+                Term term;
+                Frame top = stack.peek();
+                if (top != null && c == top.closer() && top.items().isEmpty()) { term = null; }
+                else if (c == '[') { stack.push(new Frame(null, new ArrayList<>(), pos++)); continue; }
+                else if (c == '"') {
+                    int close = pos + 1;
+                    while (close < end && text.charAt(close) != '"') close += text.charAt(close) == '\\' ? 2 : 1;
+                    if (close >= end) throw new TermParseException("Unterminated quoted string starting", pos);
+                    term = new Atom(text.subSequence(pos, close + 1).toString());
+                    pos = close + 1;
+                } else if (c == ',' || c == ')' || c == ']' || c == '(') {
+                    throw new TermParseException("Expected a term but found '" + c + "'", pos);
+                } else {
+                    int runEnd = pos;
+                    for (; runEnd < end && !isDelimiter(text.charAt(runEnd)); runEnd++) {
+                        if (text.charAt(runEnd) != '"') continue; // Quoted text in a token, as in say "hi, there", has no delimiters
+                        int close = runEnd + 1;
+                        while (close < end && text.charAt(close) != '"') close += text.charAt(close) == '\\' ? 2 : 1;
+                        if (close >= end) throw new TermParseException("Unterminated quoted string starting", runEnd);
+                        runEnd = close;
+                    }
+                    if (runEnd < end && text.charAt(runEnd) == '(') {
+                        if (!isFunctorStart(c) || functorEnd(text, pos, runEnd) != runEnd)
+                            throw new TermParseException("Unexpected '(' after '" + text.subSequence(pos, runEnd) + "'", runEnd);
+                        stack.push(new Frame(text.subSequence(pos, runEnd).toString(), new ArrayList<>(), runEnd));
+                        pos = runEnd + 1;
+                        continue;
+                    }
+                    int tokenEnd = runEnd;
+                    while (Character.isWhitespace(text.charAt(tokenEnd - 1))) tokenEnd--;
+                    term = scalar(text, pos, tokenEnd);
+                    pos = runEnd;
+                }
+                // Attach the term, closing every frame it completes
+                while (true) {
+                    Frame frame = stack.peek();
+                    if (frame == null) {
+                        pos = Helpers.skipWhitespace(text, pos, end);
+                        if (pos < end) throw new TermParseException("Unexpected trailing input '" + text.charAt(pos) + "'", pos);
+                        return term;
+                    }
+                    if (term != null) {
+                        frame.items().add(term);
+                        pos = Helpers.skipWhitespace(text, pos, end);
+                        if (pos >= end) throw unclosed(frame, end);
+                    }
+                    c = text.charAt(pos);
+                    if (term != null && c == ',') { pos++; break; }
+                    if (c != frame.closer()) throw new TermParseException("Expected ',' or '" + frame.closer() + "' but found '" + c + "'", pos);
+                    pos++;
+                    stack.pop();
+                    term = frame.build();
+                }
+            }
+        }
+
+        // Number (-?digits[.digits]), Variable ([_A-Z][_a-zA-Z0-9]*) or else Atom, over text[start, end).
+        private static Term scalar(CharSequence text, int start, int end) {
+            String token = text.subSequence(start, end).toString();
+            if (isNumber(text, start, end)) {
+                try { return new NumberTerm(Double.parseDouble(token)); } catch (NumberFormatException ignored) { /* Atom */ }
+            }
+            char c = text.charAt(start);
+            if (c == '_' || (c >= 'A' && c <= 'Z')) {
+                int i = start + 1;
+                while (i < end && isWordChar(text.charAt(i))) i++;
+                if (i == end) return new Variable(token);
+            }
+            return new Atom(token);
+        }
+
+        private static boolean isNumber(CharSequence text, int i, int end) {
+            if (i < end && text.charAt(i) == '-') i++;
+            int digits = i;
+            while (i < end && isDigit(text.charAt(i))) i++;
+            if (i == digits) return false;
+            if (i == end) return true;
+            if (text.charAt(i++) != '.') return false;
+            int fraction = i;
+            while (i < end && isDigit(text.charAt(i))) i++;
+            return i > fraction && i == end;
+        }
+
+        // End of the [a-z_][a-zA-Z0-9_]* run starting at i.
+        private static int functorEnd(CharSequence text, int i, int end) {
+            i++;
+            while (i < end && isWordChar(text.charAt(i))) i++;
+            return i;
+        }
+
+        private static TermParseException unclosed(Frame frame, int end) {
+            return frame == null ? new TermParseException("Unexpected end of input", end)
+                    : new TermParseException("Missing '" + frame.closer() + "' for '" + (frame.name() == null ? "[" : frame.name() + "(") + "' opened at index " + frame.open() + ", reached end", end);
+        }
+
+        private static boolean isFunctorStart(char c) { return c == '_' || (c >= 'a' && c <= 'z'); }
+        private static boolean isWordChar(char c) { return c == '_' || isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'); }
+        private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+        private static boolean isDelimiter(char c) { return c == ',' || c == '(' || c == ')' || c == '[' || c == ']'; }
+    }
+
     // --- Component Implementations ---
 
     /** In-memory ThoughtStore using ConcurrentHashMap for thread-safe access. */
@@ -777,11 +1015,538 @@ public class CoglogEngine implements AutoCloseable {
             Objects.requireNonNull(parentId);
             if (thoughts.isEmpty()) return Collections.emptyList();
             return thoughts.values().stream()
-                    .filter(t -> parentId.equals(t.metadata().get("parent_id")))
+                    .filter(t -> parentId.equals(t.parentId()))
                     .toList();
         }
     }
 
+    /**
+     * ThoughtStore with secondary indexes by Status and Role, and a Fenwick tree over the belief scores of sampleable
+     * (PENDING, non-META) thoughts. Sampling and status/belief updates are O(log n) instead of a full scan per cycle.
+     * Mutations and index maintenance are serialized on the store lock; single-thought reads are lock-free. The notifier
+     * is called under the lock too, so a journaling notifier sees changes in the order the store committed them.
+     */
+    static class IndexedThoughtStore implements ThoughtStore {
+        private static final long EXPIRY_BUCKET_MILLIS = 1000; // Granularity of the terminal-thought expiry index
+        private final ConcurrentMap<String, Thought> thoughts = new ConcurrentHashMap<>();
+        private final Map<Status, Set<String>> byStatus = new EnumMap<>(Status.class);
+        private final Map<Role, Set<String>> byRole = new EnumMap<>(Role.class);
+        private final FenwickSampler<Thought> pending = new FenwickSampler<>();
+        private final Map<String, Set<String>> childrenByParent = new HashMap<>();
+        private final Map<String, int[]> childStatusCounts = new HashMap<>(); // parent_id -> count per Status ordinal
+        private final MetaIndex metaIndex = new MetaIndex();
+        private final NavigableMap<Long, Set<String>> terminalByTime = new TreeMap<>(); // updatedAt bucket -> DONE/FAILED ids
+        private final StoreNotifier notifier;
+        private final Object lock = new Object();
+
+        IndexedThoughtStore(StoreNotifier notifier) {
+            this.notifier = Objects.requireNonNull(notifier);
+            for (Status st : Status.values()) byStatus.put(st, new HashSet<>());
+            for (Role r : Role.values()) byRole.put(r, new LinkedHashSet<>());
+        }
+
+        @Override public Optional<Thought> getThought(String id) { return Optional.ofNullable(thoughts.get(id)); }
+        @Override public Collection<Thought> getAllThoughts() { return List.copyOf(thoughts.values()); }
+
+        @Override public void clear() {
+            synchronized (lock) {
+                thoughts.clear(); pending.clear(); childrenByParent.clear(); childStatusCounts.clear(); metaIndex.clear(); terminalByTime.clear();
+                byStatus.values().forEach(Set::clear); byRole.values().forEach(Set::clear);
+                notifier.notifyChange(null, StoreNotifier.ChangeType.REMOVE);
+            }
+        }
+
+        @Override public void addThought(Thought thought) {
+            Objects.requireNonNull(thought);
+            synchronized (lock) {
+                if (thoughts.putIfAbsent(thought.id(), thought) != null) return;
+                index(null, thought);
+                notifier.notifyChange(thought, StoreNotifier.ChangeType.ADD);
+            }
+        }
+
+        @Override public boolean updateThought(Thought oldThought, Thought newThought) {
+            Objects.requireNonNull(oldThought); Objects.requireNonNull(newThought);
+            if (!oldThought.id().equals(newThought.id())) return false;
+            synchronized (lock) { // Same compare-and-set semantics as ConcurrentMap.replace(key, old, new)
+                if (!oldThought.equals(thoughts.get(newThought.id()))) return false;
+                thoughts.put(newThought.id(), newThought);
+                index(oldThought, newThought);
+                notifier.notifyChange(newThought, StoreNotifier.ChangeType.UPDATE);
+            }
+            return true;
+        }
+
+        @Override public boolean removeThought(String id) {
+            Thought removed;
+            synchronized (lock) {
+                removed = thoughts.remove(id);
+                if (removed == null) return false;
+                index(removed, null);
+                notifier.notifyChange(removed, StoreNotifier.ChangeType.REMOVE);
+            }
+            return true;
+        }
+
+        @Override public Optional<Thought> samplePendingThought() {
+            synchronized (lock) { return pending.sample(ThreadLocalRandom.current()); }
+        }
+
+        @Override public List<Thought> getMetaThoughts() {
+            synchronized (lock) {
+                return byRole.get(Role.META_THOUGHT).stream().map(thoughts::get)
+                        .filter(t -> t != null && t.status() != Status.FAILED).toList();
+            }
+        }
+
+        @Override public List<Thought> getMetaCandidates(Thought activeThought) {
+            synchronized (lock) { return metaIndex.candidates(activeThought); }
+        }
+
+        @Override public List<Thought> findExpiredTerminal(long cutoffMillis, int limit) {
+            List<Thought> expired = new ArrayList<>(Math.min(limit, 1024));
+            synchronized (lock) { // Walks only terminal thoughts, oldest bucket first; only the cutoff bucket needs per-thought checks
+                for (Map.Entry<Long, Set<String>> bucket : terminalByTime.headMap(Math.floorDiv(cutoffMillis, EXPIRY_BUCKET_MILLIS), true).entrySet()) {
+                    boolean wholeBucket = (bucket.getKey() + 1) * EXPIRY_BUCKET_MILLIS <= cutoffMillis;
+                    for (String id : bucket.getValue()) {
+                        Thought t = thoughts.get(id);
+                        if (t == null || !(wholeBucket || t.updatedAt() < cutoffMillis)) continue;
+                        expired.add(t);
+                        if (expired.size() >= limit) return expired;
+                    }
+                }
+            }
+            return expired;
+        }
+
+        @Override public List<Thought> findThoughtsByParentId(String parentId) {
+            Objects.requireNonNull(parentId);
+            synchronized (lock) {
+                Set<String> children = childrenByParent.get(parentId);
+                return children == null ? List.of() : children.stream().map(thoughts::get).filter(Objects::nonNull).toList();
+            }
+        }
+
+        @Override public Map<Status, Integer> getChildStatusCounts(String parentId) {
+            Objects.requireNonNull(parentId);
+            Map<Status, Integer> counts = new EnumMap<>(Status.class);
+            synchronized (lock) {
+                int[] c = childStatusCounts.get(parentId);
+                if (c != null) for (Status st : Status.values()) if (c[st.ordinal()] > 0) counts.put(st, c[st.ordinal()]);
+            }
+            return counts;
+        }
+
+        @Override public Map<Status, Long> getStatusCounts() {
+            synchronized (lock) {
+                Map<Status, Long> counts = new EnumMap<>(Status.class);
+                byStatus.forEach((st, ids) -> { if (!ids.isEmpty()) counts.put(st, (long) ids.size()); });
+                return counts;
+            }
+        }
+
+        // Moves a thought between index entries; either side may be null (add/remove). Caller holds the lock.
+        private void index(Thought before, Thought after) {
+            if (before != null) {
+                byStatus.get(before.status()).remove(before.id());
+                byRole.get(before.role()).remove(before.id());
+                unlinkChild(before);
+                if (before.role() == Role.META_THOUGHT) metaIndex.remove(before);
+                if (isTerminal(before)) unlinkTerminal(before);
+            }
+            if (after != null) {
+                byStatus.get(after.status()).add(after.id());
+                byRole.get(after.role()).add(after.id());
+                linkChild(after);
+                if (after.role() == Role.META_THOUGHT && after.status() != Status.FAILED) metaIndex.add(after);
+                if (isTerminal(after)) terminalByTime.computeIfAbsent(Math.floorDiv(after.updatedAt(), EXPIRY_BUCKET_MILLIS), k -> new LinkedHashSet<>()).add(after.id());
+            }
+            if (after != null && isSampleable(after)) pending.put(after.id(), after, after.belief().score());
+            else if (before != null && isSampleable(before)) pending.remove(before.id());
+        }
+
+        private void linkChild(Thought t) {
+            String parentId = t.parentId();
+            if (parentId == null) return;
+            childrenByParent.computeIfAbsent(parentId, k -> new LinkedHashSet<>()).add(t.id());
+            childStatusCounts.computeIfAbsent(parentId, k -> new int[Status.values().length])[t.status().ordinal()]++;
+        }
+
+        private void unlinkChild(Thought t) {
+            String parentId = t.parentId();
+            if (parentId == null) return;
+            Set<String> children = childrenByParent.get(parentId);
+            if (children == null || !children.remove(t.id())) return;
+            if (children.isEmpty()) { childrenByParent.remove(parentId); childStatusCounts.remove(parentId); }
+            else childStatusCounts.get(parentId)[t.status().ordinal()]--;
+        }
+
+        private void unlinkTerminal(Thought t) {
+            Long bucket = Math.floorDiv(t.updatedAt(), EXPIRY_BUCKET_MILLIS);
+            Set<String> ids = terminalByTime.get(bucket);
+            if (ids != null && ids.remove(t.id()) && ids.isEmpty()) terminalByTime.remove(bucket);
+        }
+
+        private static boolean isSampleable(Thought t) { return t.status() == Status.PENDING && t.role() != Role.META_THOUGHT; }
+        private static boolean isTerminal(Thought t) { return GarbageCollector.TERMINAL_STATUSES.contains(t.status()); }
+    }
+
+    /**
+     * Weighted sampling over keyed items using a Fenwick (binary indexed) tree of slot weights. put/remove/sample are
+     * O(log n); freed slots are recycled. Non-positive or non-finite weights are stored as 0 and never sampled,
+     * matching Helpers.sampleWeighted. Not thread-safe.
+     */
+    static final class FenwickSampler<T> {
+        private double[] tree = new double[17]; // 1-based partial sums
+        private double[] weights = new double[16];
+        private Object[] items = new Object[16];
+        private final Map<String, Integer> slots = new HashMap<>();
+        private int[] freeSlots = new int[16];
+        private int freeCount, used, updatesSinceRebuild;
+
+        int size() { return slots.size(); }
+
+        void put(String key, T item, double weight) {
+            double w = weight > 0 && Double.isFinite(weight) ? weight : 0.0;
+            Integer slot = slots.get(key);
+            if (slot == null) { slot = allocate(); slots.put(key, slot); }
+            items[slot] = item;
+            double delta = w - weights[slot]; weights[slot] = w; adjust(slot, delta);
+        }
+
+        boolean remove(String key) {
+            Integer slot = slots.remove(key);
+            if (slot == null) return false;
+            double delta = -weights[slot]; weights[slot] = 0.0; items[slot] = null; adjust(slot, delta);
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(tree, 0.0); Arrays.fill(weights, 0.0); Arrays.fill(items, null);
+            slots.clear(); freeCount = 0; used = 0; updatesSinceRebuild = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        Optional<T> sample(Random random) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                double total = prefixSum(weights.length);
+                if (!(total > 0)) return Optional.empty();
+                int slot = descend(random.nextDouble() * total);
+                if (slot < used && weights[slot] > 0) return Optional.of((T) items[slot]);
+                rebuild(); // Landed on an empty slot: accumulated rounding in the partial sums, recompute them exactly
+            }
+            for (int i = used - 1; i >= 0; i--) if (weights[i] > 0) return Optional.of((T) items[i]);
+            return Optional.empty();
+        }
+
+        // Smallest slot whose inclusive prefix sum exceeds target.
+        private int descend(double target) {
+            int pos = 0;
+            for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+                int next = pos + step;
+                if (next <= weights.length && tree[next] <= target) { pos = next; target -= tree[next]; }
+            }
+            return pos;
+        }
+
+        private double prefixSum(int count) {
+            double sum = 0.0;
+            for (int i = count; i > 0; i -= i & -i) sum += tree[i];
+            return sum;
+        }
+
+        private void adjust(int slot, double delta) {
+            if (delta == 0.0) return;
+            for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+            if (++updatesSinceRebuild > weights.length) rebuild(); // Amortized O(1): bounds floating-point drift
+        }
+
+        private int allocate() {
+            if (freeCount > 0) return freeSlots[--freeCount];
+            if (used == weights.length) { // Grow and rebuild partial sums for the new length
+                weights = Arrays.copyOf(weights, used * 2); items = Arrays.copyOf(items, used * 2);
+                tree = new double[used * 2 + 1]; rebuild();
+            }
+            return used++;
+        }
+
+        private void rebuild() {
+            Arrays.fill(tree, 0.0);
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += weights[i - 1];
+                int parent = i + (i & -i);
+                if (parent < tree.length) tree[parent] += tree[i];
+            }
+            updatesSinceRebuild = 0;
+        }
+    }
+
+    /**
+     * Discrimination index over META_THOUGHTs keyed by target_role, the meta_def target's principal functor/arity and the
+     * key of its first argument. A variable in either position is a wildcard. candidates() returns a superset of the
+     * METAs whose target can unify with a thought's content, so the Unifier only tries plausible ones. Not thread-safe.
+     */
+    static final class MetaIndex {
+        private static final String ANY = "*";
+        // target_role (upper-cased, ANY if absent) -> head key (ANY for a variable target) -> first-arg key (ANY if variable or none) -> id -> META
+        private final Map<String, Map<String, Map<String, Map<String, Thought>>>> index = new HashMap<>();
+        private final Map<String, String[]> keysById = new HashMap<>(); // id -> {role, head, arg} it was filed under
+
+        void add(Thought meta) {
+            if (!(meta.content() instanceof Structure metaDef && "meta_def".equals(metaDef.name()) && metaDef.args().size() == 2)) return;
+            remove(meta);
+            Term target = metaDef.args().get(0);
+            String role = meta.getMetadata("target_role", String.class).map(r -> r.toUpperCase(Locale.ROOT)).orElse(ANY);
+            String head = Objects.requireNonNullElse(headKey(target), ANY), arg = Objects.requireNonNullElse(firstArgKey(target), ANY);
+            index.computeIfAbsent(role, k -> new HashMap<>()).computeIfAbsent(head, k -> new HashMap<>())
+                    .computeIfAbsent(arg, k -> new LinkedHashMap<>()).put(meta.id(), meta);
+            keysById.put(meta.id(), new String[]{role, head, arg});
+        }
+
+        void remove(Thought meta) {
+            String[] keys = keysById.remove(meta.id());
+            if (keys == null) return;
+            Map<String, Map<String, Map<String, Thought>>> byHead = index.get(keys[0]);
+            Map<String, Map<String, Thought>> byArg = byHead.get(keys[1]);
+            Map<String, Thought> bucket = byArg.get(keys[2]);
+            bucket.remove(meta.id()); // Prune empty levels so lookups stay proportional to live METAs
+            if (bucket.isEmpty()) byArg.remove(keys[2]);
+            if (byArg.isEmpty()) byHead.remove(keys[1]);
+            if (byHead.isEmpty()) index.remove(keys[0]);
+        }
+
+        void clear() { index.clear(); keysById.clear(); }
+
+        int size() { return keysById.size(); }
+
+        List<Thought> candidates(Thought activeThought) {
+            List<Thought> out = new ArrayList<>();
+            Term content = activeThought.content();
+            String head = headKey(content), arg = firstArgKey(content);
+            for (String role : new String[]{activeThought.role().name(), ANY}) {
+                Map<String, Map<String, Map<String, Thought>>> byHead = index.get(role);
+                if (byHead == null) continue;
+                if (head == null) { byHead.values().forEach(byArg -> byArg.values().forEach(b -> out.addAll(b.values()))); continue; } // Variable content matches any target
+                collect(byHead.get(head), arg, out);
+                collect(byHead.get(ANY), null, out); // Variable targets match any content
+            }
+            return out;
+        }
+
+        // Adds METAs under one head key: the bucket for arg plus wildcard-arg METAs, or every bucket when arg is unknown.
+        private static void collect(Map<String, Map<String, Thought>> byArg, String arg, List<Thought> out) {
+            if (byArg == null) return;
+            if (arg == null) { byArg.values().forEach(b -> out.addAll(b.values())); return; }
+            Map<String, Thought> exact = byArg.get(arg), wild = byArg.get(ANY);
+            if (exact != null) out.addAll(exact.values());
+            if (wild != null) out.addAll(wild.values());
+        }
+
+        // Principal functor key of a term; null for a variable (matches anything). Terms with different keys never unify.
+        static String headKey(Term t) {
+            return switch (t) {
+                case Variable v -> null;
+                case Atom a -> "a:" + a.name();
+                case NumberTerm n -> "n:" + n.value();
+                case Structure s -> s.name() + "/" + s.args().size();
+                case ListTerm l -> "[]/" + l.elements().size();
+            };
+        }
+
+        // Head key of the first argument (or first list element); null when it is a variable or there is none.
+        static String firstArgKey(Term t) {
+            return switch (t) {
+                case Structure s when !s.args().isEmpty() -> headKey(s.args().getFirst());
+                case ListTerm l when !l.elements().isEmpty() -> headKey(l.elements().getFirst());
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * Hashed timer wheel for thought deadlines (activation timeouts, retry backoff, GC TTLs). arm() and Timeout.cancel()
+     * are O(1) and lock-free: they only enqueue, and the wheel thread files or unlinks the timeout on its next tick.
+     * Each tick expires one bucket and hands the expired keys to each handler (by identity, so reuse one instance) as a
+     * single batch, on the wheel thread, so handlers must be short or hand off. Deadlines fire up to one tick late, never early.
+     */
+    static final class TimerWheel implements AutoCloseable {
+        private static final int MAX_TRANSFERS_PER_TICK = 100_000; // Bounds one tick's work under an arm storm
+        private final long tickNanos;
+        private final Bucket[] buckets;
+        private final int mask;
+        private final long startNanos = System.nanoTime();
+        private final Queue<Timeout> armed = new ConcurrentLinkedQueue<>(), cancelled = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Thread worker;
+        private volatile boolean running = true;
+        private long tick; // Wheel thread only
+
+        TimerWheel(long tickMillis, int slots, String name) {
+            if (tickMillis <= 0 || slots <= 0) throw new IllegalArgumentException("tickMillis and slots must be positive");
+            this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+            int size = Integer.highestOneBit(slots - 1) << 1; // Round up to a power of two
+            this.buckets = new Bucket[Math.max(1, size)];
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new Bucket();
+            this.mask = buckets.length - 1;
+            this.worker = Thread.ofPlatform().daemon().name(name).start(this::run);
+        }
+
+        /** Schedules key for expiry after delayMillis; onExpire receives all keys that expired together for it. */
+        <K> Timeout arm(K key, long delayMillis, Consumer<List<K>> onExpire) {
+            if (!running) throw new IllegalStateException("TimerWheel closed");
+            Timeout t = new Timeout(this, key, onExpire, System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)));
+            pending.incrementAndGet();
+            armed.add(t);
+            return t;
+        }
+
+        /** Timeouts armed and neither expired nor cancelled yet. */
+        int pending() { return pending.get(); }
+
+        @Override public void close() {
+            running = false;
+            LockSupport.unpark(worker);
+            try { worker.join(1000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+
+        private void run() {
+            while (running) {
+                long deadline = tickNanos * (tick + 1);
+                long sleep = deadline - (System.nanoTime() - startNanos);
+                if (sleep > 0) { LockSupport.parkNanos(this, sleep); continue; } // Re-check after wake-up; catches up if behind
+                processCancelled();
+                transferArmed();
+                expire(buckets[(int) (tick & mask)], deadline);
+                tick++;
+            }
+        }
+
+        private void processCancelled() {
+            for (Timeout t; (t = cancelled.poll()) != null; ) if (t.bucket != null) t.bucket.unlink(t);
+        }
+
+        private void transferArmed() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+                Timeout t = armed.poll();
+                if (t == null) return;
+                if (t.state != Timeout.ARMED) continue; // Cancelled before it was filed
+                long due = t.deadlineNanos / tickNanos;
+                t.remainingRounds = Math.max(0, (due - tick) >> Integer.numberOfTrailingZeros(buckets.length));
+                buckets[(int) (Math.max(due, tick) & mask)].append(t);
+            }
+        }
+
+        // Expires this bucket's due timeouts and delivers them grouped by handler, one call per handler.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void expire(Bucket bucket, long deadline) {
+            Map<Consumer, List<Object>> batches = null;
+            for (Timeout t = bucket.head; t != null; ) {
+                Timeout next = t.next;
+                if (t.remainingRounds > 0) t.remainingRounds--;
+                else if (t.deadlineNanos <= deadline) {
+                    bucket.unlink(t);
+                    if (Timeout.STATE.compareAndSet(t, Timeout.ARMED, Timeout.EXPIRED)) {
+                        pending.decrementAndGet();
+                        if (batches == null) batches = new IdentityHashMap<>();
+                        batches.computeIfAbsent(t.handler, h -> new ArrayList<>()).add(t.key);
+                    }
+                }
+                t = next;
+            }
+            if (batches == null) return;
+            batches.forEach((handler, keys) -> {
+                try { handler.accept(keys); }
+                catch (Throwable e) { System.err.println("ERROR: TimerWheel expiry handler failed: " + e); }
+            });
+        }
+
+        /** Handle for an armed deadline. */
+        static final class Timeout {
+            private static final int ARMED = 0, CANCELLED = 1, EXPIRED = 2;
+            private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+            private final TimerWheel wheel;
+            private final Object key;
+            private final Consumer<?> handler;
+            private final long deadlineNanos; // Relative to the wheel's start
+            private volatile int state = ARMED;
+            private long remainingRounds; // Wheel thread only, like the links below
+            private Timeout prev, next;
+            private Bucket bucket;
+
+            private Timeout(TimerWheel wheel, Object key, Consumer<?> handler, long deadlineNanos) {
+                this.wheel = wheel; this.key = key; this.handler = handler; this.deadlineNanos = deadlineNanos;
+            }
+
+            /** Cancels the deadline. Returns false if it already expired or was cancelled. */
+            boolean cancel() {
+                if (!STATE.compareAndSet(this, ARMED, CANCELLED)) return false;
+                wheel.pending.decrementAndGet();
+                wheel.cancelled.add(this);
+                return true;
+            }
+
+            boolean isExpired() { return state == EXPIRED; }
+        }
+
+        // Doubly-linked list of timeouts filed in one slot. Wheel thread only.
+        private static final class Bucket {
+            private Timeout head, tail;
+
+            void append(Timeout t) {
+                t.bucket = this; t.prev = tail; t.next = null;
+                if (tail == null) head = t; else tail.next = t;
+                tail = t;
+            }
+
+            void unlink(Timeout t) {
+                if (t.prev != null) t.prev.next = t.next; else head = t.next;
+                if (t.next != null) t.next.prev = t.prev; else tail = t.prev;
+                t.prev = t.next = null; t.bucket = null;
+            }
+        }
+    }
+
+    /**
+     * StoreNotifier decorator that wakes idle ExecuteLoop workers when a change leaves a non-META thought PENDING.
+     * A version counter avoids lost wake-ups: workers read it before looking for work and only sleep while unchanged.
+     */
+    static final class WorkSignal implements StoreNotifier {
+        private final StoreNotifier delegate;
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        WorkSignal(StoreNotifier delegate) { this.delegate = Objects.requireNonNull(delegate); }
+
+        @Override public void notifyChange(Thought thought, ChangeType type) {
+            delegate.notifyChange(thought, type);
+            if (thought != null && type != ChangeType.REMOVE && thought.status() == Status.PENDING && thought.role() != Role.META_THOUGHT) signal(false);
+        }
+
+        long version() { return version.get(); }
+
+        /** Bumps the version; takes the lock only when some worker is actually waiting. */
+        void signal(boolean all) {
+            version.incrementAndGet();
+            if (waiters.get() == 0) return;
+            lock.lock();
+            try { if (all) changed.signalAll(); else changed.signal(); } finally { lock.unlock(); }
+        }
+
+        /** Waits until the version differs from {@code seen} or the timeout elapses. */
+        void awaitChange(long seen, long timeoutMillis) throws InterruptedException {
+            lock.lock();
+            waiters.incrementAndGet();
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (version.get() == seen && nanos > 0) nanos = changed.awaitNanos(nanos);
+            } finally { waiters.decrementAndGet(); lock.unlock(); }
+        }
+    }
+
     /** Simple StoreNotifier printing changes to console (minimal output). */
     static class ConsoleNotifier implements StoreNotifier {
         @Override public void notifyChange(Thought thought, ChangeType type) { /* Reduced verbosity */ }
@@ -824,26 +1589,517 @@ public class CoglogEngine implements AutoCloseable {
         }
     }
 
+    /**
+     * Compact tagged binary codec for Thoughts: one tag byte per Term node and metadata value, varint lengths, UUID ids
+     * as 16 raw bytes. Writing reuses one growable buffer; reading decodes from any ByteBuffer, including memory-mapped
+     * files, and shares instances of repeated short strings (functors, atoms, metadata keys). Not thread-safe.
+     */
+    static final class ThoughtCodec {
+        private static final byte T_ATOM = 1, T_VAR = 2, T_NUM = 3, T_STRUCT = 4, T_LIST = 5;
+        private static final byte M_NULL = 0, M_STRING = 1, M_INT = 2, M_LONG = 3, M_DOUBLE = 4, M_TRUE = 5, M_FALSE = 6, M_LIST = 7;
+        private static final byte ID_UUID = 1, ID_STRING = 2;
+        private static final Role[] ROLES = Role.values();
+        private static final Status[] STATUSES = Status.values();
+
+        private static final int CACHE_SIZE = 4096, CACHE_MAX_LENGTH = 48;
+        private byte[] buf = new byte[512];
+        private int pos;
+        private final String[] cachedStrings = new String[CACHE_SIZE];
+        private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+
+        ThoughtCodec reset(int offset) { ensure(offset); pos = offset; return this; }
+        byte[] buffer() { return buf; }
+        int position() { return pos; }
+
+        void writeThought(Thought t) {
+            writeId(t.id());
+            writeByte(t.role().ordinal()); writeByte(t.status().ordinal());
+            writeDouble(t.belief().positive()); writeDouble(t.belief().negative());
+            writeTerm(t.content());
+            if (t.parentId() == null) writeByte(0); else { writeByte(1); writeId(t.parentId()); }
+            writeVarInt(t.retryCount()); writeVarLong(t.createdAt()); writeVarLong(t.updatedAt());
+            writeVarInt(t.provenance().size()); t.provenance().forEach(this::writeString);
+            writeVarInt(t.metadata().size());
+            t.metadata().forEach((k, v) -> { writeString(k); writeValue(v); });
+        }
+
+        Thought readThought(ByteBuffer in) {
+            String id = readId(in);
+            Role role = ROLES[in.get()]; Status status = STATUSES[in.get()];
+            Belief belief = new Belief(in.getDouble(), in.getDouble());
+            Term content = readTerm(in);
+            String parentId = in.get() != 0 ? readId(in) : null;
+            int retryCount = readVarInt(in); long createdAt = readVarLong(in), updatedAt = readVarLong(in);
+            String[] provenance = new String[readVarInt(in)];
+            for (int i = 0; i < provenance.length; i++) provenance[i] = readString(in);
+            // Already immutable, so Thought keeps both as-is
+            return new Thought(id, role, content, belief, status, parentId, retryCount, createdAt, updatedAt, List.of(provenance), readMetadata(in));
+        }
+
+        /** Journal version 1 layout: the standard keys are still in the metadata map, and Thought lifts them into their fields. */
+        Thought readThoughtV1(ByteBuffer in) {
+            String id = readId(in);
+            Role role = ROLES[in.get()]; Status status = STATUSES[in.get()];
+            Belief belief = new Belief(in.getDouble(), in.getDouble());
+            Term content = readTerm(in);
+            return new Thought(id, role, content, belief, status, null, 0, 0, 0, List.of(), readMetadata(in));
+        }
+
+        private Map<String, Object> readMetadata(ByteBuffer in) {
+            @SuppressWarnings({"unchecked", "rawtypes"}) Map.Entry<String, Object>[] entries = new Map.Entry[readVarInt(in)];
+            for (int i = 0; i < entries.length; i++) entries[i] = Map.entry(readString(in), readValue(in));
+            return Map.ofEntries(entries);
+        }
+
+        void writeTerm(Term term) {
+            switch (term) {
+                case Atom a -> { writeByte(T_ATOM); writeString(a.name()); }
+                case Variable v -> { writeByte(T_VAR); writeString(v.name()); }
+                case NumberTerm n -> { writeByte(T_NUM); writeDouble(n.value()); }
+                case Structure s -> { writeByte(T_STRUCT); writeString(s.name()); writeVarInt(s.args().size()); s.args().forEach(this::writeTerm); }
+                case ListTerm l -> { writeByte(T_LIST); writeVarInt(l.elements().size()); l.elements().forEach(this::writeTerm); }
+            }
+        }
+
+        Term readTerm(ByteBuffer in) {
+            byte tag = in.get();
+            return switch (tag) {
+                case T_ATOM -> new Atom(readString(in));
+                case T_VAR -> new Variable(readString(in));
+                case T_NUM -> new NumberTerm(in.getDouble());
+                case T_STRUCT -> { String name = readString(in); yield new Structure(name, readTerms(in, readVarInt(in))); }
+                case T_LIST -> new ListTerm(readTerms(in, readVarInt(in)));
+                default -> throw new IllegalArgumentException("Unknown term tag " + tag + " at " + (in.position() - 1));
+            };
+        }
+
+        private List<Term> readTerms(ByteBuffer in, int n) {
+            Term[] terms = new Term[n];
+            for (int i = 0; i < n; i++) terms[i] = readTerm(in);
+            return List.of(terms);
+        }
+
+        // Metadata values are String, Number, Boolean or List<String>; Numbers other than Integer/Long are stored as double.
+        private void writeValue(Object v) {
+            switch (v) {
+                case null -> writeByte(M_NULL);
+                case String str -> { writeByte(M_STRING); writeString(str); }
+                case Integer i -> { writeByte(M_INT); writeVarLong((i << 1) ^ (i >> 31)); }
+                case Long l -> { writeByte(M_LONG); writeVarLong((l << 1) ^ (l >> 63)); }
+                case Number num -> { writeByte(M_DOUBLE); writeDouble(num.doubleValue()); }
+                case Boolean b -> writeByte(b ? M_TRUE : M_FALSE);
+                case List<?> list -> { writeByte(M_LIST); writeVarInt(list.size()); list.forEach(this::writeValue); }
+                default -> throw new IllegalArgumentException("Unsupported metadata value type: " + v.getClass().getName());
+            }
+        }
+
+        private Object readValue(ByteBuffer in) {
+            byte tag = in.get();
+            return switch (tag) {
+                case M_NULL -> null;
+                case M_STRING -> readString(in);
+                case M_INT -> { long z = readVarLong(in); yield (int) ((z >>> 1) ^ -(z & 1)); }
+                case M_LONG -> { long z = readVarLong(in); yield (z >>> 1) ^ -(z & 1); }
+                case M_DOUBLE -> in.getDouble();
+                case M_TRUE -> Boolean.TRUE;
+                case M_FALSE -> Boolean.FALSE;
+                case M_LIST -> { int n = readVarInt(in); List<Object> list = new ArrayList<>(n); for (int i = 0; i < n; i++) list.add(readValue(in)); yield Collections.unmodifiableList(list); }
+                default -> throw new IllegalArgumentException("Unknown metadata tag " + tag + " at " + (in.position() - 1));
+            };
+        }
+
+        void writeId(String id) {
+            UUID uuid = parseCanonicalUuid(id);
+            if (uuid == null) { writeByte(ID_STRING); writeString(id); return; }
+            writeByte(ID_UUID); writeLong(uuid.getMostSignificantBits()); writeLong(uuid.getLeastSignificantBits());
+        }
+
+        String readId(ByteBuffer in) {
+            byte tag = in.get();
+            if (tag == ID_UUID) return new UUID(in.getLong(), in.getLong()).toString();
+            if (tag == ID_STRING) return readString(in);
+            throw new IllegalArgumentException("Unknown id tag " + tag + " at " + (in.position() - 1));
+        }
+
+        // Only ids that round-trip exactly through UUID.toString() are packed into 16 bytes.
+        private static UUID parseCanonicalUuid(String id) {
+            if (id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-' || id.charAt(23) != '-') return null;
+            try {
+                UUID uuid = UUID.fromString(id);
+                return uuid.toString().equals(id) ? uuid : null;
+            } catch (IllegalArgumentException e) { return null; }
+        }
+
+        void writeString(String str) {
+            byte[] bytes = str.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            writeVarInt(bytes.length); ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length); pos += bytes.length;
+        }
+
+        String readString(ByteBuffer in) {
+            int n = readVarInt(in), at = in.position();
+            if (n > CACHE_MAX_LENGTH) { byte[] bytes = new byte[n]; in.get(bytes); return new String(bytes, java.nio.charset.StandardCharsets.UTF_8); }
+            int h = n;
+            for (int i = 0; i < n; i++) h = 31 * h + in.get(at + i);
+            int slot = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+            byte[] cached = cachedBytes[slot];
+            if (cached != null && cached.length == n && Arrays.equals(cached, 0, n, bytesAt(in, at, n), 0, n)) { in.position(at + n); return cachedStrings[slot]; }
+            byte[] bytes = new byte[n]; in.get(bytes);
+            cachedBytes[slot] = bytes;
+            return cachedStrings[slot] = new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+        }
+
+        private byte[] scratch = new byte[CACHE_MAX_LENGTH];
+
+        // Copies n bytes at an absolute position into a reused scratch array, for comparison against the cache.
+        private byte[] bytesAt(ByteBuffer in, int at, int n) { in.get(at, scratch, 0, n); return scratch; }
+
+        void writeByte(int b) { ensure(1); buf[pos++] = (byte) b; }
+        void writeInt(int v) { ensure(4); for (int i = 24; i >= 0; i -= 8) buf[pos++] = (byte) (v >>> i); }
+        void writeLong(long v) { ensure(8); for (int i = 56; i >= 0; i -= 8) buf[pos++] = (byte) (v >>> i); }
+        void writeDouble(double d) { writeLong(Double.doubleToRawLongBits(d)); }
+        void writeVarInt(int v) { writeVarLong(v & 0xFFFFFFFFL); }
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) { buf[pos++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+            buf[pos++] = (byte) v;
+        }
+
+        static int readVarInt(ByteBuffer in) {
+            long v = readVarLong(in);
+            if (v > Integer.MAX_VALUE) throw new IllegalArgumentException("Length out of range: " + v);
+            return (int) v;
+        }
+
+        static long readVarLong(ByteBuffer in) {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint at " + in.position());
+        }
+
+        private void ensure(int n) { if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n)); }
+    }
+
+    /**
+     * Incremental persistence: a checkpoint snapshot at {@code path} plus journal segments {@code path.log.<gen>}.
+     * Decorates the store's notifier; after the first save() every add/update/remove is appended to the open segment
+     * as a CRC-checked ThoughtCodec record, so a crash loses at most the torn last record. Every checkpointEvery records
+     * the segment is rolled and a background task folds the snapshot and closed segments into a new snapshot.
+     * load() memory-maps the snapshot and replays newer segments. Version 1 files, written before the standard metadata
+     * keys became Thought fields, and legacy ObjectOutputStream state files still load.
+     */
+    static final class LogPersistenceService implements PersistenceService, StoreNotifier {
+        private static final int SNAPSHOT_MAGIC = 0x43474C53, JOURNAL_MAGIC = 0x43474C4A, ARCHIVE_MAGIC = 0x43474C41; // "CGLS", "CGLJ", "CGLA"
+        private static final byte VERSION = 2, VERSION_1 = 1, OP_PUT = 1, OP_REMOVE = 2, OP_CLEAR = 3; // Version 1 files are still read
+        private static final int HEADER = 17, RECORD_HEADER = 5; // magic+version+generation+record count hint; op+length
+
+        private final StoreNotifier delegate;
+        private final int checkpointEvery;
+        private final ThoughtCodec codec = new ThoughtCodec(); // Guarded by lock
+        private final CRC32 crc = new CRC32(); // Guarded by lock
+        private final Object lock = new Object(); // Guards the open segment
+        private final Object checkpointLock = new Object(); // Serializes snapshot writers; taken before lock
+        private final ThoughtCodec archiveCodec = new ThoughtCodec(); // Guarded by archiveLock
+        private final CRC32 archiveCrc = new CRC32(); // Guarded by archiveLock
+        private final Object archiveLock = new Object(); // Guards archive appends; independent of the journal lock
+        private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "CoglogCheckpoint"); t.setDaemon(true); return t;
+        });
+        private Path snapshotPath; // Set by save(); nothing is journaled before the first checkpoint
+        private FileChannel segment;
+        private long generation, coveredGeneration = -1; // Open segment; newest generation folded into the snapshot
+        private int recordsInSegment;
+
+        LogPersistenceService(StoreNotifier delegate, int checkpointEvery) {
+            this.delegate = Objects.requireNonNull(delegate);
+            if (checkpointEvery <= 0) throw new IllegalArgumentException("checkpointEvery must be positive: " + checkpointEvery);
+            this.checkpointEvery = checkpointEvery;
+        }
+
+        @Override public void notifyChange(Thought thought, ChangeType type) {
+            delegate.notifyChange(thought, type);
+            synchronized (lock) {
+                if (segment == null) return;
+                try {
+                    codec.reset(RECORD_HEADER);
+                    byte op;
+                    if (thought == null) op = OP_CLEAR; // IndexedThoughtStore.clear()
+                    else if (type == ChangeType.REMOVE) { op = OP_REMOVE; codec.writeId(thought.id()); }
+                    else { op = OP_PUT; codec.writeThought(thought); }
+                    appendRecord(segment, op, codec, crc);
+                    if (++recordsInSegment >= checkpointEvery) {
+                        long closed = rollSegment();
+                        compactor.execute(() -> compact(closed));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("ERROR: Journal append failed, journaling suspended until the next checkpoint: " + e.getMessage());
+                    closeSegmentQuietly();
+                }
+            }
+        }
+
+        /** Writes a full checkpoint of the given state and starts a fresh journal segment after it. */
+        @Override public void save(Collection<Thought> thoughts, String path) { checkpoint(() -> thoughts, path); }
+
+        /**
+         * Takes the state from the supplier while holding the journal lock, at the same point the segment is rolled, so
+         * every change the snapshot misses is appended to the new segment. The supplier must not take the store lock.
+         */
+        @Override public void checkpoint(Supplier<? extends Collection<Thought>> state, String path) {
+            synchronized (checkpointLock) {
+                long covered;
+                Collection<Thought> thoughts;
+                try {
+                    synchronized (lock) {
+                        snapshotPath = Paths.get(path).toAbsolutePath();
+                        covered = segment != null ? rollSegment() : openSegment(generation + 1) - 1;
+                        thoughts = state.get();
+                    }
+                    writeSnapshot(thoughts, covered);
+                } catch (IOException e) { throw new PersistenceException("Failed to checkpoint state to " + path, e); }
+            }
+        }
+
+        @Override public Collection<Thought> load(String path) {
+            Path file = Paths.get(path).toAbsolutePath();
+            Map<String, Thought> state;
+            try {
+                state = LinkedHashMap.newLinkedHashMap(countHint(file));
+                long covered = -1;
+                if (Files.exists(file)) {
+                    if (isJavaSerialized(file)) return new FilePersistenceService().load(path); // Pre-journal state file
+                    covered = replay(file, SNAPSHOT_MAGIC, state);
+                }
+                long newest = covered;
+                for (Map.Entry<Long, Path> seg : segments(file).entrySet()) {
+                    if (seg.getKey() <= covered) continue;
+                    replay(seg.getValue(), JOURNAL_MAGIC, state);
+                    newest = seg.getKey();
+                }
+                synchronized (lock) { generation = Math.max(generation, newest); coveredGeneration = covered; }
+            } catch (IOException | RuntimeException e) {
+                if (e instanceof PersistenceException pe) throw pe;
+                throw new PersistenceException("Failed to load state from " + path, e);
+            }
+            return new ArrayList<>(state.values());
+        }
+
+        /** Archiver for the garbage collector that appends to the archive of the state file at {@code path}. */
+        Consumer<List<Thought>> archiver(Path path) {
+            Path file = archivePath(path.toAbsolutePath());
+            return thoughts -> archive(file, thoughts);
+        }
+
+        /**
+         * Appends thoughts to {@code file}, a journal-format archive that is never compacted or replayed on load. Used by
+         * the garbage collector to keep evicted thoughts; read it back with {@link #readArchive}. Archive writes have
+         * their own lock, so a slow append or force() does not stall journaling.
+         */
+        void archive(Path file, List<Thought> thoughts) {
+            if (thoughts.isEmpty()) return;
+            synchronized (archiveLock) {
+                try {
+                    if (file.getParent() != null) Files.createDirectories(file.getParent());
+                } catch (IOException e) { throw new PersistenceException("Failed to create archive directory for " + file, e); }
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    if (ch.size() == 0) {
+                        ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(ARCHIVE_MAGIC).put(VERSION).putLong(0).putInt(0).flip();
+                        while (header.hasRemaining()) ch.write(header);
+                    }
+                    for (Thought t : thoughts) { archiveCodec.reset(RECORD_HEADER); archiveCodec.writeThought(t); appendRecord(ch, OP_PUT, archiveCodec, archiveCrc); }
+                    ch.force(false);
+                } catch (IOException e) { throw new PersistenceException("Failed to archive " + thoughts.size() + " thoughts to " + file, e); }
+            }
+        }
+
+        /** Reads an archive written by {@link #archive}; the latest archived version of each thought wins. */
+        static Collection<Thought> readArchive(Path file) {
+            Map<String, Thought> state = new LinkedHashMap<>();
+            try { if (Files.exists(file)) replay(file, ARCHIVE_MAGIC, state); }
+            catch (IOException e) { throw new PersistenceException("Failed to read archive " + file, e); }
+            return state.values();
+        }
+
+        static Path archivePath(Path snapshot) { return snapshot.resolveSibling(snapshot.getFileName() + ".archive"); }
+
+        /** Flushes and closes the open segment (deleting it if empty) and stops background checkpoints. */
+        @Override public void close() {
+            compactor.shutdown();
+            try { compactor.awaitTermination(30, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            synchronized (lock) {
+                if (segment == null) return;
+                boolean empty = recordsInSegment == 0;
+                closeSegmentQuietly();
+                if (empty) try { Files.deleteIfExists(segmentPath(generation)); } catch (IOException ignore) { /* Replays as empty */ }
+            }
+        }
+
+        // Closes the open segment and opens the next one. Returns the generation just closed. Caller holds lock.
+        private long rollSegment() throws IOException {
+            long closed = generation;
+            segment.force(false); segment.close(); segment = null;
+            openSegment(closed + 1);
+            return closed;
+        }
+
+        private long openSegment(long gen) throws IOException {
+            segment = FileChannel.open(segmentPath(gen), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            generation = gen; recordsInSegment = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(JOURNAL_MAGIC).put(VERSION).putLong(gen).putInt(0).flip();
+            while (header.hasRemaining()) segment.write(header);
+            return gen;
+        }
+
+        private void closeSegmentQuietly() {
+            if (segment == null) return;
+            try { segment.force(false); segment.close(); } catch (IOException e) { System.err.println("WARN: Failed to close journal segment: " + e.getMessage()); }
+            segment = null;
+        }
+
+        // Frames the payload already in codec (after RECORD_HEADER reserved bytes) as op, length, payload, crc32(op+payload).
+        private static void appendRecord(WritableByteChannel out, byte op, ThoughtCodec codec, CRC32 crc) throws IOException {
+            int length = codec.position() - RECORD_HEADER;
+            byte[] b = codec.buffer();
+            b[0] = op; b[1] = (byte) (length >>> 24); b[2] = (byte) (length >>> 16); b[3] = (byte) (length >>> 8); b[4] = (byte) length;
+            crc.reset(); crc.update(op); crc.update(b, RECORD_HEADER, length);
+            codec.writeInt((int) crc.getValue());
+            ByteBuffer record = ByteBuffer.wrap(b, 0, codec.position());
+            while (record.hasRemaining()) out.write(record);
+        }
+
+        // Background checkpoint: folds the snapshot and segments up to upTo into a new snapshot.
+        private void compact(long upTo) {
+            synchronized (checkpointLock) {
+                if (upTo <= coveredGeneration) return; // A save() already covered it
+                Path file = snapshotPath;
+                try {
+                    Map<String, Thought> state = LinkedHashMap.newLinkedHashMap(countHint(file));
+                    if (Files.exists(file)) replay(file, SNAPSHOT_MAGIC, state);
+                    for (Map.Entry<Long, Path> seg : segments(file).entrySet())
+                        if (seg.getKey() > coveredGeneration && seg.getKey() <= upTo) replay(seg.getValue(), JOURNAL_MAGIC, state);
+                    writeSnapshot(state.values(), upTo);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("ERROR: Background checkpoint failed (journal kept): " + e.getMessage());
+                }
+            }
+        }
+
+        // Writes the snapshot to a temp file, moves it into place, then deletes the segments it covers. Caller holds checkpointLock.
+        private void writeSnapshot(Collection<Thought> thoughts, long covered) throws IOException {
+            Path file = snapshotPath, tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            ThoughtCodec out = new ThoughtCodec();
+            CRC32 sum = new CRC32();
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.reset(0); out.writeInt(SNAPSHOT_MAGIC); out.writeByte(VERSION); out.writeLong(covered); out.writeInt(thoughts.size());
+                for (Thought t : thoughts) {
+                    int start = out.position();
+                    out.reset(start + RECORD_HEADER); out.writeThought(t);
+                    int length = out.position() - start - RECORD_HEADER;
+                    byte[] b = out.buffer();
+                    b[start] = OP_PUT; b[start + 1] = (byte) (length >>> 24); b[start + 2] = (byte) (length >>> 16); b[start + 3] = (byte) (length >>> 8); b[start + 4] = (byte) length;
+                    sum.reset(); sum.update(OP_PUT); sum.update(b, start + RECORD_HEADER, length);
+                    out.writeInt((int) sum.getValue());
+                    if (out.position() >= 1 << 16) { writeFully(ch, out); out.reset(0); }
+                }
+                writeFully(ch, out);
+                ch.force(true);
+            }
+            try { Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+            catch (AtomicMoveNotSupportedException e) { Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING); }
+            coveredGeneration = Math.max(coveredGeneration, covered);
+            for (Map.Entry<Long, Path> seg : segments(file).entrySet()) if (seg.getKey() <= covered) Files.deleteIfExists(seg.getValue());
+        }
+
+        private static void writeFully(FileChannel ch, ThoughtCodec out) throws IOException {
+            ByteBuffer b = ByteBuffer.wrap(out.buffer(), 0, out.position());
+            while (b.hasRemaining()) ch.write(b);
+        }
+
+        // Applies the records of a memory-mapped snapshot or segment to state. Stops at a torn or corrupt tail. Returns the header generation.
+        private static long replay(Path file, int magic, Map<String, Thought> state) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = ch.size();
+                if (size > Integer.MAX_VALUE) throw new PersistenceException("File too large to map (" + size + " bytes): " + file + ". Checkpoint more often.", null);
+                MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                byte version;
+                if (size < HEADER || in.getInt() != magic || ((version = in.get()) != VERSION && version != VERSION_1))
+                    throw new PersistenceException("Unrecognized file format: " + file, null);
+                long gen = in.getLong();
+                in.getInt(); // Record count hint, see countHint
+                ThoughtCodec codec = new ThoughtCodec();
+                CRC32 sum = new CRC32();
+                while (in.remaining() >= RECORD_HEADER + 4) {
+                    byte op = in.get(); int length = in.getInt();
+                    if (length < 0 || length > in.remaining() - 4) { in.position(in.position() - RECORD_HEADER); break; }
+                    ByteBuffer payload = in.slice(in.position(), length);
+                    sum.reset(); sum.update(op); sum.update(payload.duplicate());
+                    in.position(in.position() + length);
+                    if (in.getInt() != (int) sum.getValue()) { in.position(in.position() - length - RECORD_HEADER - 4); break; }
+                    switch (op) {
+                        case OP_PUT -> { Thought t = version == VERSION ? codec.readThought(payload) : codec.readThoughtV1(payload); state.put(t.id(), t); }
+                        case OP_REMOVE -> state.remove(codec.readId(payload));
+                        case OP_CLEAR -> state.clear();
+                        default -> throw new PersistenceException("Unknown record type " + op + " in " + file, null);
+                    }
+                }
+                if (in.hasRemaining()) System.err.println("WARN: Ignoring " + in.remaining() + " bytes of torn or corrupt records at the end of " + file);
+                return gen;
+            }
+        }
+
+        private Path segmentPath(long gen) { return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".log." + gen); }
+
+        // Journal segments next to the snapshot, by generation.
+        private static SortedMap<Long, Path> segments(Path snapshot) throws IOException {
+            SortedMap<Long, Path> out = new TreeMap<>();
+            Path dir = snapshot.getParent();
+            String prefix = snapshot.getFileName() + ".log.";
+            if (dir == null || !Files.isDirectory(dir)) return out;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*")) {
+                for (Path f : files) {
+                    try { out.put(Long.parseLong(f.getFileName().toString().substring(prefix.length())), f); }
+                    catch (NumberFormatException ignore) { /* Not a segment */ }
+                }
+            }
+            return out;
+        }
+
+        // Number of records in a snapshot, read from its header, to presize the replay map; 0 if unknown.
+        private static int countHint(Path file) throws IOException {
+            if (!Files.exists(file) || Files.size(file) < HEADER) return 0;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                while (header.hasRemaining() && ch.read(header) >= 0) { /* Fill */ }
+                return header.getInt(0) == SNAPSHOT_MAGIC ? Math.max(0, header.getInt(HEADER - 4)) : 0;
+            }
+        }
+
+        private static boolean isJavaSerialized(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) { return in.read() == 0xAC && in.read() == 0xED; }
+        }
+    }
+
     /** Basic Text Parser: Creates GOALs for Structures/Lists, NOTE for others. */
     static class BasicTextParser implements TextParserService {
         @Override
         public List<Thought> parse(String text) {
-            return Arrays.stream(text.split("\\r?\\n")) // Split lines
+            return text.lines() // Split lines
                     .map(String::trim).filter(line -> !line.isEmpty()) // Trim and remove empty lines
                     .map(line -> {
                         try {
-                            Term parsedTerm = Helpers.parseTerm(line); // Attempt to parse line as a Term
+                            Term parsedTerm = TermParser.parse(line); // Attempt to parse line as a Term
                             // Default to GOAL if structure/list, NOTE otherwise
                             Role role = (parsedTerm instanceof Structure || parsedTerm instanceof ListTerm) ? Role.GOAL : Role.NOTE;
                             return Thought.create(role, parsedTerm, Belief.DEFAULT_POSITIVE);
-                        } catch (IllegalArgumentException e) {
+                        } catch (TermParseException e) {
                             // If parsing fails, create a NOTE with the raw line as an Atom
                             System.err.println("WARN: Input line failed Term parsing, creating NOTE with Atom content: '" + line + "' (" + e.getMessage() + ")");
                             return Thought.create(Role.NOTE, new Atom(line), Belief.DEFAULT_POSITIVE);
-                        } catch (StackOverflowError soe) {
-                            // Catch StackOverflow specifically during initial parsing
-                            System.err.println("ERROR: StackOverflowError during initial parsing of input line, creating NOTE with Atom content: '" + line + "'");
-                            return Thought.create(Role.NOTE, new Atom(line), Belief.DEFAULT_POSITIVE);
                         }
                     }).toList(); // Collect results into a List
         }
@@ -891,7 +2147,7 @@ public class CoglogEngine implements AutoCloseable {
 
                 if (response.statusCode() >= 200 && response.statusCode() < 300) {
                     String responseBody = response.body();
-                    // Extract the "response" field from the JSON using basic regex helper
+                    // Extract the "response" field from the JSON (escapes such as \n decoded)
                     Optional<String> generatedText = Helpers.extractJsonStringValue(responseBody, "response");
                     if (generatedText.isPresent()) {
                         System.out.println("LLM Response (Ollama): '" + generatedText.get().substring(0, Math.min(80, generatedText.get().length())) + "...'");
@@ -917,10 +2173,10 @@ public class CoglogEngine implements AutoCloseable {
             this.llmService = Objects.requireNonNull(llmService);
         }
 
-        @Override public List<Thought> generate(Term promptTerm, Map<Variable, Term> bindings, String parentId) {
+        @Override public List<Thought> generate(Term promptTerm, Bindings bindings, String parentId) {
             String promptString;
             try {
-                promptString = "Generate thoughts task: " + Helpers.applySubstitutionFully(promptTerm, bindings).toString();
+                promptString = "Generate thoughts task: " + bindings.resolveFully(promptTerm).toString();
             } catch (UnboundVariableException e) {
                 System.err.println("WARN: Cannot generate thoughts, prompt term has unbound variable: " + e.getMessage());
                 return Collections.emptyList();
@@ -935,44 +2191,21 @@ public class CoglogEngine implements AutoCloseable {
             }
 
             List<Thought> generatedThoughts = new ArrayList<>();
-            for (String line : llmResponse.split("\\r?\\n")) {
+            for (String line : llmResponse.lines().toList()) {
                 line = line.trim();
                 if (line.startsWith("add_thought(") && line.endsWith(")")) {
                     try {
-                        String argsString = line.substring("add_thought(".length(), line.length() - 1);
-                        // FIX: Use safer splitting instead of full recursive parsing for args
-                        List<String> argStrings = Helpers.splitTopLevelArgs(argsString);
-
-                        if (argStrings.size() == 3) {
-                            // Parse Role (first arg) and Belief (third arg) safely
-                            Role role = ActionExecutor.expectEnumValue(Helpers.parseTerm(argStrings.get(0)), Role.class, "Generated Role");
-                            Belief belief = ActionExecutor.expectBelief(Helpers.parseTerm(argStrings.get(2)), "Generated Belief");
-
-                            // For Content (second arg), *try* to parse, fallback to Atom on SOE or IllegalArgumentException
-                            Term content;
-                            String contentString = argStrings.get(1);
-                            try {
-                                content = Helpers.parseTerm(contentString);
-                            } catch (StackOverflowError soe) {
-                                logParseWarning(line, "StackOverflowError parsing content term, using Atom. Content: " + contentString);
-                                content = new Atom(contentString); // Fallback
-                            } catch (IllegalArgumentException iae) {
-                                logParseWarning(line, "IllegalArgumentException parsing content term, using Atom. Content: " + contentString + " ("+ iae.getMessage() +")");
-                                content = new Atom(contentString); // Fallback
-                            }
-
-                            // Create the new thought
+                        List<Term> args = parseAddThoughtArgs(line);
+                        if (args.size() == 3) {
+                            Role role = ActionExecutor.expectEnumValue(args.get(0), Role.class, "Generated Role");
+                            Belief belief = ActionExecutor.expectBelief(args.get(2), "Generated Belief");
                             generatedThoughts.add(new ThoughtBuilder()
-                                    .role(role).content(content).belief(belief)
-                                    .putMetadata("parent_id", parentId)
-                                    .putMetadata("provenance", List.of("LLM_GENERATED"))
+                                    .role(role).content(args.get(1)).belief(belief)
+                                    .parentId(parentId)
+                                    .provenance(List.of("LLM_GENERATED"))
                                     .build());
-                        } else logParseWarning(line, "Incorrect argument count (expected 3, got " + argStrings.size() + ")");
-                    } catch (StackOverflowError soe_outer) {
-                        // Catch SOE during parsing of Role/Belief or splitting (less likely but possible)
-                        logParseWarning(line, "StackOverflowError during argument processing.");
-                    }
-                    catch (Exception e) { // Catch other parsing/validation errors
+                        } else logParseWarning(line, "Incorrect argument count (expected 3, got " + args.size() + ")");
+                    } catch (Exception e) { // Catch parsing/validation errors
                         logParseWarning(line, e.getClass().getSimpleName() + ": " + e.getMessage());
                     }
                 } else if (!line.isEmpty()) {
@@ -985,10 +2218,161 @@ public class CoglogEngine implements AutoCloseable {
             return generatedThoughts;
         }
 
+        // Parses the line in one pass. If it is not a well-formed term, falls back to splitting the arguments and keeps
+        // unparseable content (free text with stray parentheses, say) as an Atom; role and belief must still parse.
+        private List<Term> parseAddThoughtArgs(String line) {
+            try {
+                if (TermParser.parse(line) instanceof Structure s && s.name().equals("add_thought")) return s.args();
+            } catch (TermParseException e) {
+                logParseWarning(line, "Not a well-formed term, splitting arguments (" + e.getMessage() + ")");
+            }
+            List<String> argStrings = Helpers.splitTopLevelArgs(line.substring("add_thought(".length(), line.length() - 1));
+            List<Term> args = new ArrayList<>(argStrings.size());
+            for (int i = 0; i < argStrings.size(); i++) {
+                String arg = argStrings.get(i);
+                try { args.add(TermParser.parse(arg)); }
+                catch (TermParseException e) {
+                    if (i != 1) throw e;
+                    args.add(new Atom(arg)); // Content falls back to the raw text
+                }
+            }
+            return args;
+        }
+
         // Helper to log parsing warnings consistently
         private void logParseWarning(String line, String reason) { System.err.println("WARN: Could not parse generated thought line (" + reason + "): " + line); }
     }
 
+    /**
+     * Trail-based binding environment for exception-free unification. Variables are bound in place and recorded on a
+     * trail; unify() returns false on a mismatch and undoes its own bindings, and mark()/undo() let a caller try several
+     * candidates against one environment. Variables are dereferenced lazily, only when a term is inspected, and nothing
+     * is substituted until resolve() or resolveFully(). Unification and the occurs check are iterative. Not thread-safe.
+     */
+    static final class Bindings {
+        private final Map<Variable, Term> bound = new HashMap<>();
+        private Variable[] trail = new Variable[16];
+        private int trailTop;
+        private Term[] pairs = new Term[32], walk = new Term[16]; // Reused work stacks for unify and occurs
+
+        /** Environment holding the bindings of an existing substitution map (e.g. a UnificationResult's). */
+        static Bindings of(Map<Variable, Term> substitution) {
+            Bindings b = new Bindings();
+            substitution.forEach((v, t) -> { if (!b.unify(v, t)) throw new IllegalArgumentException("Inconsistent substitution for " + v + ": " + t); });
+            return b;
+        }
+
+        /** Follows variable bindings until an unbound variable or a non-variable term. */
+        Term deref(Term t) {
+            while (t instanceof Variable v) {
+                Term next = bound.get(v);
+                if (next == null) return t;
+                t = next;
+            }
+            return t;
+        }
+
+        /** Current trail position, to pass to undo(). */
+        int mark() { return trailTop; }
+
+        /** Removes every binding bound after {@code mark} was taken; undo(0) clears the environment. */
+        void undo(int mark) {
+            while (trailTop > mark) { bound.remove(trail[--trailTop]); trail[trailTop] = null; }
+        }
+
+        /** Unifies two terms under the current bindings. On failure the bindings are left as they were before the call. */
+        boolean unify(Term a, Term b) {
+            int mark = trailTop, sp = 0;
+            pairs[sp++] = a; pairs[sp++] = b;
+            while (sp > 0) {
+                Term y = deref(pairs[--sp]), x = deref(pairs[--sp]);
+                pairs[sp] = pairs[sp + 1] = null;
+                if (x == y) continue;
+                int next = switch (x) {
+                    case Variable vx -> y.equals(vx) || y instanceof Variable || !occurs(vx, y) ? bind(vx, y, sp) : -1;
+                    case Term t when y instanceof Variable vy -> !occurs(vy, t) ? bind(vy, t, sp) : -1;
+                    case Structure sx -> y instanceof Structure sy && sx.name().equals(sy.name()) ? pushArgs(sx.args(), sy.args(), sp) : -1;
+                    case ListTerm lx -> y instanceof ListTerm ly ? pushArgs(lx.elements(), ly.elements(), sp) : -1;
+                    default -> x.equals(y) ? sp : -1; // Atom, NumberTerm
+                };
+                if (next < 0) { Arrays.fill(pairs, 0, sp, null); undo(mark); return false; }
+                sp = next;
+            }
+            return true;
+        }
+
+        /** Applies the bindings, returning a new term. Returns the original instance where nothing is bound. */
+        Term resolve(Term t) {
+            if (trailTop == 0) return t;
+            t = deref(t);
+            return switch (t) {
+                case Structure s -> { List<Term> args = resolveAll(s.args()); yield args == s.args() ? s : new Structure(s.name(), args); }
+                case ListTerm l -> { List<Term> el = resolveAll(l.elements()); yield el == l.elements() ? l : new ListTerm(el); }
+                default -> t;
+            };
+        }
+
+        /** Applies the bindings and throws UnboundVariableException if any variables remain. */
+        Term resolveFully(Term t) throws UnboundVariableException {
+            Term resolved = resolve(t);
+            Variable unbound = Helpers.findFirstVariable(resolved);
+            if (unbound != null) throw new UnboundVariableException(unbound);
+            return resolved;
+        }
+
+        /** Snapshot of the bindings as an idempotent substitution map: every value is fully resolved. */
+        Map<Variable, Term> toMap() {
+            if (trailTop == 0) return Map.of();
+            Map<Variable, Term> map = new HashMap<>(trailTop * 2);
+            for (int i = 0; i < trailTop; i++) map.put(trail[i], resolve(trail[i]));
+            return Map.copyOf(map);
+        }
+
+        // Binds v to t unless they are the same variable. Returns sp so unify can chain it with pushArgs.
+        private int bind(Variable v, Term t, int sp) {
+            if (t.equals(v)) return sp;
+            if (trailTop == trail.length) trail = Arrays.copyOf(trail, trailTop * 2);
+            trail[trailTop++] = v; bound.put(v, t);
+            return sp;
+        }
+
+        // Pushes argument pairs right-to-left so the leftmost pair is unified first. Returns -1 on an arity mismatch.
+        private int pushArgs(List<Term> xs, List<Term> ys, int sp) {
+            int n = xs.size();
+            if (n != ys.size()) return -1;
+            if (sp + 2 * n > pairs.length) pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, sp + 2 * n));
+            for (int i = n - 1; i >= 0; i--) { pairs[sp++] = xs.get(i); pairs[sp++] = ys.get(i); }
+            return sp;
+        }
+
+        private boolean occurs(Variable v, Term t) {
+            if (t instanceof Atom || t instanceof NumberTerm) return false;
+            int sp = 0; walk[sp++] = t;
+            while (sp > 0) {
+                Term cur = deref(walk[--sp]); walk[sp] = null;
+                if (cur.equals(v)) { Arrays.fill(walk, 0, sp, null); return true; }
+                List<Term> children = switch (cur) {
+                    case Structure s -> s.args();
+                    case ListTerm l -> l.elements();
+                    default -> List.of();
+                };
+                if (sp + children.size() > walk.length) walk = Arrays.copyOf(walk, Math.max(walk.length * 2, sp + children.size()));
+                for (Term c : children) walk[sp++] = c;
+            }
+            return false;
+        }
+
+        private List<Term> resolveAll(List<Term> terms) {
+            Term[] out = null;
+            for (int i = 0; i < terms.size(); i++) {
+                Term original = terms.get(i), resolved = resolve(original);
+                if (resolved != original && out == null) out = terms.toArray(new Term[0]);
+                if (out != null) out[i] = resolved;
+            }
+            return out == null ? terms : List.of(out);
+        }
+    }
+
     /** Handles unification of an active Thought against available META_THOUGHTs and samples a match. */
     static class Unifier {
         /** Holds the result of a unification attempt. */
@@ -1000,6 +2384,8 @@ public class CoglogEngine implements AutoCloseable {
         /** Finds META_THOUGHTs matching the active thought's content, then samples one based on belief score. */
         public UnificationResult findAndSampleMatchingMeta(Thought activeThought, List<Thought> metaThoughts) {
             List<Map.Entry<Double, UnificationResult>> potentialMatches = new ArrayList<>();
+            Bindings bindings = new Bindings(); // One environment for all candidates, reset after each attempt
+            int mark = bindings.mark();
             for (Thought meta : metaThoughts) {
                 // Check structure and target role hint
                 if (!(meta.content() instanceof Structure metaDef && "meta_def".equals(metaDef.name()) && metaDef.args().size() == 2)) continue;
@@ -1007,16 +2393,11 @@ public class CoglogEngine implements AutoCloseable {
                 Optional<String> targetRoleName = meta.getMetadata("target_role", String.class);
                 if (targetRoleName.isPresent() && !targetRoleName.get().equalsIgnoreCase(activeThought.role().name())) continue;
 
-                // Attempt unification
-                try {
-                    Map<Variable, Term> substitution = Helpers.unify(activeThought.content(), targetTerm);
-                    potentialMatches.add(Map.entry(meta.belief().score(), new UnificationResult(meta, substitution))); // Store match and score
-                } catch (UnificationException ignore) { /* No match */
-                } catch (StackOverflowError soe) { // Catch StackOverflow specifically during unification (likely regex)
-                    System.err.printf("ERROR: StackOverflowError during unification for META %s against %s. Check META target complexity or input term structure.%n", meta.id().substring(0, 8), activeThought.id().substring(0, 8));
-                    // Don't add this as a potential match
+                // Attempt unification (iterative, a mismatch is just false)
+                if (bindings.unify(activeThought.content(), targetTerm)) {
+                    potentialMatches.add(Map.entry(meta.belief().score(), new UnificationResult(meta, bindings.toMap()))); // Store match and score
+                    bindings.undo(mark);
                 }
-                catch (Exception e) { System.err.printf("ERROR: Unexpected unification error for META %s: %s%n", meta.id().substring(0, 8), e.getMessage()); }
             }
             // Sample from potential matches based on score
             return Helpers.sampleWeighted(potentialMatches).orElse(UnificationResult.noMatch());
@@ -1038,9 +2419,9 @@ public class CoglogEngine implements AutoCloseable {
         /** Extracts, resolves, and executes the action term from the matched META_THOUGHT. */
         public void execute(Thought activeThought, Thought metaThought, Map<Variable, Term> substitutionMap) {
             Term actionTerm = extractActionTerm(metaThought);
-            // Apply substitution from unification *before* dispatching to action handler
-            Term resolvedActionTerm = Helpers.applySubstitution(actionTerm, substitutionMap);
-            executeResolvedAction(resolvedActionTerm, activeThought, substitutionMap, metaThought.id());
+            // Resolve the action against the unification bindings *before* dispatching to action handler
+            Bindings bindings = Bindings.of(substitutionMap);
+            executeResolvedAction(bindings.resolve(actionTerm), activeThought, bindings, metaThought.id());
         }
 
         // Extracts the action term (second arg of meta_def/2)
@@ -1051,7 +2432,7 @@ public class CoglogEngine implements AutoCloseable {
         }
 
         // Dispatches to the appropriate primitive action handler based on the resolved action term.
-        private void executeResolvedAction(Term action, Thought contextThought, Map<Variable, Term> substitutionMap, String metaThoughtId) {
+        private void executeResolvedAction(Term action, Thought contextThought, Bindings bindings, String metaThoughtId) {
             // Action must be a Structure (or the 'noop' Atom for convenience)
             if (!(action instanceof Structure structAction)) {
                 if (action instanceof Atom atom && "noop".equals(atom.name())) return; // Allow noop atom
@@ -1059,57 +2440,53 @@ public class CoglogEngine implements AutoCloseable {
             }
             try {
                 // Args passed to handlers are already substituted based on the unification result.
-                // Handlers MUST call applySubstitutionFully if they need to ensure their *own* args are ground.
+                // Handlers MUST call bindings.resolveFully if they need to ensure their *own* args are ground.
                 List<Term> resolvedArgs = structAction.args();
                 switch (structAction.name()) {
-                    case "add_thought"             -> executeAddThought(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "set_status"              -> executeSetStatus(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "set_belief"              -> executeSetBelief(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "check_parent_completion" -> executeCheckParentCompletion(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "generate_thoughts"       -> executeGenerateThoughts(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "sequence"                -> executeSequence(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
-                    case "call_llm"                -> executeCallLlm(resolvedArgs, contextThought, substitutionMap, metaThoughtId);
+                    case "add_thought"             -> executeAddThought(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "set_status"              -> executeSetStatus(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "set_belief"              -> executeSetBelief(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "check_parent_completion" -> executeCheckParentCompletion(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "generate_thoughts"       -> executeGenerateThoughts(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "sequence"                -> executeSequence(resolvedArgs, contextThought, bindings, metaThoughtId);
+                    case "call_llm"                -> executeCallLlm(resolvedArgs, contextThought, bindings, metaThoughtId);
                     case "noop"                    -> { /* Explicit noop structure handled */ }
                     default -> throw new ActionExecutionException("Unknown primitive action name: " + structAction.name());
                 }
             } catch (UnboundVariableException uve) { throw new ActionExecutionException("Action '" + structAction.name() + "' argument resolution failed: " + uve.getMessage(), uve);
             } catch (ActionExecutionException | LlmException aee) { throw aee; // Re-throw specific action/LLM errors
-            } catch (StackOverflowError soe) { // Catch StackOverflow specifically during action execution (likely parsing)
-                System.err.println("ERROR: StackOverflowError during execution of action: " + structAction);
-                throw new ActionExecutionException("StackOverflowError during action execution, likely term parsing issue.", soe);
-            }
-            catch (Exception e) { throw new ActionExecutionException("Unexpected error executing action '" + structAction.name() + "': " + e.getMessage(), e); }
+            } catch (Exception e) { throw new ActionExecutionException("Unexpected error executing action '" + structAction.name() + "': " + e.getMessage(), e); }
         }
 
         // --- Primitive Action Implementations ---
 
-        private void executeAddThought(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeAddThought(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             if (resolvedArgs.size() != 3) throw new ActionExecutionException("add_thought requires 3 arguments: Role, Content, Belief");
             // Arguments must be fully ground (no variables) before creating the new thought
-            Role role = expectEnumValue(Helpers.applySubstitutionFully(resolvedArgs.get(0), sub), Role.class, "Role");
-            Term content = Helpers.applySubstitutionFully(resolvedArgs.get(1), sub);
-            Belief belief = expectBelief(Helpers.applySubstitutionFully(resolvedArgs.get(2), sub), "Belief");
+            Role role = expectEnumValue(bindings.resolveFully(resolvedArgs.get(0)), Role.class, "Role");
+            Term content = bindings.resolveFully(resolvedArgs.get(1));
+            Belief belief = expectBelief(bindings.resolveFully(resolvedArgs.get(2)), "Belief");
 
             Thought newThought = new ThoughtBuilder().role(role).content(content).belief(belief)
-                    .putMetadata("parent_id", context.id()).putMetadata("provenance", List.of(metaId)).build();
+                    .parentId(context.id()).provenance(List.of(metaId)).build();
             thoughtStore.addThought(newThought);
         }
 
-        private void executeSetStatus(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeSetStatus(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             if (resolvedArgs.size() != 1) throw new ActionExecutionException("set_status requires 1 argument: Status Atom");
-            Status newStatus = expectEnumValue(Helpers.applySubstitutionFully(resolvedArgs.getFirst(), sub), Status.class, "Status");
+            Status newStatus = expectEnumValue(bindings.resolveFully(resolvedArgs.getFirst()), Status.class, "Status");
             if (newStatus == Status.ACTIVE) throw new ActionExecutionException("Cannot set status directly to ACTIVE");
 
             Thought current = thoughtStore.getThought(context.id()).orElse(null);
             if (current == null || current.status() == newStatus) return; // Missing or already in target status
 
-            Thought updated = current.toBuilder().status(newStatus).putMetadata("provenance", addToProvenance(current.metadata(), metaId)).build();
+            Thought updated = current.toBuilder().status(newStatus).addProvenance(metaId).build();
             if (!thoughtStore.updateThought(current, updated)) System.err.println("WARN: Failed atomic update for set_status on " + context.id().substring(0, 8));
         }
 
-        private void executeSetBelief(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeSetBelief(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             if (resolvedArgs.size() != 1) throw new ActionExecutionException("set_belief requires 1 argument: POSITIVE/NEGATIVE Atom");
-            Atom typeAtom = expectAtom(Helpers.applySubstitutionFully(resolvedArgs.getFirst(), sub), "Belief Type");
+            Atom typeAtom = expectAtom(bindings.resolveFully(resolvedArgs.getFirst()), "Belief Type");
             boolean positiveSignal; // Determine signal based on atom name
             if ("POSITIVE".equalsIgnoreCase(typeAtom.name())) positiveSignal = true;
             else if ("NEGATIVE".equalsIgnoreCase(typeAtom.name())) positiveSignal = false;
@@ -1120,18 +2497,18 @@ public class CoglogEngine implements AutoCloseable {
             Belief newBelief = current.belief().update(positiveSignal);
             if (newBelief.equals(current.belief())) return; // Belief didn't change (e.g., already maxed out)
 
-            Thought updated = current.toBuilder().belief(newBelief).putMetadata("provenance", addToProvenance(current.metadata(), metaId)).build();
+            Thought updated = current.toBuilder().belief(newBelief).addProvenance(metaId).build();
             if (!thoughtStore.updateThought(current, updated)) System.err.println("WARN: Failed atomic update for set_belief on " + context.id().substring(0, 8));
         }
 
-        private void executeCheckParentCompletion(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeCheckParentCompletion(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             if (resolvedArgs.size() != 3) throw new ActionExecutionException("check_parent_completion requires 3 arguments: CheckType Atom, StatusIfComplete Atom, Recursive Atom");
             // Ensure arguments are ground
-            Atom checkTypeAtom = expectAtom(Helpers.applySubstitutionFully(resolvedArgs.get(0), sub), "CheckType");
-            Status statusIfComplete = expectEnumValue(Helpers.applySubstitutionFully(resolvedArgs.get(1), sub), Status.class, "StatusIfComplete");
-            // boolean recursive = "TRUE".equalsIgnoreCase(expectAtom(Helpers.applySubstitutionFully(resolvedArgs.get(2), sub), "Recursive").name()); // Recursive check ignored for now
+            Atom checkTypeAtom = expectAtom(bindings.resolveFully(resolvedArgs.get(0)), "CheckType");
+            Status statusIfComplete = expectEnumValue(bindings.resolveFully(resolvedArgs.get(1)), Status.class, "StatusIfComplete");
+            // boolean recursive = "TRUE".equalsIgnoreCase(expectAtom(bindings.resolveFully(resolvedArgs.get(2)), "Recursive").name()); // Recursive check ignored for now
 
-            String parentId = context.getMetadata("parent_id", String.class).orElse(null);
+            String parentId = context.parentId();
             if (parentId == null) return; // No parent to check
 
             // Re-fetch parent to ensure we have the latest version for checks and updates
@@ -1139,27 +2516,25 @@ public class CoglogEngine implements AutoCloseable {
             // Only proceed if parent exists and is waiting for children
             if (parent == null || parent.status() != Status.WAITING_CHILDREN) return;
 
-            List<Thought> children = thoughtStore.findThoughtsByParentId(parentId);
-            // Get the most recent status of the current thought itself, as it might have changed
-            Thought currentContext = thoughtStore.getThought(context.id()).orElse(context);
-            Status contextStatus = currentContext.status();
-
-            // Check if all children (including potentially updated self) meet completion criteria
-            boolean allComplete = children.stream().allMatch(child -> {
-                Status status = child.id().equals(context.id()) ? contextStatus : child.status(); // Use latest status for self
-                return switch (checkTypeAtom.name().toUpperCase()) {
-                    case "ALL_DONE" -> status == Status.DONE;
-                    case "ALL_TERMINAL" -> status == Status.DONE || status == Status.FAILED; // Both DONE and FAILED count as terminal
-                    default -> throw new ActionExecutionException("Unknown checkType for check_parent_completion: " + checkTypeAtom.name());
-                };
-            });
+            // Per-status child counts are maintained by the store, so this check does not depend on the number of
+            // siblings. They reflect the latest stored status of every child, including this thought itself.
+            Map<Status, Integer> childCounts = thoughtStore.getChildStatusCounts(parentId);
+            int total = childCounts.values().stream().mapToInt(Integer::intValue).sum();
+            int done = childCounts.getOrDefault(Status.DONE, 0);
+
+            // Check if all children meet completion criteria
+            boolean allComplete = switch (checkTypeAtom.name().toUpperCase()) {
+                case "ALL_DONE" -> done == total;
+                case "ALL_TERMINAL" -> done + childCounts.getOrDefault(Status.FAILED, 0) == total; // Both DONE and FAILED count as terminal
+                default -> throw new ActionExecutionException("Unknown checkType for check_parent_completion: " + checkTypeAtom.name());
+            };
 
             // If all children are complete, update the parent's status
             if (allComplete) {
                 // Re-fetch parent *again* right before update for atomicity check
                 Thought currentParent = thoughtStore.getThought(parentId).orElse(null);
                 if (currentParent != null && currentParent.status() == Status.WAITING_CHILDREN) { // Check status again
-                    Thought updatedParent = currentParent.toBuilder().status(statusIfComplete).putMetadata("provenance", addToProvenance(currentParent.metadata(), metaId)).build();
+                    Thought updatedParent = currentParent.toBuilder().status(statusIfComplete).addProvenance(metaId).build();
                     if (thoughtStore.updateThought(currentParent, updatedParent)) { // Atomic update
                         System.out.printf("Action: Parent %s status set to %s by check from %s.%n", parentId.substring(0, 8), statusIfComplete, context.id().substring(0, 8));
                     } else System.err.println("WARN: Failed atomic update for parent completion on " + parentId.substring(0,8) + " (likely changed state)");
@@ -1167,23 +2542,23 @@ public class CoglogEngine implements AutoCloseable {
             }
         }
 
-        private void executeGenerateThoughts(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeGenerateThoughts(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             // Ensure thoughtGenerator is available (should be set by constructor/engine setup)
             if (thoughtGenerator == null) throw new ActionExecutionException("ThoughtGenerator component is not initialized");
             if (resolvedArgs.size() != 1) throw new ActionExecutionException("generate_thoughts requires 1 argument: Prompt Term");
 
             // The prompt term might contain variables from the meta-thought match.
-            // Pass the term and the *original* substitution map to the generator.
-            // The generator is responsible for applying the substitution before calling the LLM.
+            // Pass the term and the bindings of that match to the generator.
+            // The generator is responsible for resolving the prompt before calling the LLM.
             Term promptTerm = resolvedArgs.getFirst();
-            thoughtGenerator.generate(promptTerm, sub, context.id())
+            thoughtGenerator.generate(promptTerm, bindings, context.id())
                     .forEach(t -> { // Add this metaId to provenance of each generated thought
-                        Thought finalThought = t.toBuilder().putMetadata("provenance", addToProvenance(t.metadata(), metaId)).build();
+                        Thought finalThought = t.toBuilder().addProvenance(metaId).build();
                         thoughtStore.addThought(finalThought);
                     });
         }
 
-        private void executeSequence(List<Term> resolvedArgs, Thought contextThought, Map<Variable, Term> substitutionMap, String metaThoughtId) {
+        private void executeSequence(List<Term> resolvedArgs, Thought contextThought, Bindings bindings, String metaThoughtId) {
             if (resolvedArgs.size() != 1 || !(resolvedArgs.getFirst() instanceof ListTerm actionList)) {
                 throw new ActionExecutionException("sequence requires 1 ListTerm argument, got: " + resolvedArgs);
             }
@@ -1191,10 +2566,9 @@ public class CoglogEngine implements AutoCloseable {
             for (Term actionStep : actionList.elements()) {
                 try {
                     // Execute each step in the sequence.
-                    // Apply the original substitution map to the action step before executing it.
-                    // This ensures variables from the outer META_THOUGHT match are resolved.
-                    Term resolvedActionStep = Helpers.applySubstitution(actionStep, substitutionMap);
-                    executeResolvedAction(resolvedActionStep, contextThought, substitutionMap, metaThoughtId);
+                    // Resolve the action step against the bindings of the outer META_THOUGHT match before executing it.
+                    Term resolvedActionStep = bindings.resolve(actionStep);
+                    executeResolvedAction(resolvedActionStep, contextThought, bindings, metaThoughtId);
                 } catch (Exception e) {
                     // If any step fails, the sequence fails.
                     // Wrap the original exception for better debugging info.
@@ -1204,11 +2578,11 @@ public class CoglogEngine implements AutoCloseable {
             }
         }
 
-        private void executeCallLlm(List<Term> resolvedArgs, Thought context, Map<Variable, Term> sub, String metaId) {
+        private void executeCallLlm(List<Term> resolvedArgs, Thought context, Bindings bindings, String metaId) {
             if (resolvedArgs.size() != 2) throw new ActionExecutionException("call_llm requires 2 arguments: Prompt Term, Result Role Atom/Name");
             // Ensure prompt and role are fully ground
-            Term promptTerm = Helpers.applySubstitutionFully(resolvedArgs.get(0), sub);
-            Role resultRole = expectEnumValue(Helpers.applySubstitutionFully(resolvedArgs.get(1), sub), Role.class, "Result Role");
+            Term promptTerm = bindings.resolveFully(resolvedArgs.get(0));
+            Role resultRole = expectEnumValue(bindings.resolveFully(resolvedArgs.get(1)), Role.class, "Result Role");
 
             String llmResultText; // Call LLM service (can throw LlmException)
             llmResultText = llmService.generateText(promptTerm.toString());
@@ -1218,8 +2592,8 @@ public class CoglogEngine implements AutoCloseable {
 
             // Create a new thought with the result
             Thought resultThought = new ThoughtBuilder().role(resultRole).content(resultContent).belief(Belief.DEFAULT_POSITIVE)
-                    .putMetadata("parent_id", context.id()) // Link to calling thought
-                    .putMetadata("provenance", List.of(metaId, "LLM_CALL")) // Mark source
+                    .parentId(context.id()) // Link to calling thought
+                    .provenance(List.of(metaId, "LLM_CALL")) // Mark source
                     .build();
             thoughtStore.addThought(resultThought);
         }
@@ -1262,77 +2636,99 @@ public class CoglogEngine implements AutoCloseable {
                 } default -> Belief.DEFAULT_UNCERTAIN; // Default fallback if name is unrecognized
             };
         }
-        /** Safely adds an entry to the provenance list in metadata, returning an immutable list. */
-        static List<String> addToProvenance(Map<String, Object> meta, String entry) {
-            // Get current provenance list, default to empty if missing or wrong type
-            List<String> current = Optional.ofNullable(meta.get("provenance"))
-                    .filter(List.class::isInstance).map(l -> (List<?>) l) // Cast to List<?>
-                    .filter(l -> l.stream().allMatch(String.class::isInstance)) // Ensure all elements are Strings
-                    .map(l -> (List<String>) l) // Cast to List<String>
-                    .orElse(List.of()); // Default to empty list
-
-            List<String> updated = new ArrayList<>(current); updated.add(entry); // Add new entry
-            return List.copyOf(updated); // Return immutable copy
-        }
     }
 
-    /** Main execution loop controller. Runs the select-match-execute cycle. */
+    /**
+     * Main execution loop controller. Runs the select-match-execute cycle, either on a single fixed-delay poll
+     * (workerCount 0) or on a pool of workers that drain PENDING thoughts continuously and sleep on the WorkSignal
+     * when idle. Workers claim a sampled thought through the store's compare-and-set updateThought.
+     */
     static class ExecuteLoop implements Runnable {
         private final ThoughtStore thoughtStore; private final Unifier unifier;
         private final ActionExecutor actionExecutor; private final Configuration config;
         private final ScheduledExecutorService scheduler;
-        private final ConcurrentMap<String, ScheduledFuture<?>> activeThoughtTimeouts = new ConcurrentHashMap<>();
+        private final WorkSignal workSignal;
+        private final TimerWheel timers; // Activation deadlines
+        private final Consumer<List<String>> onTimeouts = this::handleTimeouts; // One instance, so expiries batch together
+        private final List<Thread> workers = new ArrayList<>();
         private volatile boolean running = false; private ScheduledFuture<?> cycleFuture;
 
-        ExecuteLoop(ThoughtStore s, Unifier u, ActionExecutor a, Configuration c, ScheduledExecutorService sch) {
-            this.thoughtStore = s; this.unifier = u; this.actionExecutor = a; this.config = c; this.scheduler = sch;
+        ExecuteLoop(ThoughtStore s, Unifier u, ActionExecutor a, Configuration c, ScheduledExecutorService sch, WorkSignal signal, TimerWheel timers) {
+            this.thoughtStore = s; this.unifier = u; this.actionExecutor = a; this.config = c; this.scheduler = sch; this.workSignal = signal; this.timers = timers;
         }
 
         public void start() {
             if (running) return; running = true;
-            // Schedule the runCycleInternal method to run repeatedly
-            cycleFuture = scheduler.scheduleWithFixedDelay(this::runCycleInternal, 0, config.pollIntervalMillis(), TimeUnit.MILLISECONDS);
-            System.out.println("ExecuteLoop started (polling every " + config.pollIntervalMillis() + "ms).");
+            if (config.workerCount() <= 0) {
+                // Schedule the runCycleInternal method to run repeatedly
+                cycleFuture = scheduler.scheduleWithFixedDelay(this::runCycleInternal, 0, config.pollIntervalMillis(), TimeUnit.MILLISECONDS);
+                System.out.println("ExecuteLoop started (polling every " + config.pollIntervalMillis() + "ms).");
+                return;
+            }
+            ThreadFactory factory = config.virtualWorkers()
+                    ? Thread.ofVirtual().name("CoglogWorker-", 0).factory()
+                    : Thread.ofPlatform().daemon().name("CoglogWorker-", 0).factory();
+            for (int i = 0; i < config.workerCount(); i++) {
+                Thread worker = factory.newThread(this::workerLoop);
+                workers.add(worker); worker.start();
+            }
+            System.out.println("ExecuteLoop started (" + config.workerCount() + (config.virtualWorkers() ? " virtual" : "") + " workers).");
         }
 
         public void stop() {
             if (!running) return; running = false;
             if (cycleFuture != null) cycleFuture.cancel(false); // Allow current cycle to finish, but don't start new ones
-            // Cancel any pending timeout tasks forcefully
-            activeThoughtTimeouts.values().forEach(f -> f.cancel(true)); activeThoughtTimeouts.clear();
+            workSignal.signal(true); // Wake idle workers so they observe running == false
+            for (Thread worker : workers) {
+                try {
+                    worker.join(config.pollIntervalMillis() * 2L + 1000L);
+                    if (worker.isAlive()) worker.interrupt(); // Stuck in a long action (e.g. LLM call)
+                } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
+            }
+            workers.clear(); // Each finished cycle has cancelled its own activation deadline
             System.out.println("ExecuteLoop stopped.");
         }
 
         @Override public void run() { runCycleInternal(); } // Allow direct run if needed
 
-        /** The core logic of selecting, activating, matching, executing, and handling results for one Thought. */
-        private void runCycleInternal() {
-            if (!running) return; // Check if stopped
+        // Worker body: drain while cycles find work, otherwise sleep until the store signals new PENDING work.
+        private void workerLoop() {
+            while (running) {
+                long seen = workSignal.version(); // Read before sampling so a concurrent add is never missed
+                if (runCycleInternal()) continue;
+                try { workSignal.awaitChange(seen, config.pollIntervalMillis()); }
+                catch (InterruptedException e) { Thread.currentThread().interrupt(); return; }
+            }
+        }
 
-            Thought active = null; String activeId = null;
+        /**
+         * The core logic of selecting, activating, matching, executing, and handling results for one Thought.
+         * Returns false only when there was no PENDING thought to sample.
+         */
+        private boolean runCycleInternal() {
+            if (!running) return false; // Check if stopped
+
+            Thought active = null; String activeId = null; TimerWheel.Timeout timeout = null;
             try {
                 // 1. Sample PENDING thought
                 Optional<Thought> pendingOpt = thoughtStore.samplePendingThought();
-                if (pendingOpt.isEmpty()) return; // No work to do, wait for next poll
+                if (pendingOpt.isEmpty()) return false; // No work to do, wait for next poll or signal
                 Thought pending = pendingOpt.get();
 
                 // 2. Activate (Atomic: re-fetch and update status)
                 Thought currentPending = thoughtStore.getThought(pending.id()).orElse(null);
                 // Check if thought still exists and is PENDING before activating
-                if (currentPending == null || currentPending.status() != Status.PENDING) return;
+                if (currentPending == null || currentPending.status() != Status.PENDING) return true;
                 active = updateStatusAtomically(currentPending, Status.ACTIVE);
-                // If activation fails (e.g., another thread processed it), skip this cycle
-                if (active == null) return;
+                // If activation fails (e.g., another worker claimed it), try again with a fresh sample
+                if (active == null) return true;
                 activeId = active.id();
 
-                // 3. Schedule Timeout Task to handle stuck ACTIVE thoughts
-                final String finalActiveId = activeId; // Final variable for lambda
-                ScheduledFuture<?> timeoutTask = scheduler.schedule(() -> handleTimeout(finalActiveId), config.maxActiveDurationMillis(), TimeUnit.MILLISECONDS);
-                ScheduledFuture<?> oldTask = activeThoughtTimeouts.put(activeId, timeoutTask); // Store task, cancel any old one
-                if (oldTask != null) oldTask.cancel(false);
+                // 3. Arm a deadline to handle stuck ACTIVE thoughts (O(1), no scheduler task per activation)
+                timeout = timers.arm(activeId, config.maxActiveDurationMillis(), onTimeouts);
 
                 // 4. Match against META_THOUGHTs & Execute Action
-                List<Thought> metaThoughts = thoughtStore.getMetaThoughts(); // Get current METAs
+                List<Thought> metaThoughts = thoughtStore.getMetaCandidates(active); // Get current METAs whose target could match
                 Unifier.UnificationResult unification = unifier.findAndSampleMatchingMeta(active, metaThoughts);
 
                 if (unification.hasMatch()) {
@@ -1356,11 +2752,11 @@ public class CoglogEngine implements AutoCloseable {
                 // Log class name if message is null
                 String errorMessage = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
                 System.err.println("FATAL: Uncaught exception during cycle for thought " + (activeId != null ? activeId.substring(0,8) : "UNKNOWN") + ": " + errorMessage);
-                // Only print full stack trace if it's not a StackOverflowError (which we handle gracefully now)
+                // Only print full stack trace if it's not a StackOverflowError, whose trace is just the same frames repeated
                 if (!(e instanceof StackOverflowError)) {
                     e.printStackTrace();
                 } else {
-                    System.err.println("  (Stack trace omitted for StackOverflowError - likely term parsing issue)");
+                    System.err.println("  (Stack trace omitted for StackOverflowError - term nested too deeply for the recursive Term methods)");
                 }
                 if (active != null) { // If error occurred after activation, try to fail the thought
                     Thought current = thoughtStore.getThought(active.id()).orElse(active); // Get latest version
@@ -1368,17 +2764,16 @@ public class CoglogEngine implements AutoCloseable {
                     handleFailure(current, "Uncaught cycle exception: " + errorMessage, calculateRemainingRetries(current));
                 }
             } finally {
-                // 6. Cleanup Timeout Task: Cancel the timeout if the cycle completed normally (before timeout)
-                if (activeId != null) {
-                    ScheduledFuture<?> task = activeThoughtTimeouts.remove(activeId);
-                    if (task != null) task.cancel(false); // Cancel if still pending
-                }
+                // 6. Cleanup: Cancel the deadline if the cycle completed before it expired
+                if (timeout != null) timeout.cancel();
             }
+            return true;
         }
 
-        // Handles timeout event scheduled in runCycleInternal
+        // Handles the activation deadlines that expired together in one timer tick
+        private void handleTimeouts(List<String> timedOutThoughtIds) { timedOutThoughtIds.forEach(this::handleTimeout); }
+
         private void handleTimeout(String timedOutThoughtId) {
-            activeThoughtTimeouts.remove(timedOutThoughtId); // Remove reference to completed task
             Thought current = thoughtStore.getThought(timedOutThoughtId).orElse(null);
             // Only fail if the thought is *still* ACTIVE (meaning it got stuck)
             if (current != null && current.status() == Status.ACTIVE) {
@@ -1394,14 +2789,14 @@ public class CoglogEngine implements AutoCloseable {
             // Only handle failure if the thought is still ACTIVE or PENDING (prevent double handling)
             if (current == null || (current.status() != Status.ACTIVE && current.status() != Status.PENDING)) return;
 
-            int currentRetries = current.getMetadata("retry_count", Integer.class).orElse(0);
+            int currentRetries = current.retryCount();
             // Determine next status based on remaining retries
             Status nextStatus = retriesLeft > 0 ? Status.PENDING : Status.FAILED;
             Belief nextBelief = current.belief().update(false); // Negative reinforcement on failure
 
             // Build the updated thought
             Thought updated = current.toBuilder().status(nextStatus).belief(nextBelief)
-                    .putMetadata("error_info", error).putMetadata("retry_count", currentRetries + 1).build();
+                    .putMetadata("error_info", error).retryCount(currentRetries + 1).build();
 
             System.out.printf("Handling Failure for %s: Error='%s', Retries Left=%d, New Status=%s%n",
                     thought.id().substring(0, 8), error, retriesLeft, nextStatus);
@@ -1414,7 +2809,7 @@ public class CoglogEngine implements AutoCloseable {
 
         // Calculates remaining retries based on current thought metadata and configuration.
         private int calculateRemainingRetries(Thought thought) {
-            int currentRetries = thought.getMetadata("retry_count", Integer.class).orElse(0);
+            int currentRetries = thought.retryCount();
             return Math.max(0, config.maxRetries() - currentRetries);
         }
 
@@ -1429,28 +2824,34 @@ public class CoglogEngine implements AutoCloseable {
 
     /** Performs garbage collection on old, terminal (DONE/FAILED) thoughts. */
     static class GarbageCollector implements Runnable {
-        private final ThoughtStore thoughtStore; private final long gcThresholdMillis;
-        private static final Set<Status> TERMINAL_STATUSES = Set.of(Status.DONE, Status.FAILED);
+        private static final int BATCH = 1000; // Thoughts evicted per store query; bounds each lock hold
+        private final ThoughtStore thoughtStore; private final long gcThresholdMillis; private final int maxPerRun;
+        private final Consumer<List<Thought>> archive; // Receives each batch before it is removed; null drops them
+        static final Set<Status> TERMINAL_STATUSES = Set.of(Status.DONE, Status.FAILED);
+
+        GarbageCollector(ThoughtStore store, long threshold) { this(store, threshold, Integer.MAX_VALUE, null); }
 
-        GarbageCollector(ThoughtStore store, long threshold) {
+        GarbageCollector(ThoughtStore store, long threshold, int maxPerRun, Consumer<List<Thought>> archive) {
             this.thoughtStore = store; this.gcThresholdMillis = Math.max(1000L, threshold); // Min 1 sec threshold
+            this.maxPerRun = Math.max(1, maxPerRun); this.archive = archive;
         }
 
+        /** Evicts up to maxPerRun of the oldest expired terminal thoughts, in batches; the rest wait for the next run. */
         @Override public void run() {
             long cutoffTime = System.currentTimeMillis() - gcThresholdMillis; // Calculate cutoff time
             int removedCount = 0;
-
-            // Collect IDs of thoughts eligible for GC to avoid ConcurrentModificationException
-            List<String> removableIds = thoughtStore.getAllThoughts().stream()
-                    .filter(t -> TERMINAL_STATUSES.contains(t.status())) // Check if status is terminal
-                    .filter(t -> t.getMetadata("last_updated_timestamp", Long.class) // Check timestamp
-                            .orElse(t.getMetadata("creation_timestamp", Long.class).orElse(0L)) < cutoffTime)
-                    .map(Thought::id) // Get IDs
-                    .toList(); // Collect IDs
-
-            // Remove the collected thoughts
-            for (String id : removableIds) {
-                if (thoughtStore.removeThought(id)) removedCount++;
+            try {
+                while (removedCount < maxPerRun) {
+                    List<Thought> batch = thoughtStore.findExpiredTerminal(cutoffTime, Math.min(BATCH, maxPerRun - removedCount));
+                    if (batch.isEmpty()) break;
+                    if (archive != null) archive.accept(batch); // Archive first: a failed archive keeps the thoughts
+                    int removedInBatch = 0;
+                    for (Thought t : batch) if (thoughtStore.removeThought(t.id())) removedInBatch++;
+                    removedCount += removedInBatch;
+                    if (removedInBatch == 0) break; // Concurrently removed; avoid spinning on a stale view
+                }
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Garbage Collector stopped after " + removedCount + " removals: " + e.getMessage());
             }
 
             if (removedCount > 0) {
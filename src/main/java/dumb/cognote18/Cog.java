@@ -28,6 +28,9 @@ import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -37,7 +40,11 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.*;
@@ -56,10 +63,6 @@ public class Cog {
             KIF_OP_EXISTS = "exists", KIF_OP_FORALL = "forall", KIF_OP_EQUAL = "=", KIF_OP_NOT = "not";
     private static final Set<String> REFLEXIVE_PREDICATES = Set.of("instance", "subclass", "subrelation", "equivalent", "same", "equal", "domain", "range");
     private static final String PRED_NOTE_SUMMARY = "noteSummary", PRED_NOTE_CONCEPT = "noteConcept", PRED_NOTE_QUESTION = "noteQuestion";
-    private static final int UI_FONT_SIZE = 16;
-    private static final Font MONOSPACED_FONT = new Font(Font.MONOSPACED, Font.PLAIN, UI_FONT_SIZE - 2);
-    private static final Font UI_DEFAULT_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, UI_FONT_SIZE);
-    private static final Font UI_SMALL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, UI_FONT_SIZE - 4);
     private static final AtomicLong idCounter = new AtomicLong(System.currentTimeMillis());
     private static final String ID_PREFIX_RULE = "rule_", ID_PREFIX_FACT = "fact_", ID_PREFIX_SKOLEM_FUNC = "skf_",
             ID_PREFIX_SKOLEM_CONST = "skc_", ID_PREFIX_NOTE = "note-", ID_PREFIX_LLM_ITEM = "llm_",
@@ -76,11 +79,17 @@ public class Cog {
     private static final int DEFAULT_KB_CAPACITY = 64 * 1024;
     private static final int DEFAULT_REASONING_DEPTH = 4;
     private static final int HTTP_TIMEOUT_SECONDS = 90;
+    private static final int DEFAULT_LLM_MAX_CONCURRENT = 2;
+    private static final String DEFAULT_LLM_CACHE_DIR = "llm_cache";
+    private static final int DEFAULT_METRICS_LOG_INTERVAL_SECONDS = 60;
+    private static final int LLM_PRIORITY_INTERACTIVE = 0, LLM_PRIORITY_KIF = 1, LLM_PRIORITY_BACKGROUND = 2;
     private static final double DEFAULT_RULE_PRIORITY = 1.0;
     private static final double INPUT_ASSERTION_BASE_PRIORITY = 10.0;
     private static final double LLM_ASSERTION_BASE_PRIORITY = 15.0;
     private static final double DERIVED_PRIORITY_DECAY = 0.95;
     private static final int MAX_BACKWARD_CHAIN_DEPTH = 8;
+    private static final long DEFAULT_QUERY_TIMEOUT_MS = 30_000;
+    private static final int DEFAULT_PROOF_PARALLELISM = Runtime.getRuntime().availableProcessors();
     private static final int MAX_DERIVED_TERM_WEIGHT = 150;
     private static final int KB_SIZE_THRESHOLD_WARN_PERCENT = 90;
     private static final int KB_SIZE_THRESHOLD_HALT_PERCENT = 98;
@@ -95,7 +104,12 @@ public class Cog {
     final ReasonerManager reasonerManager;
     final Cognition context;
     final HttpClient http;
-    final SwingUI swingUI;
+    final LlmGateway llm;
+    @Nullable final SwingUI swingUI;
+    /** Note store when running without {@link SwingUI}; with a UI the note list model is authoritative. */
+    private final Map<String, Note> headlessNotes = new ConcurrentHashMap<>();
+    @Nullable private final JSONObject configOverrides;
+    private final Path notesFile;
     final MyWebSocketServer websocket;
     final ExecutorService mainExecutor = Executors.newVirtualThreadPerTaskExecutor();
     final Map<String, CompletableFuture<?>> activeLlmTasks = new ConcurrentHashMap<>();
@@ -107,10 +121,32 @@ public class Cog {
     String llmModel;
     int globalKbCapacity;
     int reasoningDepthLimit;
+    int proofParallelism;
+    int llmMaxConcurrent;
+    String llmCacheDir;
+    boolean llmStream;
+    boolean metricsEnabled;
+    int metricsLogIntervalSeconds;
+    private ScheduledExecutorService metricsLogger;
     volatile String systemStatus = "Initializing";
 
     public Cog(int port, SwingUI ui) {
-        this.swingUI = requireNonNull(ui, "SwingUI cannot be null");
+        this(port, requireNonNull(ui, "SwingUI cannot be null"), null);
+    }
+
+    /**
+     * @param ui              null runs headless: no Swing classes are touched and notes are kept in memory
+     * @param configOverrides keys applied over the persisted configuration note for this run only
+     */
+    public Cog(int port, @Nullable SwingUI ui, @Nullable JSONObject configOverrides) {
+        this(port, ui, configOverrides, Paths.get(NOTES_FILE));
+    }
+
+    /** @param notesFile where notes and the configuration note are loaded from and saved to */
+    Cog(int port, @Nullable SwingUI ui, @Nullable JSONObject configOverrides, Path notesFile) {
+        this.swingUI = ui;
+        this.configOverrides = configOverrides;
+        this.notesFile = notesFile;
         this.events = new Events(mainExecutor);
         var skolemizer = new Skolemizer();
         var tms = new BasicTMS(events);
@@ -126,6 +162,7 @@ public class Cog {
                 .connectTimeout(Duration.ofSeconds(HTTP_TIMEOUT_SECONDS))
                 .executor(mainExecutor)
                 .build();
+        this.llm = new LlmGateway(this);
         this.websocket = new MyWebSocketServer(new InetSocketAddress(port));
 
         System.out.printf("System config: Port=%d, KBSize=%d, BroadcastInput=%b, LLM_URL=%s, LLM_Model=%s, MaxDepth=%d%n",
@@ -133,48 +170,82 @@ public class Cog {
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            var port = 8887;
-            String rulesFile = null;
+        var port = 8887;
+        String rulesFile = null;
+        var headless = false;
+        var overrides = new JSONObject();
 
-            for (var i = 0; i < args.length; i++) {
-                try {
-                    switch (args[i]) {
-                        case "-p", "--port" -> port = Integer.parseInt(args[++i]);
-                        case "-r", "--rules" -> rulesFile = args[++i];
-                        default -> System.err.println("Warning: Unknown or deprecated command-line option: " + args[i] + ". Configuration is now managed via UI/JSON.");
+        for (var i = 0; i < args.length; i++) {
+            try {
+                switch (args[i]) {
+                    case "-p", "--port" -> port = Integer.parseInt(args[++i]);
+                    case "-r", "--rules" -> rulesFile = args[++i];
+                    case "-c", "--config" -> {
+                        var file = new JSONObject(new JSONTokener(Files.readString(Paths.get(args[++i]))));
+                        file.keySet().forEach(k -> overrides.put(k, file.get(k)));
                     }
-                } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
-                    System.err.printf("Error parsing argument for %s: %s%n", (i > 0 ? args[i - 1] : args[i]), e.getMessage());
-                    printUsageAndExit();
+                    case "-s", "--set" -> {
+                        var kv = args[++i].split("=", 2);
+                        if (kv.length != 2) throw new IllegalArgumentException("expected key=value, got " + args[i]);
+                        overrides.put(kv[0].trim(), JSONObject.stringToValue(kv[1].trim()));
+                    }
+                    case "--headless" -> headless = true;
+                    default -> System.err.println("Warning: Unknown or deprecated command-line option: " + args[i] + ". Configuration is now managed via UI/JSON.");
                 }
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | IOException | org.json.JSONException e) {
+                System.err.printf("Error parsing argument for %s: %s%n", (i > 0 ? args[i - 1] : args[i]), e.getMessage());
+                printUsageAndExit();
             }
+        }
 
-            SwingUI ui = null;
-            try {
-                ui = new SwingUI(null);
-                var server = new Cog(port, ui);
-                ui.setSystemReference(server);
-                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                    System.out.println("Shutdown hook activated.");
-                    server.stopSystem();
-                }));
-                server.startSystem();
-                if (rulesFile != null) server.loadExpressionsFromFile(rulesFile);
-                else System.out.println("No initial rules/facts file specified via command line.");
-                ui.setVisible(true);
-            } catch (Exception e) {
-                System.err.println("Initialization/Startup failed: " + e.getMessage());
-                e.printStackTrace();
-                ofNullable(ui).ifPresent(JFrame::dispose);
-                System.exit(1);
-            }
-        });
+        var finalPort = port; var finalRulesFile = rulesFile; var config = overrides.isEmpty() ? null : overrides;
+        if (headless) runHeadless(finalPort, finalRulesFile, config);
+        else SwingUtilities.invokeLater(() -> runGui(finalPort, finalRulesFile, config));
+    }
+
+    private static void runGui(int port, @Nullable String rulesFile, @Nullable JSONObject config) {
+        SwingUI ui = null;
+        try {
+            ui = new SwingUI(null);
+            var server = new Cog(port, ui, config);
+            ui.setSystemReference(server);
+            start(server, rulesFile);
+            ui.setVisible(true);
+        } catch (Exception e) {
+            System.err.println("Initialization/Startup failed: " + e.getMessage());
+            e.printStackTrace();
+            ofNullable(ui).ifPresent(JFrame::dispose);
+            System.exit(1);
+        }
+    }
+
+    /** Server mode: reasoning core, WebSocket and note persistence only. Must not reference Swing or AWT types. */
+    private static void runHeadless(int port, @Nullable String rulesFile, @Nullable JSONObject config) {
+        var t0 = System.nanoTime();
+        try {
+            var server = new Cog(port, null, config);
+            start(server, rulesFile);
+            System.out.printf("Headless server ready in %d ms.%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        } catch (Exception e) {
+            System.err.println("Initialization/Startup failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void start(Cog server, @Nullable String rulesFile) throws IOException {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutdown hook activated.");
+            server.stopSystem();
+        }));
+        server.startSystem();
+        if (rulesFile != null) server.loadExpressionsFromFile(rulesFile);
+        else System.out.println("No initial rules/facts file specified via command line.");
     }
 
     private static void printUsageAndExit() {
-        System.err.printf("Usage: java %s [-p port] [-r rules_file.kif]%n", Cog.class.getName());
-        System.err.println("Note: Most configuration is now managed via the UI and persisted in " + NOTES_FILE);
+        System.err.printf("Usage: java %s [-p port] [-r rules_file.kif] [-c config.json] [-s key=value]... [--headless]%n", Cog.class.getName());
+        System.err.println("Note: Configuration is persisted in " + NOTES_FILE + "; -c and -s override it for this run only.");
         System.exit(1);
     }
 
@@ -212,9 +283,14 @@ public class Cog {
     private void setupDefaultPlugins() {
         plugins.loadPlugin(new InputProcessingPlugin());
         plugins.loadPlugin(new RetractionPlugin());
-        plugins.loadPlugin(new StatusUpdaterPlugin(statusEvent -> updateStatusLabel(statusEvent.statusMessage())));
         plugins.loadPlugin(new WebSocketBroadcasterPlugin(this));
-        plugins.loadPlugin(new UiUpdatePlugin(swingUI, this));
+        if (swingUI != null) {
+            plugins.loadPlugin(new StatusUpdaterPlugin(statusEvent -> updateStatusLabel(statusEvent.statusMessage())));
+            plugins.loadPlugin(new UiUpdatePlugin(swingUI, this));
+        } else {
+            events.on(AddedEvent.class, e -> headlessNotes.putIfAbsent(e.note().id, e.note()));
+            events.on(RemovedEvent.class, e -> headlessNotes.remove(e.note().id));
+        }
 
         reasonerManager.loadPlugin(new ForwardChainingReasonerPlugin());
         reasonerManager.loadPlugin(new RewriteRuleReasonerPlugin());
@@ -261,7 +337,7 @@ public class Cog {
         systemStatus = "Starting";
         updateStatusLabel();
 
-        SwingUtilities.invokeLater(() -> {
+        if (swingUI != null) SwingUtilities.invokeLater(() -> {
             var globalNote = new Note(GLOBAL_KB_NOTE_ID, GLOBAL_KB_NOTE_TITLE, "Assertions in the global knowledge base.");
             swingUI.addNoteToList(globalNote);
             swingUI.loadNotes(loadNotesFromFile());
@@ -280,6 +356,11 @@ public class Cog {
             return;
         }
 
+        if (metricsEnabled && metricsLogIntervalSeconds > 0) {
+            metricsLogger = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("metrics-log").factory());
+            metricsLogger.scheduleAtFixedRate(() -> System.out.println("Metrics: " + statsSnapshot()), metricsLogIntervalSeconds, metricsLogIntervalSeconds, TimeUnit.SECONDS);
+        }
+
         systemStatus = "Running";
         updateStatusLabel();
         System.out.println("System started.");
@@ -312,6 +393,7 @@ public class Cog {
             System.err.println("Error stopping WebSocket server: " + e.getMessage());
         }
 
+        shutdownExecutor(metricsLogger, "Metrics Logger");
         shutdownExecutor(mainExecutor, "Main Executor");
         systemStatus = "Stopped";
         updateStatusLabel();
@@ -345,7 +427,8 @@ public class Cog {
         context.kbGlobal().getAllAssertionIds().forEach(assertionId -> context.truth().retractAssertion(assertionId, "UI-ClearAll"));
         context.clearAll();
 
-        SwingUtilities.invokeLater(() -> {
+        if (swingUI == null) headlessNotes.keySet().removeIf(id -> !id.equals(CONFIG_NOTE_ID));
+        else SwingUtilities.invokeLater(() -> {
             swingUI.clearAllUILists();
             var globalNote = new Note(GLOBAL_KB_NOTE_ID, GLOBAL_KB_NOTE_TITLE, "Assertions in the global knowledge base.");
             swingUI.addNoteToList(globalNote);
@@ -410,64 +493,25 @@ public class Cog {
         System.out.printf("Processed %d KIF blocks from %s, published %d input events.%n", counts[1], filename, counts[2]);
     }
 
-    private CompletableFuture<String> llmAsync(String taskId, String prompt, String interactionType, String noteId) {
-        return CompletableFuture.supplyAsync(() -> {
-            waitIfPaused();
-            updateLlmItemStatus(taskId, SwingUI.LlmStatus.PROCESSING, interactionType + ": Waiting for LLM...");
-            var payload = new JSONObject()
-                    .put("model", llmModel)
-                    .put("messages", new JSONArray().put(new JSONObject().put("role", "user").put("content", prompt)))
-                    .put("stream", false)
-                    .put("options", new JSONObject().put("temperature", 0.2));
-            var request = HttpRequest.newBuilder(URI.create(llmApiUrl))
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(HTTP_TIMEOUT_SECONDS))
-                    .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
-                    .build();
-            try {
-                var response = http.send(request, HttpResponse.BodyHandlers.ofString());
-                var responseBody = response.body();
-                if (response.statusCode() < 200 || response.statusCode() >= 300)
-                    throw new IOException("LLM API request failed (" + interactionType + "): " + response.statusCode() + " Body: " + responseBody);
-                return extractLlmContent(new JSONObject(new JSONTokener(responseBody)))
-                        .orElseThrow(() -> new IOException("LLM response missing expected content field. Body: " + responseBody));
-            } catch (IOException | InterruptedException e) {
-                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                throw new CompletionException("LLM API communication error (" + interactionType + ")", e);
-            } catch (Exception e) {
-                throw new CompletionException("LLM response processing error (" + interactionType + ")", e);
-            }
-        }, mainExecutor);
+    private CompletableFuture<String> llmAsync(String taskId, String prompt, String interactionType, int priority, @Nullable Consumer<String> onText) {
+        return llm.submit(prompt, priority, onText, () -> updateLlmItemStatus(taskId, SwingUI.LlmStatus.PROCESSING, interactionType + ": Waiting for LLM..."));
     }
 
-    private void handleLlmKifResponse(String taskId, String noteId, String kifResult, Throwable ex) {
+    private void handleLlmKifResponse(String taskId, String noteId, int assertionCount, Throwable ex) {
         activeLlmTasks.remove(taskId);
         if (ex instanceof CancellationException) {
             updateLlmItemStatus(taskId, SwingUI.LlmStatus.CANCELLED, "KIF Generation Cancelled.");
             return;
         }
 
-        if (ex == null && kifResult != null) {
-            var cleanedKif = kifResult.lines()
-                    .map(s -> s.replaceAll("(?i)```kif", "").replaceAll("```", "").trim())
-                    .filter(line -> line.startsWith("(") && line.endsWith(")") && !line.matches("^\\(\\s*\\)$"))
-                    .collect(Collectors.joining("\n"));
-
-            if (!cleanedKif.trim().isEmpty()) {
-                System.out.printf("LLM Success (KIF %s): Extracted KIF assertions.%n", noteId);
-                try {
-                    KifParser.parseKif(cleanedKif).forEach(term -> events.emit(new ExternalInputEvent(term, "llm-kif:" + noteId, noteId)));
-                    updateLlmItemStatus(taskId, SwingUI.LlmStatus.DONE, "KIF Generation Complete. Assertions added to KB.");
-                } catch (ParseException parseEx) {
-                    System.err.printf("LLM Error (KIF %s): Failed to parse generated KIF: %s%n", noteId, parseEx.getMessage());
-                    updateLlmItemStatus(taskId, SwingUI.LlmStatus.ERROR, "KIF Parse Error: " + parseEx.getMessage());
-                }
-            } else {
-                System.err.printf("LLM Warning (KIF %s): Result contained text but no valid KIF lines found after cleaning.%n", noteId);
-                updateLlmItemStatus(taskId, SwingUI.LlmStatus.DONE, "KIF Generation Warning: No valid KIF found in response.");
-            }
+        if (ex == null && assertionCount > 0) {
+            System.out.printf("LLM Success (KIF %s): Extracted %d KIF assertions.%n", noteId, assertionCount);
+            updateLlmItemStatus(taskId, SwingUI.LlmStatus.DONE, "KIF Generation Complete. Assertions added to KB.");
+        } else if (ex == null) {
+            System.err.printf("LLM Warning (KIF %s): Response contained no valid KIF forms.%n", noteId);
+            updateLlmItemStatus(taskId, SwingUI.LlmStatus.DONE, "KIF Generation Warning: No valid KIF found in response.");
         } else {
-            var errorMsg = (ex != null) ? "KIF Generation Error: " + ex.getMessage() : "KIF Generation Failed: Empty or null response.";
+            var errorMsg = "KIF Generation Error: " + ex.getMessage();
             System.err.printf("LLM Error (KIF %s): %s%n", noteId, errorMsg);
             updateLlmItemStatus(taskId, SwingUI.LlmStatus.ERROR, errorMsg);
         }
@@ -505,9 +549,9 @@ public class Cog {
         }
 
         if (ex == null && response != null && !response.isBlank()) {
-            swingUI.findNoteById(noteId).ifPresent(note -> {
+            findNote(noteId).ifPresent(note -> {
                 note.text = response.trim();
-                SwingUtilities.invokeLater(() -> {
+                if (swingUI != null) SwingUtilities.invokeLater(() -> {
                     if (note.equals(swingUI.currentNote)) {
                         swingUI.noteEditor.setText(note.text);
                         swingUI.noteEditor.setCaretPosition(0);
@@ -539,9 +583,24 @@ public class Cog {
                 "%s"
 
                 KIF Assertions:""".formatted(noteText);
-        var future = llmAsync(taskId, finalPrompt, "KIF Generation", noteId);
+        var splitter = new KifStreamSplitter();
+        var assertionCount = new AtomicInteger();
+        Consumer<String> assertLine = line -> {
+            try {
+                KifParser.parseKif(line).forEach(term -> {
+                    events.emit(new ExternalInputEvent(term, "llm-kif:" + noteId, noteId));
+                    assertionCount.incrementAndGet();
+                });
+            } catch (ParseException e) {
+                System.err.printf("LLM Warning (KIF %s): Skipping unparseable line: %s%n", noteId, e.getMessage());
+            }
+        };
+        var future = llmAsync(taskId, finalPrompt, "KIF Generation", LLM_PRIORITY_KIF, chunk -> splitter.feed(chunk).forEach(assertLine));
         activeLlmTasks.put(taskId, future);
-        future.whenCompleteAsync((kifResult, ex) -> handleLlmKifResponse(taskId, noteId, kifResult, ex), mainExecutor);
+        future.whenCompleteAsync((kifResult, ex) -> {
+            if (ex == null) splitter.finish().ifPresent(assertLine);
+            handleLlmKifResponse(taskId, noteId, assertionCount.get(), ex);
+        }, mainExecutor);
         return future;
     }
 
@@ -556,7 +615,7 @@ public class Cog {
                 "%s"
 
                 Enhanced Note:""".formatted(n.text);
-        var future = llmAsync(taskId, finalPrompt, "Note Enhancement", noteId);
+        var future = llmAsync(taskId, finalPrompt, "Note Enhancement", LLM_PRIORITY_INTERACTIVE, null);
         activeLlmTasks.put(taskId, future);
         future.whenCompleteAsync((response, ex) -> handleLlmEnhancementResponse(taskId, noteId, response, ex), mainExecutor);
         return future;
@@ -571,7 +630,7 @@ public class Cog {
                 "%s"
 
                 Summary:""".formatted(noteText);
-        var future = llmAsync(taskId, finalPrompt, "Note Summarization", noteId);
+        var future = llmAsync(taskId, finalPrompt, "Note Summarization", LLM_PRIORITY_BACKGROUND, null);
         activeLlmTasks.put(taskId, future);
         future.whenCompleteAsync((response, ex) -> handleLlmGenericResponse(taskId, noteId, "Summary", response, ex, PRED_NOTE_SUMMARY), mainExecutor);
         return future;
@@ -586,7 +645,7 @@ public class Cog {
                 "%s"
 
                 Key Concepts:""".formatted(noteText);
-        var future = llmAsync(taskId, finalPrompt, "Key Concept Identification", noteId);
+        var future = llmAsync(taskId, finalPrompt, "Key Concept Identification", LLM_PRIORITY_BACKGROUND, null);
         activeLlmTasks.put(taskId, future);
         future.whenCompleteAsync((response, ex) -> handleLlmGenericResponse(taskId, noteId, "Concepts", response, ex, PRED_NOTE_CONCEPT), mainExecutor);
         return future;
@@ -601,39 +660,18 @@ public class Cog {
                 "%s"
 
                 Questions:""".formatted(noteText);
-        var future = llmAsync(taskId, finalPrompt, "Question Generation", noteId);
+        var future = llmAsync(taskId, finalPrompt, "Question Generation", LLM_PRIORITY_BACKGROUND, null);
         activeLlmTasks.put(taskId, future);
         future.whenCompleteAsync((response, ex) -> handleLlmGenericResponse(taskId, noteId, "Question Gen", response, ex, PRED_NOTE_QUESTION), mainExecutor);
         return future;
     }
 
-    private Optional<String> extractLlmContent(JSONObject r) {
-        return Stream.<Supplier<Optional<String>>>of(
-                        () -> ofNullable(r.optJSONObject("message")).map(m -> m.optString("content", null)),
-                        () -> ofNullable(r.optString("response", null)),
-                        () -> ofNullable(r.optJSONArray("choices")).filter(Predicate.not(JSONArray::isEmpty)).map(a -> a.optJSONObject(0)).map(c -> c.optJSONObject("message")).map(m -> m.optString("content", null)),
-                        () -> ofNullable(r.optJSONArray("results")).filter(Predicate.not(JSONArray::isEmpty)).map(a -> a.optJSONObject(0)).map(res -> res.optJSONObject("candidates")).map(cand -> cand.optJSONObject("content")).map(cont -> cont.optJSONArray("parts")).filter(Predicate.not(JSONArray::isEmpty)).map(p -> p.optJSONObject(0)).map(p -> p.optString("text", null)),
-                        () -> findNestedContent(r)
-                ).map(Supplier::get)
-                .flatMap(Optional::stream)
-                .findFirst();
-    }
-
-    private Optional<String> findNestedContent(Object jsonValue) {
-        return switch (jsonValue) {
-            case JSONObject obj -> obj.keySet().stream()
-                    .filter(key -> key.toLowerCase().contains("content") || key.toLowerCase().contains("text") || key.toLowerCase().contains("response"))
-                    .map(obj::opt)
-                    .flatMap(val -> (val instanceof String s && !s.isBlank()) ? Stream.of(s) : Stream.empty())
-                    .findFirst()
-                    .or(() -> obj.keySet().stream().map(obj::opt).map(this::findNestedContent).flatMap(Optional::stream).findFirst());
-            case JSONArray arr -> IntStream.range(0, arr.length()).mapToObj(arr::opt)
-                    .map(this::findNestedContent)
-                    .flatMap(Optional::stream)
-                    .findFirst();
-            case String s -> Optional.of(s).filter(Predicate.not(String::isBlank));
-            default -> Optional.empty();
-        };
+    JSONObject statsSnapshot() {
+        return Metrics.snapshot()
+                .put("kbCount", context.kbCount())
+                .put("ruleCount", context.ruleCount())
+                .put("activeLlmTasks", activeLlmTasks.size())
+                .put("llmQueued", llm.queued());
     }
 
     void updateStatusLabel() {
@@ -649,9 +687,13 @@ public class Cog {
     }
 
     private void updateStatusLabel(String statusText) {
-        SwingUtilities.invokeLater(() -> swingUI.statusLabel.setText(statusText));
+        if (swingUI != null) SwingUtilities.invokeLater(() -> swingUI.statusLabel.setText(statusText));
     }
 
+    Optional<Note> findNote(String noteId) { return swingUI != null ? swingUI.findNoteById(noteId) : ofNullable(headlessNotes.get(noteId)); }
+
+    List<Note> allNotes() { return swingUI != null ? swingUI.getAllNotes() : List.copyOf(headlessNotes.values()); }
+
     void waitIfPaused() {
         synchronized (pauseLock) {
             while (paused.get() && running.get()) {
@@ -671,14 +713,43 @@ public class Cog {
         Optional<Note> configNoteOpt = notes.stream().filter(n -> n.id.equals(CONFIG_NOTE_ID)).findFirst();
 
         if (configNoteOpt.isPresent()) {
-            parseConfig(configNoteOpt.get().text);
+            parseConfig(withOverrides(configNoteOpt.get().text));
         } else {
             System.out.println("Configuration note not found, using defaults and creating one.");
             var configNote = createDefaultConfigNote();
             notes.add(configNote);
-            parseConfig(configNote.text);
+            parseConfig(withOverrides(configNote.text));
             saveNotesToFile(notes);
         }
+        if (swingUI == null) notes.forEach(n -> headlessNotes.put(n.id, n));
+    }
+
+    private String withOverrides(String configText) {
+        if (configOverrides == null) return configText;
+        try {
+            var merged = new JSONObject(new JSONTokener(configText));
+            configOverrides.keySet().forEach(k -> merged.put(k, configOverrides.get(k)));
+            return merged.toString();
+        } catch (org.json.JSONException e) {
+            return configOverrides.toString();
+        }
+    }
+
+    /**
+     * The configuration to persist from an edited one: keys still holding their run-only override value get back what
+     * the config note had, so {@code -c}/{@code -s} values are never saved. Keys the user changed are kept.
+     */
+    private JSONObject withoutOverrides(JSONObject edited, String persistedText) {
+        if (configOverrides == null) return edited;
+        JSONObject persisted;
+        try { persisted = new JSONObject(new JSONTokener(persistedText)); }
+        catch (org.json.JSONException e) { persisted = new JSONObject(); }
+        for (var k : configOverrides.keySet()) {
+            if (!String.valueOf(edited.opt(k)).equals(String.valueOf(configOverrides.get(k)))) continue;
+            if (persisted.has(k)) edited.put(k, persisted.get(k));
+            else edited.remove(k);
+        }
+        return edited;
     }
 
     private void parseConfig(String jsonText) {
@@ -688,6 +759,12 @@ public class Cog {
             this.llmModel = configJson.optString("llmModel", DEFAULT_LLM_MODEL);
             this.globalKbCapacity = configJson.optInt("globalKbCapacity", DEFAULT_KB_CAPACITY);
             this.reasoningDepthLimit = configJson.optInt("reasoningDepthLimit", DEFAULT_REASONING_DEPTH);
+            this.proofParallelism = configJson.optInt("proofParallelism", DEFAULT_PROOF_PARALLELISM);
+            this.llmMaxConcurrent = configJson.optInt("llmMaxConcurrent", DEFAULT_LLM_MAX_CONCURRENT);
+            this.llmCacheDir = configJson.optString("llmCacheDir", DEFAULT_LLM_CACHE_DIR);
+            this.llmStream = configJson.optBoolean("llmStream", true);
+            this.metricsEnabled = configJson.optBoolean("metricsEnabled", false);
+            this.metricsLogIntervalSeconds = configJson.optInt("metricsLogIntervalSeconds", DEFAULT_METRICS_LOG_INTERVAL_SECONDS);
             this.broadcastInputAssertions = configJson.optBoolean("broadcastInputAssertions", false);
         } catch (Exception e) {
             System.err.println("Error parsing configuration JSON, using defaults: " + e.getMessage());
@@ -695,8 +772,15 @@ public class Cog {
             this.llmModel = DEFAULT_LLM_MODEL;
             this.globalKbCapacity = DEFAULT_KB_CAPACITY;
             this.reasoningDepthLimit = DEFAULT_REASONING_DEPTH;
+            this.proofParallelism = DEFAULT_PROOF_PARALLELISM;
+            this.llmMaxConcurrent = DEFAULT_LLM_MAX_CONCURRENT;
+            this.llmCacheDir = DEFAULT_LLM_CACHE_DIR;
+            this.llmStream = true;
+            this.metricsEnabled = false;
+            this.metricsLogIntervalSeconds = DEFAULT_METRICS_LOG_INTERVAL_SECONDS;
             this.broadcastInputAssertions = false;
         }
+        Metrics.enabled = metricsEnabled;
     }
 
     private Note createDefaultConfigNote() {
@@ -705,6 +789,12 @@ public class Cog {
                 .put("llmModel", DEFAULT_LLM_MODEL)
                 .put("globalKbCapacity", DEFAULT_KB_CAPACITY)
                 .put("reasoningDepthLimit", DEFAULT_REASONING_DEPTH)
+                .put("proofParallelism", DEFAULT_PROOF_PARALLELISM)
+                .put("llmMaxConcurrent", DEFAULT_LLM_MAX_CONCURRENT)
+                .put("llmCacheDir", DEFAULT_LLM_CACHE_DIR)
+                .put("llmStream", true)
+                .put("metricsEnabled", false)
+                .put("metricsLogIntervalSeconds", DEFAULT_METRICS_LOG_INTERVAL_SECONDS)
                 .put("broadcastInputAssertions", false);
         return new Note(CONFIG_NOTE_ID, CONFIG_NOTE_TITLE, configJson.toString(2));
     }
@@ -713,8 +803,9 @@ public class Cog {
         try {
             var newConfigJson = new JSONObject(new JSONTokener(newConfigJsonText));
             parseConfig(newConfigJsonText);
-            swingUI.findNoteById(CONFIG_NOTE_ID).ifPresent(note -> {
-                note.text = newConfigJson.toString(2);
+            llm.pump();
+            findNote(CONFIG_NOTE_ID).ifPresent(note -> {
+                note.text = withoutOverrides(newConfigJson, note.text).toString(2);
                 saveNotesToFile();
             });
             System.out.println("Configuration updated and saved.");
@@ -728,10 +819,9 @@ public class Cog {
     }
 
     private List<Note> loadNotesFromFile() {
-        Path filePath = Paths.get(NOTES_FILE);
-        if (!Files.exists(filePath)) return new ArrayList<>(List.of(createDefaultConfigNote()));
+        if (!Files.exists(notesFile)) return new ArrayList<>(List.of(createDefaultConfigNote()));
         try {
-            var jsonText = Files.readString(filePath);
+            var jsonText = Files.readString(notesFile);
             var jsonArray = new JSONArray(new JSONTokener(jsonText));
             List<Note> notes = new ArrayList<>();
             for (int i = 0; i < jsonArray.length(); i++) {
@@ -741,20 +831,19 @@ public class Cog {
             if (notes.stream().noneMatch(n -> n.id.equals(CONFIG_NOTE_ID))) {
                 notes.add(createDefaultConfigNote());
             }
-            System.out.println("Loaded " + notes.size() + " notes from " + NOTES_FILE);
+            System.out.println("Loaded " + notes.size() + " notes from " + notesFile);
             return notes;
         } catch (IOException | org.json.JSONException e) {
-            System.err.println("Error loading notes from " + NOTES_FILE + ": " + e.getMessage());
+            System.err.println("Error loading notes from " + notesFile + ": " + e.getMessage());
             return new ArrayList<>(List.of(createDefaultConfigNote()));
         }
     }
 
     private void saveNotesToFile() {
-        saveNotesToFile(swingUI.getAllNotes());
+        saveNotesToFile(allNotes());
     }
 
     private void saveNotesToFile(List<Note> notes) {
-        Path filePath = Paths.get(NOTES_FILE);
         var jsonArray = new JSONArray();
         List<Note> notesToSave = new ArrayList<>(notes);
         if (notesToSave.stream().noneMatch(n -> n.id.equals(CONFIG_NOTE_ID))) {
@@ -766,10 +855,10 @@ public class Cog {
                 .put("title", note.title)
                 .put("text", note.text)));
         try {
-            Files.writeString(filePath, jsonArray.toString(2));
-            System.out.println("Saved " + notesToSave.size() + " notes to " + NOTES_FILE);
+            Files.writeString(notesFile, jsonArray.toString(2));
+            System.out.println("Saved " + notesToSave.size() + " notes to " + notesFile);
         } catch (IOException e) {
-            System.err.println("Error saving notes to " + NOTES_FILE + ": " + e.getMessage());
+            System.err.println("Error saving notes to " + notesFile + ": " + e.getMessage());
         }
     }
 
@@ -947,7 +1036,9 @@ public class Cog {
                 System.err.println("Warning: Events executor shutdown. Cannot publish event: " + event.getClass().getSimpleName());
                 return;
             }
+            var enqueued = Metrics.start();
             exe.submit(() -> {
+                Metrics.EVENT_LAG.stop(enqueued);
                 listeners.getOrDefault(event.getClass(), new CopyOnWriteArrayList<>()).forEach(listener -> exeSafe(listener, event, "Direct Listener"));
                 switch (event) {
                     case AssertionAddedEvent aaEvent -> handlePatternMatching(aaEvent.assertion().kif, event);
@@ -1085,6 +1176,12 @@ public class Cog {
         String llmModel() { return cog.llmModel; }
         int globalKbCapacity() { return cog.globalKbCapacity; }
         int reasoningDepthLimit() { return cog.reasoningDepthLimit; }
+        int proofParallelism() { return cog.proofParallelism; }
+        int llmMaxConcurrent() { return cog.llmMaxConcurrent; }
+        String llmCacheDir() { return cog.llmCacheDir; }
+        boolean llmStream() { return cog.llmStream; }
+        boolean metricsEnabled() { return cog.metricsEnabled; }
+        int metricsLogIntervalSeconds() { return cog.metricsLogIntervalSeconds; }
         boolean broadcastInputAssertions() { return cog.broadcastInputAssertions; }
         JSONObject toJson() {
             return new JSONObject()
@@ -1092,6 +1189,12 @@ public class Cog {
                     .put("llmModel", llmModel())
                     .put("globalKbCapacity", globalKbCapacity())
                     .put("reasoningDepthLimit", reasoningDepthLimit())
+                    .put("proofParallelism", proofParallelism())
+                    .put("llmMaxConcurrent", llmMaxConcurrent())
+                    .put("llmCacheDir", llmCacheDir())
+                    .put("llmStream", llmStream())
+                    .put("metricsEnabled", metricsEnabled())
+                    .put("metricsLogIntervalSeconds", metricsLogIntervalSeconds())
                     .put("broadcastInputAssertions", broadcastInputAssertions());
         }
     }
@@ -1152,7 +1255,10 @@ public class Cog {
 
         private void handleQueryRequest(QueryRequestEvent event) {
             var query = event.query();
-            var futures = plugins.stream().filter(p -> p.getSupportedQueryTypes().contains(query.type)).map(p -> p.executeQuery(query)).toList();
+            var futures = plugins.stream().filter(p -> p.getSupportedQueryTypes().contains(query.type)).map(p -> {
+                var t0 = Metrics.start();
+                return p.executeQuery(query).whenComplete((r, ex) -> Metrics.timer("reasoner." + p.getClass().getSimpleName() + ".query").stop(t0));
+            }).toList();
 
             if (futures.isEmpty()) { events.emit(new QueryResultEvent(Answer.failure(query.id))); return; }
 
@@ -1419,8 +1525,10 @@ public class Cog {
         }
         Stream<Assertion> findGeneralizationsOf(KifTerm queryTerm) { return findCandidates(queryTerm, this::findGeneralizationsRecursive).stream().map(tms::getAssertion).flatMap(Optional::stream).filter(Assertion::isActive); }
         private Set<String> findCandidates(KifTerm query, TriConsumer<KifTerm, PathNode, Set<String>> searchFunc) {
+            var t0 = Metrics.start();
             Set<String> candidates = ConcurrentHashMap.newKeySet();
             searchFunc.accept(query, root, candidates);
+            Metrics.PATH_QUERY.stop(t0);
             return Set.copyOf(candidates);
         }
         private void addPathsRecursive(KifTerm term, String assertionId, PathNode currentNode) {
@@ -1511,6 +1619,12 @@ public class Cog {
         List<Assertion> getAllAssertions() { return truth.getAllActiveAssertions().stream().filter(a -> a.kb.equals(id)).toList(); }
 
         @Nullable Assertion commit(PotentialAssertion pa, String source) {
+            var t0 = Metrics.start();
+            try { return commitInternal(pa, source); }
+            finally { Metrics.COMMIT.stop(t0); }
+        }
+
+        @Nullable private Assertion commitInternal(PotentialAssertion pa, String source) {
             if (pa.kif instanceof KifList kl && Cog.isTrivial(kl)) return null;
             lock.writeLock().lock();
             try {
@@ -1725,7 +1839,7 @@ public class Cog {
             var assertion = assertions.remove(assertionId); if (assertion == null) return;
             justifications.remove(assertionId);
             assertion.justificationIds().forEach(supporterId -> ofNullable(dependents.get(supporterId)).ifPresent(deps -> deps.remove(assertionId)));
-            var depsToProcess = new HashSet<>(dependents.remove(assertionId));
+            var depsToProcess = ofNullable(dependents.remove(assertionId)).<Set<String>>map(HashSet::new).orElse(Set.of());
             if (assertion.isActive()) events.emit(new AssertionRetractedEvent(assertion, assertion.kb, source));
             else events.emit(new AssertionStatusChangedEvent(assertion.id, false, assertion.kb));
             depsToProcess.forEach(depId -> updateStatus(depId, visited));
@@ -1901,13 +2015,27 @@ public class Cog {
         protected Truths getTMS() { return context.getTMS(); }
         protected Cognition getCogNoteContext() { return context.cognition(); }
         protected int getMaxDerivationDepth() { return context.getConfig().reasoningDepthLimit(); }
-        @Nullable protected Assertion tryCommit(PotentialAssertion pa, String source) { return getCogNoteContext().tryCommitAssertion(pa, source); }
+        @Nullable protected Assertion tryCommit(PotentialAssertion pa, String ruleId) { return tryCommit(pa, ruleId, ruleId); }
+        /** {@code counter} keys the derivation metric: a rule id, or the plugin's name when {@code source} is an assertion id. */
+        @Nullable protected Assertion tryCommit(PotentialAssertion pa, String source, String counter) {
+            var committed = getCogNoteContext().tryCommitAssertion(pa, source);
+            if (committed != null) Metrics.derived(counter);
+            return committed;
+        }
+        protected <T extends CogEvent> void on(Class<T> eventType, Consumer<T> handler) {
+            var timer = Metrics.timer("reasoner." + getClass().getSimpleName() + "." + eventType.getSimpleName());
+            context.events().on(eventType, event -> {
+                var t0 = Metrics.start();
+                try { handler.accept(event); }
+                finally { timer.stop(t0); }
+            });
+        }
         @Override public CompletableFuture<Answer> executeQuery(Query query) { return CompletableFuture.completedFuture(Answer.failure(query.id)); }
         @Override public Set<QueryType> getSupportedQueryTypes() { return Set.of(); }
     }
 
     static class ForwardChainingReasonerPlugin extends BaseReasonerPlugin {
-        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); ctx.events().on(AssertionAddedEvent.class, this::handleAssertionAdded); }
+        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); on(AssertionAddedEvent.class, this::handleAssertionAdded); }
         @Override public Set<Feature> getSupportedFeatures() { return Set.of(Feature.FORWARD_CHAINING); }
         private void handleAssertionAdded(AssertionAddedEvent event) {
             var newAssertion = event.assertion(); var sourceKbId = event.getKbId();
@@ -2000,7 +2128,7 @@ public class Cog {
     }
 
     static class RewriteRuleReasonerPlugin extends BaseReasonerPlugin {
-        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); ctx.events().on(AssertionAddedEvent.class, this::handleAssertionAdded); }
+        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); on(AssertionAddedEvent.class, this::handleAssertionAdded); }
         @Override public Set<Feature> getSupportedFeatures() { return Set.of(Feature.REWRITE_RULES); }
         private void handleAssertionAdded(AssertionAddedEvent event) {
             var newA = event.assertion(); var kbId = event.getKbId();
@@ -2032,13 +2160,13 @@ public class Cog {
                         var type = rwList.containsSkolemTerm() ? AssertionType.SKOLEMIZED : AssertionType.GROUND;
                         var targetNoteId = getCogNoteContext().findCommonSourceNodeId(support);
                         var pa = new PotentialAssertion(rwList, getCogNoteContext().calculateDerivedPri(support, (ruleA.pri + targetA.pri) / 2.0), support, ruleA.id, isEq, isNeg, isOriented, targetNoteId, type, List.of(), depth);
-                        tryCommit(pa, ruleA.id);
+                        tryCommit(pa, ruleA.id, "rewrite");
                     });
         }
     }
 
     static class UniversalInstantiationReasonerPlugin extends BaseReasonerPlugin {
-        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); ctx.events().on(AssertionAddedEvent.class, this::handleAssertionAdded); }
+        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); on(AssertionAddedEvent.class, this::handleAssertionAdded); }
         @Override public Set<Feature> getSupportedFeatures() { return Set.of(Feature.UNIVERSAL_INSTANTIATION); }
         private void handleAssertionAdded(AssertionAddedEvent event) {
             var newA = event.assertion(); var kbId = event.getKbId(); var kb = getKb(kbId); var globalKb = context.getKb(GLOBAL_KB_NOTE_ID);
@@ -2073,7 +2201,7 @@ public class Cog {
                                 var type = instList.containsSkolemTerm() ? AssertionType.SKOLEMIZED : AssertionType.GROUND;
                                 var targetNoteId = getCogNoteContext().findCommonSourceNodeId(support);
                                 var pa = new PotentialAssertion(instList, pri, support, uniA.id, isEq, isNeg, isOriented, targetNoteId, type, List.of(), depth);
-                                tryCommit(pa, uniA.id);
+                                tryCommit(pa, uniA.id, "universal-instantiation");
                             }
                         }
                     });
@@ -2087,62 +2215,163 @@ public class Cog {
     }
 
     static class BackwardChainingReasonerPlugin extends BaseReasonerPlugin {
+        private AsyncProver prover;
+        @Override public void initialize(ReasonerContext ctx) { super.initialize(ctx); this.prover = new AsyncProver(ctx, ctx.getConfig()::proofParallelism); }
         @Override public Set<Feature> getSupportedFeatures() { return Set.of(Feature.BACKWARD_CHAINING, Feature.OPERATOR_SUPPORT); }
         @Override public Set<QueryType> getSupportedQueryTypes() { return Set.of(QueryType.ASK_BINDINGS, QueryType.ASK_TRUE_FALSE); }
         @Override public CompletableFuture<Answer> executeQuery(Query query) {
-            return CompletableFuture.supplyAsync(() -> {
-                var results = new ArrayList<Map<KifVar, KifTerm>>();
-                var maxDepth = (Integer) query.parameters().getOrDefault("maxDepth", MAX_BACKWARD_CHAIN_DEPTH);
-                try {
-                    prove(query.pattern(), query.targetKbId(), Map.of(), maxDepth, new HashSet<>()).forEach(results::add);
-                    return Answer.success(query.id, results);
-                } catch (Exception e) {
-                    System.err.println("Backward chaining query failed: " + e.getMessage()); e.printStackTrace();
-                    return Answer.error(query.id, e.getMessage());
+            var maxDepth = (Integer) query.parameters().getOrDefault("maxDepth", MAX_BACKWARD_CHAIN_DEPTH);
+            var timeoutMs = ((Number) query.parameters().getOrDefault("timeoutMs", DEFAULT_QUERY_TIMEOUT_MS)).longValue();
+            return prover.solve(query, maxDepth, timeoutMs);
+        }
+    }
+
+    /**
+     * Continuation-passing backward chainer. Each goal expansion hands its bindings to a continuation instead of
+     * materializing a stream, so operator futures are composed rather than joined. Alternative branches (operator
+     * results, matching facts, matching rules) are forked onto the event executor's virtual threads while a permit
+     * is free and run inline otherwise, which bounds parallelism without ever blocking a proof thread. The permit count
+     * follows {@code proofParallelism} as of the latest {@link #solve}; lowering it takes effect as forked branches finish.
+     */
+    static class AsyncProver {
+        private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+        private final ReasonerContext context;
+        private final IntSupplier parallelism;
+        private final Permits permits = new Permits();
+        private int size;
+
+        AsyncProver(ReasonerContext context, IntSupplier parallelism) { this.context = context; this.parallelism = parallelism; }
+
+        CompletableFuture<Answer> solve(Query query, int maxDepth, long timeoutMs) {
+            resize();
+            var run = new ProofRun(query.targetKbId());
+            var answer = new CompletableFuture<Answer>();
+            answer.whenComplete((a, ex) -> { if (answer.isCancelled()) run.cancel(); });
+            var proof = CompletableFuture.supplyAsync(() -> prove(run, query.pattern(), Map.of(), maxDepth, null, run::emit), context.events().exe).thenCompose(Function.identity());
+            (timeoutMs > 0 ? proof.orTimeout(timeoutMs, TimeUnit.MILLISECONDS) : proof).whenComplete((v, ex) -> {
+                var cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+                switch (cause) {
+                    case null -> answer.complete(Answer.success(query.id, run.results()));
+                    case TimeoutException _ -> {
+                        run.cancel();
+                        answer.complete(new Answer(query.id, QueryStatus.TIMEOUT, run.results(), new Explanation("Query timed out after " + timeoutMs + "ms")));
+                    }
+                    default -> {
+                        System.err.println("Backward chaining query failed: " + cause.getMessage());
+                        answer.complete(Answer.error(query.id, cause.getMessage()));
+                    }
                 }
-            }, context.events().exe);
-        }
-        private Stream<Map<KifVar, KifTerm>> prove(KifTerm goal, @Nullable String kbId, Map<KifVar, KifTerm> bindings, int depth, Set<KifTerm> proofStack) {
-            if (depth <= 0) return Stream.empty();
-            var currentGoal = Unifier.substFully(goal, bindings); if (!proofStack.add(currentGoal)) return Stream.empty();
-            Stream<Map<KifVar, KifTerm>> resultStream = Stream.empty();
-            if (currentGoal instanceof KifList goalList && !goalList.terms().isEmpty() && goalList.get(0) instanceof KifAtom opAtom) {
-                resultStream = context.operators().get(opAtom).flatMap(op -> executeOperator(op, goalList, bindings, currentGoal)).stream();
-            }
-            var kbStream = Stream.concat(getKb(kbId).findUnifiableAssertions(currentGoal), (kbId != null && !kbId.equals(GLOBAL_KB_NOTE_ID)) ? context.getKb(GLOBAL_KB_NOTE_ID).findUnifiableAssertions(currentGoal) : Stream.empty())
-                    .distinct().flatMap(fact -> ofNullable(Unifier.unify(currentGoal, fact.kif, bindings)).stream());
-            resultStream = Stream.concat(resultStream, kbStream);
-            var ruleStream = context.rules().stream().flatMap(rule -> {
+            });
+            return answer;
+        }
+
+        private CompletableFuture<Void> prove(ProofRun run, KifTerm goal, Map<KifVar, KifTerm> bindings, int depth, @Nullable Frame path, Continuation k) {
+            if (run.cancelled || depth <= 0) return DONE;
+            var currentGoal = Unifier.substFully(goal, bindings);
+            if (path != null && path.contains(currentGoal)) return DONE;
+            var frame = new Frame(currentGoal, path);
+            var branches = new ArrayList<CompletableFuture<Void>>();
+            if (currentGoal instanceof KifList goalList && !goalList.terms().isEmpty() && goalList.get(0) instanceof KifAtom opAtom)
+                context.operators().get(opAtom).ifPresent(op -> branches.add(callOperator(run, op, goalList, bindings, k)));
+            var kbId = run.kbId;
+            Stream.concat(context.getKb(kbId).findUnifiableAssertions(currentGoal), (kbId != null && !kbId.equals(GLOBAL_KB_NOTE_ID)) ? context.getKb(GLOBAL_KB_NOTE_ID).findUnifiableAssertions(currentGoal) : Stream.empty())
+                    .distinct()
+                    .forEach(fact -> ofNullable(Unifier.unify(currentGoal, fact.kif, bindings)).ifPresent(b -> branches.add(fork(run, () -> k.apply(b)))));
+            context.rules().forEach(rule -> {
                 var renamedRule = renameRuleVariables(rule, depth);
-                return ofNullable(Unifier.unify(renamedRule.consequent(), currentGoal, bindings))
-                        .map(consequentBindings -> proveAntecedents(renamedRule.antecedents(), kbId, consequentBindings, depth - 1, new HashSet<>(proofStack)))
-                        .orElse(Stream.empty());
+                ofNullable(Unifier.unify(renamedRule.consequent(), currentGoal, bindings))
+                        .ifPresent(b -> branches.add(fork(run, () -> proveAll(run, renamedRule.antecedents(), b, depth - 1, frame, k))));
             });
-            resultStream = Stream.concat(resultStream, ruleStream);
-            proofStack.remove(currentGoal); return resultStream.distinct();
+            return allOf(branches);
         }
-        private Optional<Map<KifVar, KifTerm>> executeOperator(Operator op, KifList goalList, Map<KifVar, KifTerm> bindings, KifTerm currentGoal) {
-            try {
-                return op.exe(goalList, context).handle((opResult, ex) -> {
-                    if (ex != null) { System.err.println("Operator execution failed for " + op.pred().toKif() + ": " + ex.getMessage()); return Optional.<Map<KifVar, KifTerm>>empty(); }
-                    if (opResult == null) return Optional.<Map<KifVar, KifTerm>>empty();
-                    if (opResult.equals(KifAtom.of("true"))) return Optional.of(bindings);
-                    return ofNullable(Unifier.unify(currentGoal, opResult, bindings));
-                }).join();
-            } catch (Exception e) { System.err.println("Operator execution exception for " + op.pred().toKif() + ": " + e.getMessage()); return Optional.empty(); }
-        }
-        private Stream<Map<KifVar, KifTerm>> proveAntecedents(List<KifTerm> antecedents, @Nullable String kbId, Map<KifVar, KifTerm> bindings, int depth, Set<KifTerm> proofStack) {
-            if (antecedents.isEmpty()) return Stream.of(bindings);
-            var first = antecedents.getFirst(); var rest = antecedents.subList(1, antecedents.size());
-            return prove(first, kbId, bindings, depth, proofStack).flatMap(newBindings -> proveAntecedents(rest, kbId, newBindings, depth, proofStack));
-        }
-        private Rule renameRuleVariables(Rule rule, int depth) {
+
+        private CompletableFuture<Void> proveAll(ProofRun run, List<KifTerm> goals, Map<KifVar, KifTerm> bindings, int depth, Frame path, Continuation k) {
+            if (goals.isEmpty()) return k.apply(bindings);
+            var rest = goals.subList(1, goals.size());
+            return prove(run, goals.getFirst(), bindings, depth, path, b -> proveAll(run, rest, b, depth, path, k));
+        }
+
+        private CompletableFuture<Void> callOperator(ProofRun run, Operator op, KifList goal, Map<KifVar, KifTerm> bindings, Continuation k) {
+            CompletableFuture<KifTerm> call;
+            try { call = run.track(op.exe(goal, context)); }
+            catch (Exception e) { System.err.println("Operator execution exception for " + op.pred().toKif() + ": " + e.getMessage()); return DONE; }
+            return call.handle((opResult, ex) -> {
+                if (ex != null) {
+                    if (!run.cancelled) System.err.println("Operator execution failed for " + op.pred().toKif() + ": " + ex.getMessage());
+                    return null;
+                }
+                if (opResult == null) return null;
+                if (opResult.equals(KifAtom.of("true"))) return bindings;
+                return Unifier.unify(goal, opResult, bindings);
+            }).thenCompose(b -> b == null ? DONE : k.apply(b));
+        }
+
+        private void resize() {
+            var target = Math.max(1, parallelism.getAsInt());
+            synchronized (permits) {
+                if (target > size) permits.release(target - size);
+                else if (target < size) permits.reducePermits(size - target);
+                size = target;
+            }
+        }
+
+        private CompletableFuture<Void> fork(ProofRun run, Supplier<CompletableFuture<Void>> branch) {
+            if (run.cancelled) return DONE;
+            if (!permits.tryAcquire()) return branch.get();
+            return CompletableFuture.supplyAsync(() -> {
+                try { return branch.get(); }
+                finally { permits.release(); }
+            }, context.events().exe).thenCompose(Function.identity());
+        }
+
+        private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+            return switch (futures.size()) {
+                case 0 -> DONE;
+                case 1 -> futures.getFirst();
+                default -> CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+            };
+        }
+
+        private static Rule renameRuleVariables(Rule rule, int depth) {
             var suffix = "_d" + depth + "_" + idCounter.incrementAndGet();
             Map<KifVar, KifTerm> renameMap = rule.form.vars().stream().collect(Collectors.toMap(Function.identity(), v -> KifVar.of(v.name() + suffix)));
             var renamedForm = (KifList) Unifier.subst(rule.form, renameMap);
             try { return Rule.parseRule(rule.id + suffix, renamedForm, rule.pri); }
             catch (IllegalArgumentException e) { System.err.println("Error renaming rule variables: " + e.getMessage()); return rule; }
         }
+
+        @FunctionalInterface interface Continuation { CompletableFuture<Void> apply(Map<KifVar, KifTerm> bindings); }
+
+        /** A semaphore that can give up permits still held by running branches. */
+        private static final class Permits extends Semaphore {
+            Permits() { super(0); }
+            @Override protected void reducePermits(int reduction) { super.reducePermits(reduction); }
+        }
+
+        record Frame(KifTerm goal, @Nullable Frame parent) {
+            boolean contains(KifTerm g) {
+                for (var f = this; f != null; f = f.parent) if (f.goal.equals(g)) return true;
+                return false;
+            }
+        }
+
+        private static final class ProofRun {
+            final @Nullable String kbId;
+            final Set<Map<KifVar, KifTerm>> seen = ConcurrentHashMap.newKeySet();
+            final Queue<Map<KifVar, KifTerm>> results = new ConcurrentLinkedQueue<>();
+            final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+            volatile boolean cancelled;
+            ProofRun(@Nullable String kbId) { this.kbId = kbId; }
+            CompletableFuture<Void> emit(Map<KifVar, KifTerm> bindings) { if (seen.add(bindings)) results.add(bindings); return DONE; }
+            List<Map<KifVar, KifTerm>> results() { return List.copyOf(results); }
+            <T> CompletableFuture<T> track(CompletableFuture<T> f) {
+                pending.add(f);
+                f.whenComplete((r, ex) -> pending.remove(f));
+                if (cancelled) f.cancel(true);
+                return f;
+            }
+            void cancel() { cancelled = true; pending.forEach(f -> f.cancel(true)); }
+        }
     }
 
     static class BasicOperator implements Operator {
@@ -2367,10 +2596,10 @@ public class Cog {
 
     static class Unifier {
         private static final int MAX_SUBST_DEPTH = 50;
-        @Nullable static Map<KifVar, KifTerm> unify(KifTerm x, KifTerm y, Map<KifVar, KifTerm> bindings) { return unifyRecursive(x, y, bindings, 0); }
-        @Nullable static Map<KifVar, KifTerm> match(KifTerm pattern, KifTerm term, Map<KifVar, KifTerm> bindings) { return matchRecursive(pattern, term, bindings, 0); }
-        static KifTerm subst(KifTerm term, Map<KifVar, KifTerm> bindings) { return substRecursive(term, bindings, 0, false); }
-        static KifTerm substFully(KifTerm term, Map<KifVar, KifTerm> bindings) { return substRecursive(term, bindings, 0, true); }
+        @Nullable static Map<KifVar, KifTerm> unify(KifTerm x, KifTerm y, Map<KifVar, KifTerm> bindings) { var t0 = Metrics.start(); try { return unifyRecursive(x, y, bindings, 0); } finally { Metrics.UNIFY.stop(t0); } }
+        @Nullable static Map<KifVar, KifTerm> match(KifTerm pattern, KifTerm term, Map<KifVar, KifTerm> bindings) { var t0 = Metrics.start(); try { return matchRecursive(pattern, term, bindings, 0); } finally { Metrics.MATCH.stop(t0); } }
+        static KifTerm subst(KifTerm term, Map<KifVar, KifTerm> bindings) { var t0 = Metrics.start(); try { return substRecursive(term, bindings, 0, false); } finally { Metrics.SUBST.stop(t0); } }
+        static KifTerm substFully(KifTerm term, Map<KifVar, KifTerm> bindings) { var t0 = Metrics.start(); try { return substRecursive(term, bindings, 0, true); } finally { Metrics.SUBST.stop(t0); } }
         static Optional<KifTerm> rewrite(KifTerm target, KifTerm lhsPattern, KifTerm rhsTemplate) { return rewriteRecursive(target, lhsPattern, rhsTemplate, 0); }
 
         @Nullable private static Map<KifVar, KifTerm> unifyRecursive(KifTerm x, KifTerm y, Map<KifVar, KifTerm> bindings, int depth) {
@@ -2442,7 +2671,424 @@ public class Cog {
         }
     }
 
+    /**
+     * Process-wide counters and latency histograms for the reasoning hot paths. Every probe first reads one volatile
+     * flag, so with {@code metricsEnabled=false} instrumentation costs a load and a branch. Histograms use HDR-style
+     * log-linear buckets (16 per power of two, about 6% relative error) over nanoseconds.
+     */
+    static final class Metrics {
+        static volatile boolean enabled;
+        private static final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+        private static final ConcurrentMap<String, LongAdder> derivations = new ConcurrentHashMap<>();
+        /** Rules beyond the first {@code MAX_RULES} seen since the last reset share the {@code OTHER_RULES} counter. */
+        private static final int MAX_RULES = 256;
+        private static final String OTHER_RULES = "(other)";
+        static final Timer COMMIT = timer("kb.commit"), UNIFY = timer("unifier.unify"), MATCH = timer("unifier.match"),
+                SUBST = timer("unifier.subst"), PATH_QUERY = timer("pathIndex.query"), EVENT_LAG = timer("events.queueLag"),
+                LLM_ROUND_TRIP = timer("llm.roundTrip");
+
+        private Metrics() {}
+
+        static long start() { return enabled ? System.nanoTime() : 0; }
+        static Timer timer(String name) { return timers.computeIfAbsent(name, Timer::new); }
+        static void derived(String ruleId) {
+            if (!enabled) return;
+            var n = derivations.get(ruleId);
+            if (n == null) n = derivations.computeIfAbsent(derivations.size() < MAX_RULES ? ruleId : OTHER_RULES, _ -> new LongAdder());
+            n.increment();
+        }
+
+        static void reset() { timers.values().forEach(Timer::reset); derivations.clear(); }
+
+        static JSONObject snapshot() {
+            var timerJson = new JSONObject();
+            timers.values().stream().filter(t -> t.count.sum() > 0).forEach(t -> timerJson.put(t.name, t.toJson()));
+            var derivationJson = new JSONObject();
+            derivations.entrySet().stream()
+                    .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                    .forEach(e -> derivationJson.put(e.getKey(), e.getValue().sum()));
+            return new JSONObject().put("enabled", enabled).put("timers", timerJson).put("derivationsByRule", derivationJson);
+        }
+
+        static final class Timer {
+            private static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+            final String name;
+            private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB);
+            private final LongAdder count = new LongAdder(), total = new LongAdder();
+            private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+            Timer(String name) { this.name = name; }
+
+            void stop(long t0) { if (t0 != 0) record(System.nanoTime() - t0); }
+
+            void record(long nanos) {
+                var v = Math.max(0, nanos);
+                buckets.incrementAndGet(index(v));
+                count.increment();
+                total.add(v);
+                max.accumulate(v);
+            }
+
+            long percentile(double q) {
+                var n = 0L;
+                var counts = new long[buckets.length()];
+                for (var i = 0; i < counts.length; i++) n += counts[i] = buckets.get(i);
+                if (n == 0) return 0;
+                var target = (long) Math.ceil(q * n);
+                var seen = 0L;
+                for (var i = 0; i < counts.length; i++) if ((seen += counts[i]) >= target) return Math.min(lowerBound(i + 1) - 1, max.get());
+                return max.get();
+            }
+
+            JSONObject toJson() {
+                var n = count.sum();
+                return new JSONObject()
+                        .put("count", n)
+                        .put("meanUs", n == 0 ? 0 : total.sum() / 1e3 / n)
+                        .put("p50Us", percentile(0.50) / 1e3)
+                        .put("p90Us", percentile(0.90) / 1e3)
+                        .put("p99Us", percentile(0.99) / 1e3)
+                        .put("maxUs", max.get() / 1e3);
+            }
+
+            void reset() {
+                for (var i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+                count.reset(); total.reset(); max.reset();
+            }
+
+            static int index(long v) {
+                if (v < SUB) return (int) v;
+                var exp = 63 - Long.numberOfLeadingZeros(v);
+                return ((exp - SUB_BITS + 1) << SUB_BITS) + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+            }
+
+            static long lowerBound(int index) {
+                if (index < SUB) return index;
+                var exp = (index >>> SUB_BITS) + SUB_BITS - 1;
+                return (long) (SUB + (index & (SUB - 1))) << (exp - SUB_BITS);
+            }
+        }
+    }
+
+    /**
+     * Single path for all LLM traffic. Requests wait in a priority queue until one of {@code llmMaxConcurrent} slots is
+     * free, identical in-flight prompts share one HTTP exchange, and finished responses land in a content-addressed
+     * file cache keyed by model, prompt and options. With {@code llmStream} the body is read line by line and each
+     * subscriber's text callback sees the response as it is generated; cached and coalesced results are replayed to
+     * it in one piece, so every callback receives the full text exactly once. {@code llmMaxConcurrent} and
+     * {@code llmCacheDir} are read per request, so a configuration update applies to the next call without a restart.
+     */
+    static class LlmGateway {
+        private static final String OPTIONS = new JSONObject().put("temperature", 0.2).toString();
+        private final Cog cog;
+        private final PriorityBlockingQueue<Call> queue = new PriorityBlockingQueue<>();
+        private final ConcurrentMap<String, Call> inFlight = new ConcurrentHashMap<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicLong sequence = new AtomicLong();
+
+        LlmGateway(Cog cog) {
+            this.cog = cog;
+        }
+
+        private int maxConcurrent() { return Math.max(1, cog.llmMaxConcurrent); }
+
+        private @Nullable Path cacheDir() {
+            var dir = cog.llmCacheDir;
+            return dir == null || dir.isBlank() ? null : Paths.get(dir);
+        }
+
+        CompletableFuture<String> submit(String prompt, int priority, @Nullable Consumer<String> onText, Runnable onStart) {
+            var model = cog.llmModel;
+            var key = cacheKey(model, prompt, OPTIONS);
+            var sub = new Subscriber(onText, onStart);
+            var cached = readCache(key);
+            if (cached != null) {
+                sub.catchUp(cached);
+                sub.result.complete(cached);
+                return sub.result;
+            }
+            var created = new Call[1];
+            var call = inFlight.compute(key, (k, existing) -> {
+                if (existing != null && existing.join(sub)) return existing;
+                created[0] = new Call(key, model, prompt, priority, sequence.incrementAndGet());
+                created[0].join(sub);
+                return created[0];
+            });
+            sub.result.whenComplete((r, ex) -> { if (sub.result.isCancelled()) call.leave(sub); });
+            if (created[0] != null) {
+                queue.add(call);
+                pump();
+            }
+            return sub.result;
+        }
+
+        int queued() { return queue.size(); }
+
+        /** Starts queued calls while slots are free; also run after a configuration update that may have added slots. */
+        void pump() {
+            while (true) {
+                var r = running.get();
+                if (r >= maxConcurrent()) return;
+                if (!running.compareAndSet(r, r + 1)) continue;
+                var call = queue.poll();
+                if (call == null) {
+                    running.decrementAndGet();
+                    if (queue.isEmpty()) return;
+                    continue;
+                }
+                start(call);
+            }
+        }
+
+        private void start(Call call) {
+            var t0 = new long[1];
+            CompletableFuture.runAsync(() -> { cog.waitIfPaused(); call.started(); t0[0] = Metrics.start(); }, cog.mainExecutor)
+                    .thenCompose(v -> send(call))
+                    .whenComplete((text, ex) -> {
+                        Metrics.LLM_ROUND_TRIP.stop(t0[0]);
+                        running.decrementAndGet();
+                        if (ex == null && text != null && !text.isBlank()) writeCache(call.key, text);
+                        inFlight.remove(call.key, call);
+                        call.complete(text, ex);
+                        pump();
+                    });
+        }
+
+        private CompletableFuture<String> send(Call call) {
+            var stream = cog.llmStream;
+            var payload = new JSONObject()
+                    .put("model", call.model)
+                    .put("messages", new JSONArray().put(new JSONObject().put("role", "user").put("content", call.prompt)))
+                    .put("stream", stream)
+                    .put("options", new JSONObject(OPTIONS));
+            var request = HttpRequest.newBuilder(URI.create(cog.llmApiUrl))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(HTTP_TIMEOUT_SECONDS))
+                    .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
+                    .build();
+            CompletableFuture<String> exchange = stream
+                    ? cog.http.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).thenApplyAsync(r -> readStream(call, r), cog.mainExecutor)
+                    : cog.http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(r -> readBody(call, r));
+            call.exchange = exchange;
+            return exchange;
+        }
+
+        private String readBody(Call call, HttpResponse<String> response) {
+            var body = response.body();
+            if (response.statusCode() < 200 || response.statusCode() >= 300)
+                throw new CompletionException(new IOException("LLM API request failed: " + response.statusCode() + " Body: " + body));
+            var text = extractLlmContent(new JSONObject(new JSONTokener(body)))
+                    .orElseThrow(() -> new CompletionException(new IOException("LLM response missing expected content field. Body: " + body)));
+            call.progress(text);
+            return text;
+        }
+
+        private String readStream(Call call, HttpResponse<Stream<String>> response) {
+            try (var lines = response.body()) {
+                if (response.statusCode() < 200 || response.statusCode() >= 300)
+                    throw new CompletionException(new IOException("LLM API request failed: " + response.statusCode() + " Body: " + lines.collect(Collectors.joining("\n"))));
+                var raw = new StringBuilder();
+                var streamed = false;
+                for (var it = lines.iterator(); it.hasNext() && !call.cancelled; ) {
+                    var line = it.next().strip();
+                    if (line.startsWith("data:")) line = line.substring(5).strip();
+                    if (line.isEmpty() || line.equals("[DONE]")) continue;
+                    raw.append(line).append('\n');
+                    try {
+                        var chunk = extractChunk(new JSONObject(new JSONTokener(line)));
+                        if (chunk.isPresent()) { call.progress(chunk.get()); streamed = true; }
+                    } catch (org.json.JSONException e) {
+                        // not line-delimited JSON; the whole body is parsed below
+                    }
+                }
+                if (call.cancelled) throw new CancellationException("LLM request cancelled");
+                if (streamed) return call.text();
+                var text = extractLlmContent(new JSONObject(new JSONTokener(raw.toString())))
+                        .orElseThrow(() -> new CompletionException(new IOException("LLM response missing expected content field. Body: " + raw)));
+                call.progress(text);
+                return text;
+            }
+        }
+
+        private @Nullable String readCache(String key) {
+            var dir = cacheDir();
+            if (dir == null) return null;
+            var file = cacheFile(dir, key);
+            try { return Files.exists(file) ? Files.readString(file) : null; }
+            catch (IOException e) { System.err.println("LLM cache read failed for " + key + ": " + e.getMessage()); return null; }
+        }
+
+        private void writeCache(String key, String text) {
+            var dir = cacheDir();
+            if (dir == null) return;
+            var file = cacheFile(dir, key);
+            try {
+                Files.createDirectories(file.getParent());
+                var tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+                Files.writeString(tmp, text);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) { System.err.println("LLM cache write failed for " + key + ": " + e.getMessage()); }
+        }
+
+        private static Path cacheFile(Path dir, String key) { return dir.resolve(key.substring(0, 2)).resolve(key + ".txt"); }
+
+        static String cacheKey(String model, String prompt, String options) {
+            try {
+                var digest = MessageDigest.getInstance("SHA-256");
+                for (var part : List.of(model, prompt, options)) {
+                    digest.update(part.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+        }
+
+        static Optional<String> extractChunk(JSONObject r) {
+            return ofNullable(r.optJSONObject("message")).map(m -> m.optString("content", null))
+                    .or(() -> ofNullable(r.optString("response", null)))
+                    .or(() -> ofNullable(r.optJSONArray("choices")).filter(Predicate.not(JSONArray::isEmpty)).map(a -> a.optJSONObject(0))
+                            .map(c -> ofNullable(c.optJSONObject("delta")).orElse(c.optJSONObject("message"))).map(m -> m.optString("content", null)));
+        }
+
+        static Optional<String> extractLlmContent(JSONObject r) {
+            return Stream.<Supplier<Optional<String>>>of(
+                            () -> ofNullable(r.optJSONObject("message")).map(m -> m.optString("content", null)),
+                            () -> ofNullable(r.optString("response", null)),
+                            () -> ofNullable(r.optJSONArray("choices")).filter(Predicate.not(JSONArray::isEmpty)).map(a -> a.optJSONObject(0)).map(c -> c.optJSONObject("message")).map(m -> m.optString("content", null)),
+                            () -> ofNullable(r.optJSONArray("results")).filter(Predicate.not(JSONArray::isEmpty)).map(a -> a.optJSONObject(0)).map(res -> res.optJSONObject("candidates")).map(cand -> cand.optJSONObject("content")).map(cont -> cont.optJSONArray("parts")).filter(Predicate.not(JSONArray::isEmpty)).map(p -> p.optJSONObject(0)).map(p -> p.optString("text", null)),
+                            () -> findNestedContent(r)
+                    ).map(Supplier::get)
+                    .flatMap(Optional::stream)
+                    .findFirst();
+        }
+
+        private static Optional<String> findNestedContent(Object jsonValue) {
+            return switch (jsonValue) {
+                case JSONObject obj -> obj.keySet().stream()
+                        .filter(key -> key.toLowerCase().contains("content") || key.toLowerCase().contains("text") || key.toLowerCase().contains("response"))
+                        .map(obj::opt)
+                        .flatMap(val -> (val instanceof String s && !s.isBlank()) ? Stream.of(s) : Stream.empty())
+                        .findFirst()
+                        .or(() -> obj.keySet().stream().map(obj::opt).map(LlmGateway::findNestedContent).flatMap(Optional::stream).findFirst());
+                case JSONArray arr -> IntStream.range(0, arr.length()).mapToObj(arr::opt)
+                        .map(LlmGateway::findNestedContent)
+                        .flatMap(Optional::stream)
+                        .findFirst();
+                case String s -> Optional.of(s).filter(Predicate.not(String::isBlank));
+                default -> Optional.empty();
+            };
+        }
+
+        private static final class Subscriber {
+            final CompletableFuture<String> result = new CompletableFuture<>();
+            final @Nullable Consumer<String> onText;
+            final Runnable onStart;
+            private int delivered;
+            Subscriber(@Nullable Consumer<String> onText, Runnable onStart) { this.onText = onText; this.onStart = onStart; }
+            void catchUp(CharSequence text) {
+                if (onText == null || text.length() <= delivered) return;
+                var next = text.subSequence(delivered, text.length()).toString();
+                delivered = text.length();
+                try { onText.accept(next); }
+                catch (Exception e) { System.err.println("LLM text callback failed: " + e.getMessage()); }
+            }
+        }
+
+        private final class Call implements Comparable<Call> {
+            final String key, model, prompt;
+            final int priority;
+            final long seq;
+            private final List<Subscriber> subscribers = new ArrayList<>();
+            private final StringBuilder text = new StringBuilder();
+            private boolean started, closed;
+            volatile boolean cancelled;
+            volatile @Nullable CompletableFuture<String> exchange;
+
+            Call(String key, String model, String prompt, int priority, long seq) { this.key = key; this.model = model; this.prompt = prompt; this.priority = priority; this.seq = seq; }
+
+            synchronized boolean join(Subscriber sub) {
+                if (closed) return false;
+                subscribers.add(sub);
+                sub.catchUp(text);
+                if (started) sub.onStart.run();
+                return true;
+            }
+
+            void leave(Subscriber sub) {
+                synchronized (this) {
+                    subscribers.remove(sub);
+                    if (!subscribers.isEmpty() || closed) return;
+                    closed = true;
+                    cancelled = true;
+                }
+                inFlight.remove(key, this);
+                if (!queue.remove(this)) ofNullable(exchange).ifPresent(f -> f.cancel(true));
+            }
+
+            synchronized void started() {
+                if (cancelled) throw new CancellationException("LLM request cancelled");
+                started = true;
+                subscribers.forEach(s -> s.onStart.run());
+            }
+
+            synchronized void progress(String chunk) {
+                text.append(chunk);
+                subscribers.forEach(s -> s.catchUp(text));
+            }
+
+            synchronized String text() { return text.toString(); }
+
+            void complete(@Nullable String result, @Nullable Throwable ex) {
+                List<Subscriber> subs;
+                synchronized (this) {
+                    closed = true;
+                    subs = List.copyOf(subscribers);
+                    if (result != null) subs.forEach(s -> s.catchUp(result));
+                }
+                var cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+                subs.forEach(s -> { if (cause == null) s.result.complete(result); else s.result.completeExceptionally(cause); });
+            }
+
+            @Override public int compareTo(Call o) {
+                var cmp = Integer.compare(priority, o.priority);
+                return cmp != 0 ? cmp : Long.compare(seq, o.seq);
+            }
+        }
+    }
+
+    /**
+     * Cuts KIF lines out of text arriving in arbitrary chunks, by the same rule a whole response used to be filtered
+     * with: code fences are removed and a line is kept only if it starts with "(" and ends with ")". Prose around the
+     * assertions, parenthesized or not, never reaches the parser.
+     */
+    static class KifStreamSplitter {
+        private final StringBuilder line = new StringBuilder();
+
+        List<String> feed(CharSequence chunk) {
+            List<String> complete = new ArrayList<>();
+            for (var i = 0; i < chunk.length(); i++) {
+                var c = chunk.charAt(i);
+                if (c == '\n') take().ifPresent(complete::add);
+                else line.append(c);
+            }
+            return complete;
+        }
+
+        /** The last line, when the response does not end with a newline. */
+        Optional<String> finish() { return take(); }
+
+        private Optional<String> take() {
+            var s = line.toString().replaceAll("(?i)```kif", "").replace("```", "").trim();
+            line.setLength(0);
+            return Optional.of(s).filter(l -> l.startsWith("(") && l.endsWith(")") && !l.matches("^\\(\\s*\\)$"));
+        }
+    }
+
     static class SwingUI extends JFrame {
+        private static final int UI_FONT_SIZE = 16;
+        private static final Font MONOSPACED_FONT = new Font(Font.MONOSPACED, Font.PLAIN, UI_FONT_SIZE - 2);
+        private static final Font UI_DEFAULT_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, UI_FONT_SIZE);
+        private static final Font UI_SMALL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, UI_FONT_SIZE - 4);
         final JLabel statusLabel = new JLabel("Status: Initializing...");
         final Map<String, DefaultListModel<AttachmentViewModel>> noteAttachmentModels = new ConcurrentHashMap<>();
         final DefaultListModel<Note> noteListModel = new DefaultListModel<>();
@@ -3027,7 +3673,7 @@ public class Cog {
                 add(formPanel, BorderLayout.CENTER); add(buttonPanel, BorderLayout.SOUTH); ((JPanel) getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
             }
             private void saveSettings() {
-                var newConfigJson = new JSONObject().put("llmApiUrl", llmUrlField.getText()).put("llmModel", llmModelField.getText()).put("globalKbCapacity", (Integer) kbCapacitySpinner.getValue()).put("reasoningDepthLimit", (Integer) depthLimitSpinner.getValue()).put("broadcastInputAssertions", broadcastInputCheckbox.isSelected());
+                var newConfigJson = new Configuration(systemRef).toJson().put("llmApiUrl", llmUrlField.getText()).put("llmModel", llmModelField.getText()).put("globalKbCapacity", (Integer) kbCapacitySpinner.getValue()).put("reasoningDepthLimit", (Integer) depthLimitSpinner.getValue()).put("broadcastInputAssertions", broadcastInputCheckbox.isSelected());
                 if (systemRef.updateConfig(newConfigJson.toString())) dispose();
                 else JOptionPane.showMessageDialog(this, "Invalid JSON format in Configuration. Please correct.", "Configuration Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -3035,7 +3681,7 @@ public class Cog {
     }
 
     private class MyWebSocketServer extends WebSocketServer {
-        public MyWebSocketServer(InetSocketAddress address) { super(address); }
+        public MyWebSocketServer(InetSocketAddress address) { super(address); setReuseAddr(true); }
         @Override public void onOpen(WebSocket conn, ClientHandshake handshake) { System.out.println("WS Client connected: " + conn.getRemoteSocketAddress()); }
         @Override public void onClose(WebSocket conn, int code, String reason, boolean remote) { System.out.println("WS Client disconnected: " + conn.getRemoteSocketAddress() + " Code: " + code + " Reason: " + requireNonNullElse(reason, "N/A")); }
         @Override public void onStart() { System.out.println("System WebSocket listener active on port " + getPort() + "."); setConnectionLostTimeout(WS_CONNECTION_LOST_TIMEOUT_MS); }
@@ -3049,6 +3695,10 @@ public class Cog {
             var parts = trimmed.split("\\s+", 2); var command = parts[0].toLowerCase(); var argument = (parts.length > 1) ? parts[1] : "";
             switch (command) {
                 case "retract" -> { if (!argument.isEmpty()) events.emit(new RetractionRequestEvent(argument, RetractionType.BY_ID, sourceId, null)); else System.err.println("WS Retract Error from " + sourceId + ": Missing assertion ID."); }
+                case "stats" -> {
+                    if (argument.equalsIgnoreCase("reset")) Metrics.reset();
+                    conn.send("stats " + statsSnapshot());
+                }
                 case "query" -> {
                     try {
                         var terms = KifParser.parseKif(argument); if (terms.size() != 1 || !(terms.getFirst() instanceof KifList queryPattern)) { conn.send("error Query must be a single KIF list."); return; }
@@ -2,16 +2,28 @@ package dumb.pln;
 
 import org.jetbrains.annotations.Nullable;
 
+import java.io.*;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import static java.util.Optional.empty;
 
@@ -72,6 +84,8 @@ public final class Cog {
     private static final double INFER_TEMPORAL_DISCOUNT = 0.8; // Higher uncertainty for temporal projection
     private static final int INFER_DEFAULT_MAX_DEPTH = 5;
     private static final int FORWARD_CHAINING_BATCH_SIZE = 50;
+    private static final int FORWARD_CHAINING_FOCUS_SIZE = 1000; // Most important existing premise links seeding the agenda
+    private static final int FORWARD_CHAINING_AGENDA_CAPACITY = 100_000; // Pending steps kept; least important dropped
 
     // Importance / Attention / Forgetting
     private static final double IMPORTANCE_MIN_FORGET_THRESHOLD = 0.02; // Combined STI/LTI threshold for forgetting
@@ -99,6 +113,8 @@ public final class Cog {
 
     private static final String VAR_PREFIX = "?"; // SPARQL-like prefix for vars
 
+    private static volatile boolean logging = true; // Progress output of engines, agents and environments
+
     private final Memory mem;
     private final Infer infer;
     private final Agent agent;
@@ -121,7 +137,7 @@ public final class Cog {
         });
         exe.scheduleAtFixedRate(this::performMaintenance, FORGETTING_CHECK_INTERVAL_MS, FORGETTING_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
 
-        System.out.println(Cog.class + " Initialized.");
+        log(Cog.class + " Initialized.");
     }
 
     // --- Public Facade API ---
@@ -260,6 +276,20 @@ public final class Cog {
             var sizeAfter = cle.mem.size();
             System.out.println("Mem size after wait: " + sizeAfter + " (Removed: " + (sizeBefore - sizeAfter) + ")");
 
+            // --- 6. Persistence ---
+            System.out.println("\n[6] Snapshot Save & Reload:");
+            var snapshot = Files.createTempFile("pln", ".snapshot");
+            cle.save(snapshot);
+            var reloaded = new Cog();
+            try {
+                reloaded.load(snapshot);
+                System.out.println("Saved " + cle.mem.size() + " atoms (" + Files.size(snapshot) + " bytes), reloaded " + reloaded.mem.size());
+                reloaded.retrieveAtom(dogAnimalLinkId).ifPresent(atom -> System.out.println(" -> Reloaded Dog->Animal: " + atom));
+            } finally {
+                reloaded.shutdown();
+                Files.deleteIfExists(snapshot);
+            }
+
 
         } catch (Exception e) {
             System.err.println("\n--- ERROR during demonstration ---");
@@ -270,6 +300,21 @@ public final class Cog {
         System.out.println("\n--- Cognitive Logic Engine Demonstration Finished ---");
     }
 
+    /**
+     * Enables or disables the console output of all engines, agents and environments, e.g. for headless experiments.
+     */
+    public static void logging(boolean enabled) {
+        logging = enabled;
+    }
+
+    static void log(String line) {
+        if (logging) System.out.println(line);
+    }
+
+    static void log(String format, Object... args) {
+        if (logging) System.out.printf(format, args);
+    }
+
     public static double unitize(double initialSTI) {
         return Math.max(0.0, Math.min(1.0, initialSTI));
     }
@@ -402,6 +447,53 @@ public final class Cog {
         return infer.backward(queryPattern, maxDepth);
     }
 
+    /**
+     * Matches a Link pattern against the stored links, without inference. Answers are produced lazily, so a caller
+     * that needs only the first few stops the search there.
+     *
+     * @param pattern The Link pattern to match (can contain Var's).
+     * @return A stream of bind and stored Link pairs that unify with the pattern.
+     */
+    public Stream<Answer> match(Link pattern) {
+        return mem.query(pattern, Bind.EMPTY_BIND);
+    }
+
+    /**
+     * Finds the links of a type that hold at a time point by their absolute Time, e.g. the HOLDS_AT facts then.
+     *
+     * @param type The link type, typically HOLDS_AT.
+     * @param t    The time point.
+     * @return The links whose time interval contains t.
+     */
+    public Stream<Link> holding(Type type, long t) {
+        return mem.holding(type, t);
+    }
+
+    /**
+     * Finds the links of a type whose absolute Time starts or ends within a range.
+     *
+     * @param type The link type, typically HOLDS_AT.
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, inclusive.
+     * @return The links that began or stopped holding in the range.
+     */
+    public Stream<Link> changed(Type type, long from, long to) {
+        return mem.changed(type, from, to);
+    }
+
+    /**
+     * Selects the candidates for a persistence rule: links of a type whose absolute Time ended shortly before a time
+     * point, which still hold then unless something since ended them.
+     *
+     * @param type    The link type, typically HOLDS_AT.
+     * @param t       The time point.
+     * @param horizon How far back before t a link's time may have ended.
+     * @return The links whose time ended in [t - horizon, t - 1].
+     */
+    public Stream<Link> persisting(Type type, long t, long horizon) {
+        return mem.persisting(type, t, horizon);
+    }
+
     /**
      * Attempts to find a sequence of action Atoms (e.g., Action Nodes or Execution Links)
      * predicted to achieve the desired goal state Atom.
@@ -421,9 +513,54 @@ public final class Cog {
      * @param environment The environment the agent interacts with.
      * @param goal    The primary goal the agent tries to achieve.
      * @param maxCycles   The maximum number of cycles to run the agent.
+     * @return The number of cycles run.
      */
-    public void run(Game environment, Atom goal, int maxCycles) {
-        agent.run(environment, goal, maxCycles);
+    public int run(Game environment, Atom goal, int maxCycles) {
+        return agent.run(environment, goal, maxCycles);
+    }
+
+    /**
+     * Gets the number of atoms in the knowledge base.
+     */
+    public int size() {
+        return mem.size();
+    }
+
+    /**
+     * Saves the knowledge base, with truth values and importance, to a snapshot file.
+     *
+     * @param file The snapshot file, replaced once the new one is complete.
+     */
+    public void save(Path file) throws IOException {
+        mem.save(file);
+    }
+
+    /**
+     * Loads a snapshot saved by {@link #save} into the knowledge base, revising atoms already present, and advances
+     * logical time to the snapshot's if it is behind.
+     *
+     * @param file The snapshot file.
+     */
+    public void load(Path file) throws IOException {
+        var saved = mem.load(file);
+        iteration.accumulateAndGet(saved, Math::max);
+    }
+
+    /**
+     * Saves a snapshot periodically on the maintenance thread, so that it never overlaps forgetting.
+     *
+     * @param file     The snapshot file.
+     * @param periodMs Milliseconds between checkpoints.
+     * @return The scheduled checkpoint, to cancel it.
+     */
+    public ScheduledFuture<?> checkpoint(Path file, long periodMs) {
+        return exe.scheduleAtFixedRate(() -> {
+            try {
+                mem.save(file);
+            } catch (IOException e) {
+                System.err.println("ERROR: Checkpoint to " + file + " failed: " + e.getMessage());
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -443,7 +580,7 @@ public final class Cog {
             exe.shutdownNow();
             Thread.currentThread().interrupt();
         }
-        System.out.println("Cognitive Logic Engine scheduler shut down.");
+        log("Cognitive Logic Engine scheduler shut down.");
     }
 
     public enum Type {
@@ -505,16 +642,39 @@ public final class Cog {
     public static class Memory {
         // Primary Atom store: ID -> Atom
         private final ConcurrentMap<String, Atom> atoms = new ConcurrentHashMap<>(256);
-        // Indices for efficient link retrieval
-        private final ConcurrentMap<Type, ConcurrentSkipListSet<String>> linksByType = new ConcurrentHashMap<>();
-        private final ConcurrentMap<String, ConcurrentSkipListSet<String>> linksByTarget = new ConcurrentHashMap<>();
+        // Importance of stored atoms, by handle
+        private final AttentionBank bank = new AttentionBank();
+        // Handles, hash-consed link structure and link indices; mutated only inside atoms' compute functions
+        private final AtomTable table = new AtomTable(bank);
+        private final Unify unify = new Unify(this);
         private final Supplier<Long> time;
+        // Notified after an atom is added or revised, or after it is forgotten, outside the store's locks
+        private final List<Consumer<Atom>> learnListeners = new CopyOnWriteArrayList<>(), forgetListeners = new CopyOnWriteArrayList<>();
+        // Read boosts not yet folded into importance, in buffers striped by reading thread: a fixed number, so
+        // threads that come and go (common pool, reaped workers) leave nothing behind
+        private final Accesses[] accesses = new Accesses[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1];
 
         public Memory(Supplier<Long> time) {
             this.time = time;
-            // Pre-populate link type index map for efficiency
-            for (var type : Type.values())
-                linksByType.put(type, new ConcurrentSkipListSet<>());
+            Arrays.setAll(accesses, i -> new Accesses());
+        }
+
+        /**
+         * Registers a listener called with each atom after it is added or revised.
+         */
+        public void onLearn(Consumer<Atom> listener) {
+            learnListeners.add(listener);
+        }
+
+        /**
+         * Registers a listener called with each atom after it is removed.
+         */
+        public void onForget(Consumer<Atom> listener) {
+            forgetListeners.add(listener);
+        }
+
+        private void learned(Atom atom) {
+            for (var l : learnListeners) l.accept(atom);
         }
 
         /**
@@ -524,31 +684,22 @@ public final class Cog {
             long now = time.get();
             var atomId = atom.id;
 
-            var result = atoms.compute(atomId, (id, existing) -> {
+            // Revising a stored atom needs no lock; only adding one goes through compute. If the atom was forgotten
+            // meanwhile, the revision went to a detached atom, so learn it again through compute.
+            var stored = atoms.get(atomId);
+            var revised = stored != null && revise(stored, atom.truth(), atom instanceof Link newLink ? newLink.time() : null, now) == atoms.get(atomId);
+            var result = revised ? stored : atoms.compute(atomId, (id, existing) -> {
                 if (existing == null) {
                     atom.updateAccessTime(now);
                     atom.boost(IMPORTANCE_INITIAL_STI * 0.5, now); // Small boost on initial learn
+                    table.add(atom); // Assign a handle and index it
                     return atom;
                 } else {
-                    // Perform revision: merge truth, update importance, merge TimeSpec
-                    var oldTruth = existing.truth();
-                    var revisedTruth = oldTruth.merge(atom.truth());
-                    existing.truth(revisedTruth); // Update truth in place
-                    existing.updateAccessTime(now);
-
-                    var boost = revisionBoost(oldTruth, atom.truth(), revisedTruth);
-                    existing.boost(boost + IMPORTANCE_BOOST_ON_ACCESS, now); // Boost on revision + access
-
-                    if (existing instanceof Link existingLink && atom instanceof Link newLink)
-                        existingLink.setTime(Time.merge(existingLink, newLink));
-
-                    // Log revision? System.out.printf("Revised: %s -> %s%n", existingAtom.id(), revisedTruth);
-                    return existing;
+                    return revise(existing, atom.truth(), atom instanceof Link newLink ? newLink.time() : null, now);
                 }
             });
 
-            // Update indices if it's a Link and it was newly added or potentially modified
-            if (result instanceof Link link) update(link);
+            learned(result);
 
             // Trigger forgetting check if Memory grows too large (asynchronously)
             if (atoms.size() > FORGETTING_MAX_MEM_SIZE_TRIGGER) CompletableFuture.runAsync(this::decayAndForget);
@@ -557,6 +708,30 @@ public final class Cog {
             return (A) result;
         }
 
+        /**
+         * Revision: merge truth, update importance, merge TimeSpec. Lock-free: the truth is swapped by CAS, so concurrent
+         * revisions of the same atom all take effect.
+         */
+        private Atom revise(Atom existing, Truth truth, @Nullable Time t, long now) {
+            Truth oldTruth, revisedTruth;
+            do {
+                oldTruth = existing.truth();
+                revisedTruth = oldTruth.merge(truth);
+            } while (!existing.truth(oldTruth, revisedTruth));
+            existing.updateAccessTime(now);
+
+            var boost = revisionBoost(oldTruth, truth, revisedTruth);
+            existing.boost(boost + IMPORTANCE_BOOST_ON_ACCESS, now); // Boost on revision + access
+
+            if (existing instanceof Link existingLink && t != null) {
+                existingLink.mergeTime(t);
+                table.retime(existingLink);
+            }
+
+            // Log revision? System.out.printf("Revised: %s -> %s%n", existingAtom.id(), revisedTruth);
+            return existing;
+        }
+
         /**
          * Retrieves an Atom by ID, boosting its importance.
          */
@@ -567,10 +742,32 @@ public final class Cog {
 
         private @Nullable Atom _atom(String id) {
             var atom = atoms.get(id);
-            if (atom != null) atom.boost(IMPORTANCE_BOOST_ON_ACCESS, time.get());
+            if (atom != null) accesses().add(atom, IMPORTANCE_BOOST_ON_ACCESS, time.get());
             return atom;
         }
 
+        /**
+         * Retrieves an Atom by ID without touching its importance, for lookups that are not a use of the atom.
+         */
+        public @Nullable Atom peek(String id) {
+            return atoms.get(id);
+        }
+
+        /**
+         * Folds the read boosts buffered by every thread into the atoms' importance. Reads only buffer their boost, so
+         * that atoms read by many threads at once are not contended; importance lags them until the next fold, which
+         * happens when a buffer fills, and before the maintenance cycle and focus read importance.
+         */
+        public void fold() {
+            for (var a : accesses) a.fold();
+        }
+
+        // The read-boost buffer of the current thread's stripe.
+        private Accesses accesses() {
+            var id = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+            return accesses[(int) (id >>> 32) & (accesses.length - 1)];
+        }
+
         public final Atom atomOrElse(String id, Atom orElse) {
             var a = _atom(id);
             return a == null ? orElse : a;
@@ -580,11 +777,16 @@ public final class Cog {
          * Gets or creates a Node by name with specific initial state.
          */
         public Node node(String name, Truth truth, double initialSTI) {
-            return (Node) atoms.computeIfAbsent(Node.id(name), id -> {
+            var created = new boolean[1];
+            var node = (Node) atoms.computeIfAbsent(Node.id(name), id -> {
                 var newNode = new Node(name, truth);
                 newNode.pri(initialSTI, time.get());
+                table.add(newNode);
+                created[0] = true;
                 return newNode;
             });
+            if (created[0]) learned(node);
+            return node;
         }
 
         public Node node(String name) {
@@ -600,6 +802,7 @@ public final class Cog {
                 var vn = new Var(name);
                 vn.pri(0.0, time.get()); // vars have 0 STI, high LTI implied by protection
                 vn.lti(1); // Ensure LTI is high
+                table.add(vn);
                 return vn;
             });
         }
@@ -608,7 +811,12 @@ public final class Cog {
          * Creates and learns a Link from Atom instances.
          */
         public Link link(Type type, Truth truth, double initialSTI, Time time, Atom... targets) {
-            // Use List.of() or toList()
+            // Known link over stored targets: revise it in place, without building a new Link and its id string
+            var existing = table.link(type, targets);
+            if (existing != null && revise(existing, truth, time, this.time.get()) == atoms.get(existing.id)) { // Else forgotten meanwhile
+                learned(existing);
+                return existing;
+            }
             return link(type, truth, initialSTI, time, Arrays.stream(targets).filter(Objects::nonNull).map(atom -> atom.id).toList());
         }
 
@@ -632,130 +840,1236 @@ public final class Cog {
         }
 
         /**
-         * Removes an Atom and updates indices. Needs external synchronization if called outside learnAtom's compute.
+         * Removes an Atom and updates indices. Needs external synchronization if called outside learnAtom's compute.
+         */
+        private void removeAtomInternal(String id) {
+            var removed = new Atom[1];
+            atoms.computeIfPresent(id, (k, atom) -> {
+                table.remove(atom);
+                removed[0] = atom;
+                return null;
+            });
+            if (removed[0] != null) for (var l : forgetListeners) l.accept(removed[0]);
+        }
+
+        /**
+         * The k most important stored links of the given types, most important first, boosting their importance.
+         */
+        public List<Link> focus(int k, Type... types) {
+            fold();
+            var now = time.get();
+            AtomTable.Handles links;
+            double[] score;
+            var inside = bank.enter(); // The snapshot's handles are scored before any of them can be reused
+            try {
+                links = table.storedLinks(types);
+                score = bank.importance(links.handles(), now);
+            } finally {
+                bank.exit(inside);
+            }
+            var n = links.size();
+            k = Math.min(k, n);
+            var ix = new int[n];
+            for (var i = 0; i < n; i++) {
+                ix[i] = i;
+                score[i] = -score[i]; // Select the k highest
+            }
+            AttentionBank.select(ix, score, n, k);
+
+            var top = new Integer[k];
+            for (var i = 0; i < k; i++) top[i] = i;
+            Arrays.sort(top, Comparator.comparingDouble(i -> score[i]));
+            var out = new ArrayList<Link>(k);
+            var log = accesses();
+            for (var i : top) {
+                var l = (Link) links.atoms()[ix[i]];
+                log.add(l, IMPORTANCE_BOOST_ON_ACCESS, now);
+                out.add(l);
+            }
+            return out;
+        }
+
+        /**
+         * Retrieves links of a specific type, boosting importance.
+         */
+        public Stream<Link> links(Type type) {
+            return _links(table.links(type));
+        }
+
+        /**
+         * Retrieves links that include a specific Atom ID as a target, boosting importance.
+         */
+        public Stream<Link> linksWithTarget(String targetId) {
+            return _links(table.linksWithTarget(targetId));
+        }
+
+        /**
+         * Stored links of a type and arity that may have the given target ids at their positions (null matches
+         * anything), boosting importance. Links with var targets are included; unify to confirm.
+         */
+        Stream<Link> links(Type type, int arity, String... ground) {
+            return _links(table.match(type, arity, ground));
+        }
+
+        /**
+         * Answers to a Link pattern, unified lazily against the stored links that match its ground targets under
+         * the bind, boosting importance. Unlike {@link Cog#query}, nothing is derived: only what memory holds.
+         */
+        public Stream<Answer> query(Link pattern, Bind bind) {
+            var arity = pattern.targets.size();
+            var ground = new String[arity];
+            for (var i = 0; i < arity; i++) {
+                var id = bind.follow(pattern.targets.get(i));
+                if (!Var.mentioned(id)) ground[i] = id;
+            }
+            return links(pattern.type, arity, ground).flatMap(l -> unify.unify(pattern, l, bind).map(b -> new Answer(b, (Atom) l)).stream());
+        }
+
+        /**
+         * Stored links of a type whose absolute time contains t, such as the HOLDS_AT facts that held then, boosting
+         * importance.
+         */
+        public Stream<Link> holding(Type type, long t) {
+            return during(type, t, t);
+        }
+
+        /**
+         * Stored links of a type whose absolute time overlaps [from, to], boosting importance.
+         */
+        public Stream<Link> during(Type type, long from, long to) {
+            return _links(table.during(type, from, to));
+        }
+
+        /**
+         * Stored links of a type whose absolute time starts or ends in [from, to]: what changed then. Boosts importance.
+         */
+        public Stream<Link> changed(Type type, long from, long to) {
+            return _links(table.changed(type, from, to));
+        }
+
+        /**
+         * Candidates for persisting to t: stored links of a type whose absolute time ended within the horizon before
+         * t, so that they hold at t only if nothing since ended them. Boosts importance.
+         */
+        public Stream<Link> persisting(Type type, long t, long horizon) {
+            return _links(table.ended(type, t - horizon, t - 1));
+        }
+
+        private Stream<Link> _links(Link[] links) {
+            if (links.length == 0) return Stream.empty();
+            var now = time.get();
+            var log = accesses();
+            return Arrays.stream(links).peek(l -> log.add(l, IMPORTANCE_BOOST_ON_ACCESS, now)); // Boost importance
+        }
+
+        /**
+         * Gets the current number of atoms in the Memory.
+         */
+        public int size() {
+            return atoms.size();
+        }
+
+        /**
+         * Implements importance decay and forgetting. Called periodically.
+         */
+        public synchronized void decayAndForget() {
+            fold();
+            table.recycle();
+            final long now = time.get();
+            var stored = table.stored();
+            var initialSize = stored.size();
+            if (initialSize == 0) return;
+
+            var removedCount = 0;
+
+            // 1. Decay importance for all atoms
+            bank.decay();
+            var decayCount = initialSize;
+
+            // 2. Forget low-importance atoms if Memory is large
+            var targetSize = (FORGETTING_MAX_MEM_SIZE_TRIGGER * FORGETTING_TARGET_MEM_SIZE_FACTOR) / 100;
+            if (initialSize > FORGETTING_MAX_MEM_SIZE_TRIGGER || initialSize > targetSize * 1.1) { // Check size triggers
+                var score = bank.importance(stored.handles(), now);
+
+                // Candidates: unprotected atoms below the threshold, compacted to the front
+                var ix = new int[initialSize];
+                var n = 0;
+                for (var i = 0; i < initialSize; i++) {
+                    var atom = stored.atoms()[i];
+                    var isProtected = (atom instanceof Node node && PROTECTED_NODE_NAMES.contains(node.name)) || (atom instanceof Var);
+                    // Add other protection logic? (e.g., part of active goal/plan - needs AgentController input)
+                    if (score[i] < IMPORTANCE_MIN_FORGET_THRESHOLD && !isProtected) {
+                        ix[n] = i;
+                        score[n++] = score[i];
+                    }
+                }
+
+                // Keep only the least important if there are more than needed
+                var removalTargetCount = Math.max(0, initialSize - targetSize);
+                AttentionBank.select(ix, score, n, removalTargetCount);
+                for (var i = 0; i < Math.min(n, removalTargetCount); i++) {
+                    removeAtomInternal(stored.atoms()[ix[i]].id); // Use internal remove synchronized method
+                    removedCount++;
+                }
+            }
+
+            if (removedCount > 0 || decayCount > 0) {
+                log("DEBUG: Maintenance Cycle: Decayed %d atoms. Removed %d atoms (below importance < %.3f). Memory size %d -> %d.%n", decayCount, removedCount, IMPORTANCE_MIN_FORGET_THRESHOLD, initialSize, atoms.size());
+            }
+        }
+
+        /**
+         * The read boosts of the threads on one stripe, summed per atom until folded into importance as a single boost
+         * each: the boosts of a window of reads decay together rather than one after another, a negligible difference
+         * at the access decay rate. Fixed-size and open-addressed by atom identity, so buffering a read allocates
+         * nothing. With about two stripes per core the lock is rarely contended but for folds.
+         */
+        private static final class Accesses {
+            private static final int CAPACITY = 256; // Power of two; folded when half full
+            private final Atom[] atoms = new Atom[CAPACITY];
+            private final double[] boost = new double[CAPACITY];
+            private final long[] time = new long[CAPACITY];
+            private int size;
+
+            synchronized void add(Atom atom, double b, long now) {
+                var i = atom.hashCode() & (CAPACITY - 1);
+                while (atoms[i] != null && atoms[i] != atom) i = (i + 1) & (CAPACITY - 1);
+                if (atoms[i] == null) {
+                    atoms[i] = atom;
+                    size++;
+                }
+                boost[i] += b;
+                time[i] = Math.max(time[i], now);
+                if (size >= CAPACITY / 2) fold();
+            }
+
+            synchronized void fold() {
+                if (size == 0) return;
+                for (var i = 0; i < CAPACITY; i++) {
+                    var a = atoms[i];
+                    if (a == null) continue;
+                    a.boost(boost[i], time[i]); // A forgotten atom keeps it to itself
+                    atoms[i] = null;
+                    boost[i] = 0;
+                    time[i] = 0;
+                }
+                size = 0;
+            }
+        }
+
+        private static final int SNAPSHOT_MAGIC = 0x504C4E53; // "PLNS"
+        private static final byte SNAPSHOT_VERSION = 1, NODE = 0, VAR = 1, LINK = 2, GHOST = 3;
+        private static final int SNAPSHOT_HEADER = 13, SNAPSHOT_TRAILER = 8; // magic+version+time; record count+crc32
+
+        /**
+         * Writes every stored atom with its truth, time and importance to a snapshot file, streamed record by record to
+         * a temp file that then replaces the target. Each atom is a record after those of its targets, which a link
+         * refers to by record number; a target that is not stored is written by id only. Atoms learned during the
+         * save may be missed, but forgetting waits for it.
+         */
+        public synchronized void save(Path file) throws IOException {
+            fold();
+            var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+            var crc = new CRC32();
+            var written = new HashMap<String, Integer>();
+            try (var out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeByte(SNAPSHOT_VERSION);
+                out.writeLong(time.get());
+                for (var atom : table.stored().atoms()) write(atom.id, written, out);
+                out.writeInt(written.size());
+                out.writeInt((int) crc.getValue());
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        // Writes the record of an id after those of its targets, unless already written. Returns its record number.
+        private int write(String id, Map<String, Integer> written, DataOutputStream out) throws IOException {
+            var n = written.get(id);
+            if (n != null) return n;
+            var atom = atoms.get(id);
+            int[] targets = null;
+            if (atom instanceof Link link) {
+                targets = new int[link.targets.size()];
+                for (var i = 0; i < targets.length; i++) targets[i] = write(link.targets.get(i), written, out);
+            }
+
+            out.writeByte(switch (atom) {
+                case null -> GHOST; // Referenced but not stored
+                case Var v -> VAR;
+                case Node node -> NODE;
+                case Link link -> LINK;
+            });
+            if (atom != null) {
+                var truth = atom.truth();
+                out.writeDouble(truth.strength);
+                out.writeDouble(truth.evi);
+                out.writeDouble(atom.sti());
+                out.writeDouble(atom.lti());
+                out.writeLong(atom.lastAccessTime());
+            }
+            switch (atom) {
+                case null -> writeString(id, out);
+                case Node node -> writeString(node.name, out); // Vars too
+                case Link link -> {
+                    out.writeByte(link.type.ordinal());
+                    out.writeInt(targets.length);
+                    for (var t : targets) out.writeInt(t);
+                    var t = link.time();
+                    out.writeBoolean(t != null);
+                    if (t != null) {
+                        out.writeLong(t.start());
+                        out.writeLong(t.end());
+                        out.writeBoolean(t.rel());
+                    }
+                }
+            }
+            n = written.size();
+            written.put(id, n);
+            return n;
+        }
+
+        private static void writeString(String s, DataOutputStream out) throws IOException {
+            var b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        /**
+         * Learns the atoms of a snapshot written by {@link #save}, memory-mapping it and indexing each atom as its record
+         * is read. Atoms not yet stored are added with their saved importance; stored ones are revised with the saved
+         * truth. Learn listeners are notified as for any learned atom.
+         *
+         * @return The memory time at which the snapshot was saved, against which its access times count.
+         */
+        public long load(Path file) throws IOException {
+            try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                var size = ch.size();
+                if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map (" + size + " bytes): " + file);
+                var in = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                var end = (int) size - SNAPSHOT_TRAILER;
+                if (end < SNAPSHOT_HEADER || in.getInt() != SNAPSHOT_MAGIC || in.get() != SNAPSHOT_VERSION)
+                    throw new IOException("Not a snapshot: " + file);
+                var crc = new CRC32();
+                crc.update(in.slice(0, (int) size - 4));
+                if (in.getInt((int) size - 4) != (int) crc.getValue()) throw new IOException("Corrupt snapshot: " + file);
+
+                var saved = in.getLong();
+                var ids = new String[in.getInt(end)];
+                var types = Type.values();
+                for (var n = 0; in.position() < end; n++) {
+                    var kind = in.get();
+                    if (kind == GHOST) {
+                        ids[n] = readString(in);
+                        continue;
+                    }
+                    var truth = new Truth(in.getDouble(), in.getDouble());
+                    double sti = in.getDouble(), lti = in.getDouble();
+                    var lastAccess = in.getLong();
+                    Atom atom = switch (kind) {
+                        case VAR -> new Var(readString(in).substring(VAR_PREFIX.length()));
+                        case NODE -> new Node(readString(in), truth);
+                        case LINK -> {
+                            var type = types[in.get()];
+                            var targets = new String[in.getInt()];
+                            for (var i = 0; i < targets.length; i++) targets[i] = ids[in.getInt()];
+                            var t = in.get() != 0 ? new Time(in.getLong(), in.getLong(), in.get() != 0) : null;
+                            yield new Link(type, Arrays.asList(targets), truth, t);
+                        }
+                        default -> throw new IOException("Unknown record kind " + kind + " in " + file);
+                    };
+                    ids[n] = atom.id;
+                    restore(atom, sti, lti, lastAccess);
+                }
+                return saved;
+            }
+        }
+
+        private static String readString(ByteBuffer in) {
+            var b = new byte[in.getInt()];
+            in.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        // Adds a loaded atom with its saved importance, or revises the stored one with its truth
+        private void restore(Atom atom, double sti, double lti, long lastAccess) {
+            var stored = atoms.get(atom.id);
+            var result = stored != null ? revise(stored, atom.truth(), atom instanceof Link l ? l.time() : null, time.get()) : atoms.compute(atom.id, (id, existing) -> {
+                if (existing != null) return revise(existing, atom.truth(), atom instanceof Link l ? l.time() : null, time.get());
+                atom.sti(sti);
+                atom.lti(lti);
+                atom.updateAccessTime(lastAccess);
+                table.add(atom); // Index it along with the rest, in the one pass over the records
+                return atom;
+            });
+            learned(result);
+        }
+
+        private double revisionBoost(Truth prev, Truth next, Truth revisedC) {
+            var strengthChange = Math.abs(revisedC.strength - prev.strength);
+            var confidenceChange = Math.abs(revisedC.conf() - prev.conf());
+            // Boost more for significant changes or high-confidence confirmations
+            var boost = (strengthChange * 0.6 + confidenceChange * 0.4) * (1.0 + next.conf());
+            return Math.min(IMPORTANCE_BOOST_ON_REVISION_MAX, boost); // Cap the boost
+        }
+    }
+
+    /**
+     * Dense int handles for the atoms of a Memory, with links hash-consed on (type, target handles) and link indices
+     * kept as primitive int adjacency arrays: incoming links per atom and links per type. Re-learning a known link is
+     * found structurally, and traversals walk int arrays instead of sets of nested id strings.
+     * <p>
+     * A forgotten atom that is still the target of stored links keeps its handle as a ghost, keyed by id, so links that
+     * refer to it stay indexed under it and re-learning it reconnects them. Handles are retired once nothing refers
+     * to them, and reused only after an AttentionBank grace period has drained (see {@link #recycle}), so a concurrent
+     * importance update that still holds a retired handle cannot land on a different atom. Stored atoms keep their
+     * importance in the table's AttentionBank under their handle. Mutations happen
+     * inside the owning Memory's compute functions; all access is guarded by this table.
+     * <p>
+     * Links are also posted under (type, position, target handle) for pattern matching, with every target of a
+     * commutative link posted at position 0. Links with a var among their targets are posted per type as open: they
+     * can unify with any ground target, so every match of their type considers them.
+     * <p>
+     * Links with an absolute Time are kept in interval trees by start and by end, one pair per link type, and re-keyed
+     * as revision widens their time: what held at a time, what changed in a range and which facts may persist cost a
+     * logarithm plus the matches of that type. Relative times are delays, not positions on the timeline, and are not
+     * indexed.
+     */
+    static final class AtomTable {
+        private static final int EMPTY = -1, DELETED = -2;
+        private static final int[] NO_TARGETS = new int[0];
+        private static final Link[] NO_LINKS = new Link[0];
+
+        private final Map<String, Integer> handles = new HashMap<>(); // Id -> handle, for stored atoms and ghosts
+        private final AttentionBank bank;
+
+        // Per handle
+        private Atom[] atoms = new Atom[256]; // Stored atom; null for ghosts and free handles
+        private String[] idOf = new String[256];
+        private int[][] targets = new int[256][]; // Canonical target handles of a stored link; null for nodes
+        private int[][] incoming = new int[256][]; // Handles of stored links targeting this handle
+        private int[] incomingSize = new int[256];
+        private int[] typePos = new int[256]; // Position of a stored link in its byType array
+
+        private final int[][] byType = new int[Type.values().length][];
+        private final int[] byTypeSize = new int[Type.values().length];
+        // Posting lists of link handles by positionKey; element 0 holds the size
+        private final Map<Long, int[]> byPosition = new HashMap<>();
+        private boolean[] open = new boolean[256]; // Stored link with a var among its targets
+        private Time[] timed = new Time[256]; // Absolute time a stored link is indexed under; null if none
+        // Indexed times by start, and as points at their end, per link type ordinal
+        private final Intervals[] spans = new Intervals[Type.values().length], ends = new Intervals[Type.values().length];
+
+        private int[] slots = filled(1024); // Open-addressing set of link handles, hashed on (type, targets)
+        private int slotsUsed; // Including DELETED markers
+        // Reusable handles; handles freed since the last grace period began; handles waiting for it to drain
+        private int[] free = new int[64], retired = new int[64], draining = new int[64];
+        private int freeSize, retiredSize, drainingSize, next, storedLinks;
+
+        AtomTable(AttentionBank bank) {
+            this.bank = bank;
+            Arrays.setAll(byType, t -> NO_TARGETS);
+            Arrays.setAll(spans, t -> new Intervals());
+            Arrays.setAll(ends, t -> new Intervals());
+        }
+
+        /**
+         * Stores a newly learned atom: assigns its handle (reviving a ghost of the same id) and indexes it if a link.
+         */
+        synchronized void add(Atom atom) {
+            var h = resolve(atom.id); // Revives a ghost of the same id
+            if (atoms[h] != null) throw new IllegalStateException("Already stored: " + atom.id);
+            atom.handle = h;
+            atoms[h] = atom;
+            atom.admit(bank);
+            if (!(atom instanceof Link link)) return;
+
+            var ts = new int[link.targets.size()];
+            for (var i = 0; i < ts.length; i++) ts[i] = resolve(link.targets.get(i));
+            if (link.type.commutative) Arrays.sort(ts);
+            targets[h] = ts;
+            for (var t : ts) incoming[t] = push(incoming[t], incomingSize[t]++, h);
+
+            var type = link.type.ordinal();
+            typePos[h] = byTypeSize[type];
+            byType[type] = push(byType[type], byTypeSize[type]++, h);
+            for (var i = 0; i < ts.length; i++) post(positionKey(link.type, i, ts[i]), h);
+            open[h] = link.targets.stream().anyMatch(Var::mentioned);
+            if (open[h]) post(positionKey(link.type, OPEN, 0), h);
+            time(h, type, link.time());
+
+            storedLinks++;
+            if ((slotsUsed + 1) * 2 > slots.length) rehash(slots.length * (storedLinks * 4 > slots.length ? 2 : 1));
+            var i = probe(link.type, ts);
+            if (slots[i] == EMPTY) slotsUsed++;
+            slots[i] = h;
+        }
+
+        /**
+         * Unstores an atom and unlinks it from the indices. Its handle survives as a ghost while links still target it.
+         */
+        synchronized void remove(Atom atom) {
+            var h = atom.handle;
+            if (h < 0 || atoms[h] != atom) return;
+            if (atom instanceof Link link) slots[find(link.type, targets[h])] = DELETED; // While atoms[h] still identifies it
+            atom.evict();
+            atom.handle = -1;
+            atoms[h] = null;
+
+            if (atom instanceof Link link) {
+                var ts = targets[h];
+                var type = link.type.ordinal();
+                var last = byType[type][--byTypeSize[type]]; // Swap-remove from the type index
+                byType[type][typePos[h]] = last;
+                typePos[last] = typePos[h];
+                for (var i = 0; i < ts.length; i++) unpost(positionKey(link.type, i, ts[i]), h);
+                if (open[h]) unpost(positionKey(link.type, OPEN, 0), h);
+                time(h, type, null);
+                for (var t : ts) {
+                    unlink(t, h);
+                    if (incomingSize[t] == 0 && atoms[t] == null) release(t); // Last link to a ghost
+                }
+                targets[h] = null;
+                storedLinks--;
+            }
+
+            if (incomingSize[h] == 0) release(h); // Else stays a ghost
+        }
+
+        /**
+         * The stored link of the given type over exactly these stored target atoms, or null. Builds no id string.
+         */
+        synchronized @Nullable Link link(Type type, Atom... targetAtoms) {
+            var ts = new int[targetAtoms.length];
+            for (var i = 0; i < ts.length; i++) {
+                var a = targetAtoms[i];
+                if (a == null || a.handle < 0 || atoms[a.handle] != a) return null;
+                ts[i] = a.handle;
+            }
+            if (type.commutative) Arrays.sort(ts);
+            var i = find(type, ts);
+            return i < 0 ? null : (Link) atoms[slots[i]];
+        }
+
+        /**
+         * Snapshot of the stored links of a type.
+         */
+        synchronized Link[] links(Type type) {
+            var t = type.ordinal();
+            return toLinks(byType[t], byTypeSize[t]);
+        }
+
+        /**
+         * Snapshot of the stored links that have the given id (stored or ghost) as a target.
+         */
+        synchronized Link[] linksWithTarget(String id) {
+            var h = handle(id);
+            return h < 0 ? NO_LINKS : toLinks(incoming[h], incomingSize[h]);
+        }
+
+        /**
+         * Re-indexes a stored link under its current time, after revision merged another into it.
+         */
+        synchronized void retime(Link link) {
+            var h = link.handle;
+            if (h >= 0 && atoms[h] == link) time(h, link.type.ordinal(), link.time());
+        }
+
+        /**
+         * Stored links of a type whose absolute time overlaps [from, to].
+         */
+        synchronized Link[] during(Type type, long from, long to) {
+            var out = new ArrayList<Link>();
+            spans[type.ordinal()].overlapping(from, to, h -> out.add((Link) atoms[h]));
+            return out.toArray(NO_LINKS);
+        }
+
+        /**
+         * Stored links of a type whose absolute time starts or ends in [from, to].
+         */
+        synchronized Link[] changed(Type type, long from, long to) {
+            var out = new ArrayList<Link>();
+            spans[type.ordinal()].starting(from, to, h -> out.add((Link) atoms[h]));
+            ends[type.ordinal()].starting(from, to, h -> {
+                var start = timed[h].start();
+                if (start < from || start > to) out.add((Link) atoms[h]); // Else found by its start
+            });
+            return out.toArray(NO_LINKS);
+        }
+
+        /**
+         * Stored links of a type whose absolute time ends in [from, to].
+         */
+        synchronized Link[] ended(Type type, long from, long to) {
+            var out = new ArrayList<Link>();
+            ends[type.ordinal()].starting(from, to, h -> out.add((Link) atoms[h]));
+            return out.toArray(NO_LINKS);
+        }
+
+        // Moves a link's entries in its type's time indices to the given time; null or relative removes them.
+        private void time(int h, int type, @Nullable Time t) {
+            if (t != null && t.rel()) t = null;
+            var old = timed[h];
+            if (Objects.equals(old, t)) return;
+            if (old != null) {
+                spans[type].remove(old.start(), h);
+                ends[type].remove(old.end(), h);
+            }
+            if (t != null) {
+                spans[type].add(t.start(), t.end(), h);
+                ends[type].add(t.end(), t.end(), h);
+            }
+            timed[h] = t;
+        }
+
+        /**
+         * Stored links of a type and arity whose targets are the given ids at the given positions, where a null id
+         * matches anything, plus the open links of that type and arity. Candidates come from the shortest posting list
+         * among the given positions and are checked against the rest; callers unify to confirm.
+         */
+        synchronized Link[] match(Type type, int arity, String[] ground) {
+            var hs = new int[arity];
+            int[] best = null;
+            for (var i = 0; i < arity; i++) {
+                hs[i] = -1;
+                if (ground[i] == null) continue;
+                hs[i] = handle(ground[i]);
+                var p = hs[i] < 0 ? null : byPosition.get(positionKey(type, i, hs[i]));
+                if (p == null) { // Nothing stored refers to it there
+                    best = NO_TARGETS;
+                    break;
+                }
+                if (best == null || p[0] < best[0]) best = p;
+            }
+
+            var out = new ArrayList<Link>();
+            if (best == null) { // No ground positions: the whole type
+                var t = type.ordinal();
+                for (var i = 0; i < byTypeSize[t]; i++) {
+                    var c = byType[t][i];
+                    if (targets[c].length == arity) out.add((Link) atoms[c]);
+                }
+                return out.toArray(NO_LINKS);
+            }
+            for (var i = 1; i < best.length && i <= best[0]; i++) {
+                var c = best[i];
+                if (!open[c] && targets[c].length == arity && matches(type, targets[c], hs)) out.add((Link) atoms[c]);
+            }
+            var opens = byPosition.get(positionKey(type, OPEN, 0));
+            if (opens != null) {
+                for (var i = 1; i <= opens[0]; i++) {
+                    var c = opens[i];
+                    if (targets[c].length == arity) out.add((Link) atoms[c]);
+                }
+            }
+            return out.toArray(NO_LINKS);
+        }
+
+        // Whether a link's canonical targets have each given handle (>= 0) at its position, or anywhere (as often) if commutative.
+        private static boolean matches(Type type, int[] ts, int[] hs) {
+            if (!type.commutative) {
+                for (var i = 0; i < hs.length; i++) if (hs[i] >= 0 && ts[i] != hs[i]) return false;
+                return true;
+            }
+            var unused = ts.clone();
+            for (var h : hs) {
+                if (h < 0) continue;
+                var i = 0;
+                while (i < unused.length && unused[i] != h) i++;
+                if (i == unused.length) return false;
+                unused[i] = -1;
+            }
+            return true;
+        }
+
+        private static final int OPEN = 0xFFFF; // Position of the open links posting, per type
+
+        private static long positionKey(Type type, int position, int target) {
+            if (type.commutative && position != OPEN) position = 0;
+            return (long) type.ordinal() << 48 | (long) position << 32 | target;
+        }
+
+        private void post(long key, int h) {
+            var p = byPosition.get(key);
+            if (p == null) byPosition.put(key, p = new int[4]);
+            else if (p[0] + 1 == p.length) byPosition.put(key, p = Arrays.copyOf(p, p.length * 2));
+            p[++p[0]] = h;
+        }
+
+        private void unpost(long key, int h) {
+            var p = byPosition.get(key);
+            for (var i = p[0]; i > 0; i--) {
+                if (p[i] == h) {
+                    p[i] = p[p[0]];
+                    if (--p[0] == 0) byPosition.remove(key);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Snapshot of all stored atoms with their handles.
+         */
+        synchronized Handles stored() {
+            var hs = new int[next];
+            var n = 0;
+            for (var h = 0; h < next; h++) if (atoms[h] != null) hs[n++] = h;
+            return handles(hs, n);
+        }
+
+        /**
+         * Snapshot of the stored links of the given types with their handles.
+         */
+        synchronized Handles storedLinks(Type... types) {
+            var total = 0;
+            for (var t : types) total += byTypeSize[t.ordinal()];
+            var hs = new int[total];
+            var n = 0;
+            for (var t : types) {
+                System.arraycopy(byType[t.ordinal()], 0, hs, n, byTypeSize[t.ordinal()]);
+                n += byTypeSize[t.ordinal()];
+            }
+            return handles(hs, n);
+        }
+
+        /**
+         * Stored atoms paired with the handles they had when the snapshot was taken.
+         */
+        record Handles(int[] handles, Atom[] atoms) {
+            int size() {
+                return atoms.length;
+            }
+        }
+
+        private Handles handles(int[] hs, int n) {
+            hs = n == hs.length ? hs : Arrays.copyOf(hs, n);
+            var as = new Atom[n];
+            for (var i = 0; i < n; i++) as[i] = atoms[hs[i]];
+            return new Handles(hs, as);
+        }
+
+        // Handle of a stored atom or ghost by id, or -1.
+        private int handle(String id) {
+            var h = handles.get(id);
+            return h != null ? h : -1;
+        }
+
+        // Handle for an id: the stored atom's or ghost's, else a new ghost.
+        private int resolve(String id) {
+            var h = handle(id);
+            if (h >= 0) return h;
+            h = allocate();
+            idOf[h] = id;
+            handles.put(id, h);
+            return h;
+        }
+
+        private Link[] toLinks(int[] hs, int n) {
+            if (n == 0) return NO_LINKS;
+            var out = new Link[n];
+            for (var i = 0; i < n; i++) out[i] = (Link) atoms[hs[i]];
+            return out;
+        }
+
+        private void unlink(int target, int link) {
+            var in = incoming[target];
+            var n = incomingSize[target];
+            for (var i = n - 1; i >= 0; i--) {
+                if (in[i] == link) {
+                    in[i] = in[n - 1];
+                    incomingSize[target] = n - 1;
+                    return;
+                }
+            }
+        }
+
+        private int allocate() {
+            if (freeSize > 0) return free[--freeSize];
+            var h = next++;
+            if (h == atoms.length) {
+                var n = h * 2;
+                atoms = Arrays.copyOf(atoms, n);
+                idOf = Arrays.copyOf(idOf, n);
+                targets = Arrays.copyOf(targets, n);
+                incoming = Arrays.copyOf(incoming, n);
+                incomingSize = Arrays.copyOf(incomingSize, n);
+                typePos = Arrays.copyOf(typePos, n);
+                open = Arrays.copyOf(open, n);
+                timed = Arrays.copyOf(timed, n);
+            }
+            incoming[h] = NO_TARGETS;
+            return h;
+        }
+
+        private void release(int h) {
+            handles.remove(idOf[h]);
+            idOf[h] = null;
+            incoming[h] = NO_TARGETS;
+            incomingSize[h] = 0;
+            retired = push(retired, retiredSize++, h);
+        }
+
+        /**
+         * Makes retired handles reusable once no bank caller that might have read them is still inside. Never waits:
+         * handles whose grace period has not drained yet are kept for a later call.
+         */
+        synchronized void recycle() {
+            for (var pass = 0; pass < 2; pass++) {
+                if (drainingSize > 0) {
+                    if (!bank.drained()) return;
+                    for (var i = 0; i < drainingSize; i++) free = push(free, freeSize++, draining[i]);
+                    drainingSize = 0;
+                }
+                if (retiredSize == 0) return;
+                var t = draining; // Swap: the retired handles now wait for the grace period that flip() starts
+                draining = retired;
+                drainingSize = retiredSize;
+                retired = t;
+                retiredSize = 0;
+                bank.flip();
+            }
+        }
+
+        // Slot holding the link (type, ts), or -1.
+        private int find(Type type, int[] ts) {
+            var i = probe(type, ts);
+            return slots[i] >= 0 ? i : -1;
+        }
+
+        // Slot holding the link (type, ts), else the first free slot on its probe sequence.
+        private int probe(Type type, int[] ts) {
+            var mask = slots.length - 1;
+            var firstDeleted = -1;
+            for (var i = hash(type, ts) & mask; ; i = (i + 1) & mask) {
+                var h = slots[i];
+                if (h == EMPTY) return firstDeleted >= 0 ? firstDeleted : i;
+                if (h == DELETED) {
+                    if (firstDeleted < 0) firstDeleted = i;
+                } else if (((Link) atoms[h]).type == type && Arrays.equals(targets[h], ts)) return i;
+            }
+        }
+
+        private void rehash(int capacity) {
+            var old = slots;
+            slots = filled(capacity);
+            slotsUsed = 0;
+            for (var h : old) {
+                if (h < 0) continue;
+                var mask = capacity - 1;
+                var i = hash(((Link) atoms[h]).type, targets[h]) & mask;
+                while (slots[i] != EMPTY) i = (i + 1) & mask;
+                slots[i] = h;
+                slotsUsed++;
+            }
+        }
+
+        private static int hash(Type type, int[] ts) {
+            var x = type.ordinal() * 0x9E3779B9 + Arrays.hashCode(ts);
+            return x ^ (x >>> 16);
+        }
+
+        private static int[] filled(int n) {
+            var a = new int[n];
+            Arrays.fill(a, EMPTY);
+            return a;
+        }
+
+        private static int[] push(int[] a, int size, int x) {
+            if (size == a.length) a = Arrays.copyOf(a, Math.max(4, size * 2));
+            a[size] = x;
+            return a;
+        }
+    }
+
+
+    /**
+     * Intervals [start, end] of int values, as a treap ordered by (start, value) whose entries also keep the greatest
+     * end below them. The intervals overlapping a range, and those starting in one, are found in O(log n + k) expected
+     * time. Priorities are hashed from the keys, so the shape depends only on the contents. Not thread-safe.
+     */
+    static final class Intervals {
+        private Entry root;
+
+        void add(long start, long end, int value) {
+            root = add(root, new Entry(start, end, value));
+        }
+
+        void remove(long start, int value) {
+            root = remove(root, start, value);
+        }
+
+        /**
+         * Visits the values of the intervals that overlap [from, to].
+         */
+        void overlapping(long from, long to, IntConsumer visit) {
+            overlapping(root, from, to, visit);
+        }
+
+        /**
+         * Visits the values of the intervals that start in [from, to], by start.
+         */
+        void starting(long from, long to, IntConsumer visit) {
+            starting(root, from, to, visit);
+        }
+
+        private static Entry add(Entry n, Entry e) {
+            if (n == null) return e;
+            if (compare(e.start, e.value, n) < 0) {
+                n.left = add(n.left, e);
+                if (n.left.priority > n.priority) return rotateRight(n);
+            } else {
+                n.right = add(n.right, e);
+                if (n.right.priority > n.priority) return rotateLeft(n);
+            }
+            update(n);
+            return n;
+        }
+
+        private static Entry remove(Entry n, long start, int value) {
+            if (n == null) return null;
+            var c = compare(start, value, n);
+            if (c == 0) return merge(n.left, n.right);
+            if (c < 0) n.left = remove(n.left, start, value);
+            else n.right = remove(n.right, start, value);
+            update(n);
+            return n;
+        }
+
+        // Joins two treaps, all of a ordered before all of b
+        private static Entry merge(Entry a, Entry b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                update(a);
+                return a;
+            }
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+
+        private static void overlapping(Entry n, long from, long to, IntConsumer visit) {
+            for (; n != null && n.maxEnd >= from; n = n.right) { // Nothing below ends in time
+                overlapping(n.left, from, to, visit);
+                if (n.start > to) return; // Nor does anything after start in time
+                if (n.end >= from) visit.accept(n.value);
+            }
+        }
+
+        private static void starting(Entry n, long from, long to, IntConsumer visit) {
+            while (n != null) {
+                if (n.start < from) n = n.right;
+                else if (n.start > to) n = n.left;
+                else {
+                    starting(n.left, from, to, visit);
+                    visit.accept(n.value);
+                    n = n.right;
+                }
+            }
+        }
+
+        private static Entry rotateRight(Entry n) {
+            var l = n.left;
+            n.left = l.right;
+            l.right = n;
+            update(n);
+            update(l);
+            return l;
+        }
+
+        private static Entry rotateLeft(Entry n) {
+            var r = n.right;
+            n.right = r.left;
+            r.left = n;
+            update(n);
+            update(r);
+            return r;
+        }
+
+        private static void update(Entry n) {
+            var m = n.end;
+            if (n.left != null) m = Math.max(m, n.left.maxEnd);
+            if (n.right != null) m = Math.max(m, n.right.maxEnd);
+            n.maxEnd = m;
+        }
+
+        private static int compare(long start, int value, Entry n) {
+            var c = Long.compare(start, n.start);
+            return c != 0 ? c : Integer.compare(value, n.value);
+        }
+
+        private static final class Entry {
+            final long start, end;
+            final int value, priority;
+            long maxEnd; // Greatest end in this subtree
+            Entry left, right;
+
+            Entry(long start, long end, int value) {
+                this.start = start;
+                this.end = end;
+                this.value = value;
+                var x = (start ^ (long) value << 32) * 0x9E3779B97F4A7C15L;
+                this.priority = (int) (x ^ x >>> 29);
+                this.maxEnd = end;
+            }
+        }
+    }
+
+    /**
+     * Importance of the atoms stored in a Memory, kept as parallel primitive arrays indexed by handle: STI, LTI, last
+     * access time and truth confidence. Decay is a tight loop over the arrays, and forgetting victims and focus sets are
+     * chosen by quickselect over scores computed from the arrays, without sorting atoms.
+     * <p>
+     * The arrays are paged so growing the bank never copies a value that another thread is updating. Single values are
+     * read and written with VarHandles, and boosts are lock-free CAS loops as they were on the Atom fields.
+     * <p>
+     * Callers that touch a slot by handle do so between {@link #enter} and {@link #exit}. Callers are counted per
+     * parity, in stripes chosen by thread; {@link #flip} starts a grace period and {@link #drained} reports when every
+     * caller that entered before it has left, so AtomTable reuses a handle only once nobody can still hold it.
+     */
+    static final class AttentionBank {
+        private static final int PAGE_BITS = 10, PAGE = 1 << PAGE_BITS, MASK = PAGE - 1;
+        private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+        private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        private static final int STRIDE = 16; // Ints between counters, so stripes do not share a cache line
+
+        private volatile double[][] sti = new double[0][], lti = new double[0][], conf = new double[0][];
+        private volatile long[][] lastAccess = new long[0][];
+        private final AtomicIntegerArray inside = new AtomicIntegerArray(STRIPES * 2 * STRIDE); // Callers by stripe and parity
+        private volatile int parity;
+
+        /**
+         * Combined importance: STI weighted by recency, plus LTI, scaled by confidence.
          */
-        private void removeAtomInternal(String id) {
-            var removed = atoms.remove(id);
-            if (removed instanceof Link link) remove(link);
+        static double importance(double sti, double lti, long lastAccess, double conf, long now) {
+            double timeSinceAccess = Math.max(0, now - lastAccess);
+            // Recency factor: decays exponentially, influences mostly STI contribution
+            var recencyFactor = Math.exp(-timeSinceAccess / (FORGETTING_CHECK_INTERVAL_MS * 3.0)); // Decay over ~3 cycles
+            // Less confident atoms are less important overall
+            return (sti * recencyFactor * 0.5 + lti * 0.5) * conf;
         }
 
         /**
-         * Updates indices for a given link.
+         * Importance after a boost event: slight decay plus the added amount, capped at 1.
          */
-        private void update(Link link) {
-            linksByType.get(link.type).add(link.id); // Assumes type exists in map
-            for (var targetId : link.targets) {
-                linksByTarget.computeIfAbsent(targetId, k -> new ConcurrentSkipListSet<>()).add(link.id);
-            }
+        static double updated(double current, double decayRate, double add) {
+            return Math.min(1, current * (1 - decayRate * 0.1) + add);
         }
 
         /**
-         * Removes indices for a given link.
+         * Orders ix[0..n) and score[0..n) together so that the k lowest scores come first, in no particular order.
+         * Expected O(n).
          */
-        private void remove(Link link) {
-            Optional.ofNullable(linksByType.get(link.type)).ifPresent(set -> set.remove(link.id));
-            for (var targetId : link.targets) {
-                Optional.ofNullable(linksByTarget.get(targetId)).ifPresent(set -> set.remove(link.id));
-                // Optional: Clean up empty target sets periodically?
-                // if (linksByTarget.containsKey(targetId) && linksByTarget.get(targetId).isEmpty()) { linksByTarget.remove(targetId); }
+        static void select(int[] ix, double[] score, int n, int k) {
+            if (k <= 0 || k >= n) return;
+            var lo = 0;
+            var hi = n - 1;
+            var kth = k - 1;
+            while (lo < hi) {
+                var pivot = score[(lo + hi) >>> 1];
+                var i = lo;
+                var j = hi;
+                while (i <= j) {
+                    while (score[i] < pivot) i++;
+                    while (score[j] > pivot) j--;
+                    if (i <= j) swap(ix, score, i++, j--);
+                }
+                if (kth <= j) hi = j;
+                else if (kth >= i) lo = i;
+                else return; // Between j and i everything equals the pivot
             }
         }
 
-        /**
-         * Retrieves links of a specific type, boosting importance.
-         */
-        public Stream<Link> links(Type type) {
-            var links = linksByType.get(type);
-            return links.isEmpty() ? Stream.empty() : _links(links);
+        private static void swap(int[] ix, double[] score, int a, int b) {
+            var t = ix[a];
+            ix[a] = ix[b];
+            ix[b] = t;
+            var s = score[a];
+            score[a] = score[b];
+            score[b] = s;
         }
 
         /**
-         * Retrieves links that include a specific Atom ID as a target, boosting importance.
+         * Counts the calling thread as possibly holding a handle until {@link #exit} with the returned counter.
          */
-        public Stream<Link> linksWithTarget(String targetId) {
-            var links = linksByTarget.get(targetId);
-            return links.isEmpty() ? Stream.empty() : _links(links);
+        int enter() {
+            var stripe = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1);
+            while (true) {
+                var p = parity;
+                var counter = (stripe * 2 + p) * STRIDE;
+                inside.getAndIncrement(counter);
+                if (parity == p) return counter;
+                inside.getAndDecrement(counter); // A grace period began meanwhile; count under the new parity
+            }
         }
 
-        private Stream<Link> _links(ConcurrentSkipListSet<String> links) {
-            return links.stream().map(this::_atom).filter(Objects::nonNull) // Boost importance
-                    .filter(Link.class::isInstance).map(Link.class::cast);
+        void exit(int counter) {
+            inside.getAndDecrement(counter);
         }
 
         /**
-         * Gets the current number of atoms in the Memory.
+         * Starts a grace period: callers entering from now on are counted apart from those already inside. Called by
+         * AtomTable under its lock, and only once the previous grace period has drained.
          */
-        public int size() {
-            return atoms.size();
+        void flip() {
+            parity ^= 1;
         }
 
         /**
-         * Implements importance decay and forgetting. Called periodically.
+         * Whether every caller that entered before the last {@link #flip} has exited.
          */
-        public synchronized void decayAndForget() {
-            final long now = time.get();
-            var initialSize = atoms.size();
-            if (initialSize == 0) return;
+        boolean drained() {
+            var old = parity ^ 1;
+            for (var stripe = 0; stripe < STRIPES; stripe++) if (inside.get((stripe * 2 + old) * STRIDE) != 0) return false;
+            return true;
+        }
 
-            List<Atom> candidates = new ArrayList<>(atoms.values()); // Copy for safe iteration/removal
-            var decayCount = 0;
-            var removedCount = 0;
+        void admit(int h, double sti, double lti, long lastAccess, double conf) {
+            if (h >>> PAGE_BITS >= this.sti.length) grow(h);
+            sti(h, sti);
+            lti(h, lti);
+            lastAccess(h, lastAccess);
+            conf(h, conf);
+        }
 
-            // 1. Decay importance for all atoms
-            for (var atom : candidates) {
-                atom.decayImportance(now);
-                decayCount++;
-            }
+        double sti(int h) {
+            return (double) DOUBLES.getVolatile(sti[h >>> PAGE_BITS], h & MASK);
+        }
 
-            // 2. Forget low-importance atoms if Memory is large
-            var targetSize = (FORGETTING_MAX_MEM_SIZE_TRIGGER * FORGETTING_TARGET_MEM_SIZE_FACTOR) / 100;
-            if (initialSize > FORGETTING_MAX_MEM_SIZE_TRIGGER || initialSize > targetSize * 1.1) { // Check size triggers
-                // Sort by current combined importance (ascending)
-                candidates.sort(Comparator.comparingDouble(a -> a.getCurrentImportance(now)));
+        void sti(int h, double x) {
+            DOUBLES.setVolatile(sti[h >>> PAGE_BITS], h & MASK, x);
+        }
 
-                var removalTargetCount = Math.max(0, initialSize - targetSize);
+        double lti(int h) {
+            return (double) DOUBLES.getVolatile(lti[h >>> PAGE_BITS], h & MASK);
+        }
 
-                for (var atom : candidates) {
-                    if (removedCount >= removalTargetCount) break; // Removed enough
+        void lti(int h, double x) {
+            DOUBLES.setVolatile(lti[h >>> PAGE_BITS], h & MASK, x);
+        }
 
-                    var currentImportance = atom.getCurrentImportance(now);
-                    if (currentImportance < IMPORTANCE_MIN_FORGET_THRESHOLD) {
-                        var isProtected = (atom instanceof Node node && PROTECTED_NODE_NAMES.contains(node.name)) || (atom instanceof Var);
-                        // Add other protection logic? (e.g., part of active goal/plan - needs AgentController input)
+        long lastAccess(int h) {
+            return (long) LONGS.getVolatile(lastAccess[h >>> PAGE_BITS], h & MASK);
+        }
 
-                        if (!isProtected) {
-                            removeAtomInternal(atom.id); // Use internal remove synchronized method
-                            removedCount++;
-                        }
-                    } else {
-                        // Since sorted, all remaining atoms have higher importance
-                        break;
-                    }
-                }
+        void lastAccess(int h, long t) {
+            LONGS.setVolatile(lastAccess[h >>> PAGE_BITS], h & MASK, t);
+        }
+
+        void conf(int h, double c) {
+            DOUBLES.setVolatile(conf[h >>> PAGE_BITS], h & MASK, c);
+        }
+
+        double importance(int h, long now) {
+            return importance(sti(h), lti(h), lastAccess(h), (double) DOUBLES.getVolatile(conf[h >>> PAGE_BITS], h & MASK), now);
+        }
+
+        /**
+         * Atomically applies a boost event to the STI or LTI of a handle, returning the new value.
+         */
+        double update(int h, boolean longTerm, double decayRate, double add) {
+            var page = (longTerm ? lti : sti)[h >>> PAGE_BITS];
+            var i = h & MASK;
+            double current, next;
+            do {
+                current = (double) DOUBLES.getVolatile(page, i);
+                next = updated(current, decayRate, add);
+            } while (!DOUBLES.compareAndSet(page, i, current, next));
+            return next;
+        }
+
+        /**
+         * Decays every STI and LTI in place; LTI slowly learns from the decayed STI. Called by the maintenance task
+         * only, so plain writes are fine, as they were for the per-atom decay this replaces.
+         */
+        void decay() {
+            var s = sti;
+            var l = lti;
+            for (var p = 0; p < s.length; p++) decay(s[p], l[p]);
+        }
+
+        private static void decay(double[] s, double[] l) {
+            for (var i = 0; i < PAGE; i++) {
+                var decayedSTI = s[i] * (1 - IMPORTANCE_STI_DECAY_RATE);
+                s[i] = decayedSTI;
+                l[i] = Math.min(1, l[i] * (1 - IMPORTANCE_LTI_DECAY_RATE) + decayedSTI * IMPORTANCE_STI_TO_LTI_RATE * 0.1);
             }
+        }
 
-            if (removedCount > 0 || decayCount > 0) {
-                System.out.printf("DEBUG: Maintenance Cycle: Decayed %d atoms. Removed %d atoms (below importance < %.3f). Memory size %d -> %d.%n", decayCount, removedCount, IMPORTANCE_MIN_FORGET_THRESHOLD, initialSize, atoms.size());
+        /**
+         * Current importance of each handle, in order.
+         */
+        double[] importance(int[] hs, long now) {
+            var s = sti;
+            var l = lti;
+            var a = lastAccess;
+            var c = conf;
+            var out = new double[hs.length];
+            for (var i = 0; i < hs.length; i++) {
+                var p = hs[i] >>> PAGE_BITS;
+                var j = hs[i] & MASK;
+                out[i] = importance(s[p][j], l[p][j], a[p][j], c[p][j], now);
             }
+            return out;
         }
 
-        private double revisionBoost(Truth prev, Truth next, Truth revisedC) {
-            var strengthChange = Math.abs(revisedC.strength - prev.strength);
-            var confidenceChange = Math.abs(revisedC.conf() - prev.conf());
-            // Boost more for significant changes or high-confidence confirmations
-            var boost = (strengthChange * 0.6 + confidenceChange * 0.4) * (1.0 + next.conf());
-            return Math.min(IMPORTANCE_BOOST_ON_REVISION_MAX, boost); // Cap the boost
+        private synchronized void grow(int h) {
+            var pages = (h >>> PAGE_BITS) + 1;
+            if (pages <= sti.length) return;
+            pages = Math.max(pages, sti.length * 2);
+            conf = grow(conf, pages);
+            lastAccess = grow(lastAccess, pages);
+            lti = grow(lti, pages);
+            sti = grow(sti, pages); // Last: admit checks its length
+        }
+
+        private static double[][] grow(double[][] a, int pages) {
+            var b = Arrays.copyOf(a, pages);
+            for (var p = a.length; p < pages; p++) b[p] = new double[PAGE];
+            return b;
         }
-    }
 
+        private static long[][] grow(long[][] a, int pages) {
+            var b = Arrays.copyOf(a, pages);
+            for (var p = a.length; p < pages; p++) b[p] = new long[PAGE];
+            return b;
+        }
+    }
 
     public static class Infer {
         private final Memory mem;
         private final Unify unify;
 
+        // Pending forward chaining steps, fed by Memory as premises are learned or revised
+        private final Agenda agenda = new Agenda(FORWARD_CHAINING_AGENDA_CAPACITY);
+        // Steps enqueued by a parallel round's worker, added to the agenda when the round ends
+        private final ThreadLocal<List<Step>> roundSteps = new ThreadLocal<>();
+        private volatile @Nullable ForkJoinPool pool; // Null: sequential on the caller thread
+
+        // Backward chaining tables: completed answers per goal, and planning's actions per goal pattern. Valid until
+        // memory changes other than the conclusions backward chaining itself learns while deriving answers. Each
+        // change bumps the generation; an entry computed across a bump is dropped again, see tabled()
+        private final Map<Goal, List<Answer>> answerTables = new ConcurrentHashMap<>();
+        private final Map<String, List<PotentialStep>> actionTables = new ConcurrentHashMap<>();
+        private final AtomicLong tableGeneration = new AtomicLong();
+        private final ThreadLocal<Boolean> deriving = new ThreadLocal<>();
+
         public Infer(Memory mem) {
             this.mem = mem;
             this.unify = new Unify(mem);
+            mem.onLearn(this::enqueue);
+            mem.onLearn(a -> {
+                if (deriving.get() == null) invalidateTables();
+            });
+            mem.onForget(a -> invalidateTables());
+            mem.focus(FORWARD_CHAINING_FOCUS_SIZE, Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).forEach(this::enqueue); // Premises learned earlier
         }
 
         /**
@@ -898,21 +2212,30 @@ public final class Cog {
         }
 
         /**
-         * Performs forward chaining using importance heuristics.
+         * Runs forward chaining rounds in parallel on the given pool, or sequentially on the calling thread if null. The
+         * sequential default is deterministic for a given sequence of learned atoms.
+         */
+        public void parallel(@Nullable ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * Performs forward chaining using importance heuristics: each step executes the most important pending steps
+         * on the agenda.
          */
         public void forward(int steps) {
             // System.out.println("--- Infer: Starting Forward Chaining ---");
-            Set<String> executedInferSignatures = new HashSet<>(); // Avoid redundant immediate re-computation
+            var executedInferSignatures = new LongSet(); // Avoid redundant immediate re-computation
             var totalInfers = 0;
 
             for (var step = 0; step < steps; step++) {
-                var queue = collectPotentialInfer();
-                if (queue.isEmpty()) {
+                if (agenda.isEmpty()) {
                     // System.out.println("FC Step " + (step + 1) + ": No potential infers found.");
                     break;
                 }
 
-                var infersThisStep = exeTopInfers(queue, executedInferSignatures);
+                mem.fold(); // Reads of the last round count toward this round's priorities
+                var infersThisStep = exeTopInfers(executedInferSignatures);
                 totalInfers += infersThisStep;
                 // System.out.println("FC Step " + (step + 1) + ": Made " + infersThisStep + " infers.");
 
@@ -922,73 +2245,71 @@ public final class Cog {
                 }
             }
             if (totalInfers > 0)
-                System.out.printf("--- Infer: Forward Chaining finished. Total infers: %d ---%n", totalInfers);
+                log("--- Infer: Forward Chaining finished. Total infers: %d ---%n", totalInfers);
         }
 
         /**
-         * Collects potential infers, sorted by importance.
+         * Enqueues the potential infers that use a newly learned or revised atom as a premise.
          */
-        private PriorityQueue<Step> collectPotentialInfer() {
-            var queue = new PriorityQueue<>(Comparator.<Step, Double>comparing(inf -> inf.priority).reversed());
+        private void enqueue(Atom atom) {
+            if (!isConfidentEnough(atom)) return;
             final long now = mem.time.get();
 
-            Predicate<Atom> isConfidentEnough = a -> a.truth().conf() > TRUTH_MIN_CONFIDENCE_FOR_VALID_EVIDENCE;
-
-            // Collect Deductions (INHERITANCE, PREDICTIVE_IMPLICATION)
-            Stream.of(Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).flatMap(mem::links).filter(this::isValidBinaryLink).filter(isConfidentEnough).forEach(linkAB -> {
-                var bId = linkAB.targets.get(1);
-                mem.linksWithTarget(bId) // Find links *starting* with B: B->C
-                        .filter(linkBC -> linkBC.type == linkAB.type && isValidBinaryLink(linkBC) && linkBC.targets.getFirst().equals(bId)).filter(isConfidentEnough).forEach(linkBC -> queue.add(new Step(Rule.DEDUCTION, now, linkAB, linkBC)));
-            });
-
-            // Collect Inversions
-            Stream.of(Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).flatMap(mem::links).filter(this::isValidBinaryLink).filter(isConfidentEnough).forEach(linkAB -> queue.add(new Step(Rule.INVERSION, now, linkAB)));
+            if (atom instanceof Link link && isPremiseLink(link)) {
+                var aId = link.targets.getFirst();
+                var bId = link.targets.get(1);
+                schedule(new Step(Rule.INVERSION, now, link));
+
+                // Deductions with it as A->B, then as B->C
+                for (var linkBC : mem.table.linksWithTarget(bId))
+                    if (linkBC.type == link.type && isPremiseLink(linkBC) && linkBC.targets.getFirst().equals(bId))
+                        schedule(new Step(Rule.DEDUCTION, now, link, linkBC));
+                for (var linkAB : mem.table.linksWithTarget(aId))
+                    if (linkAB.type == link.type && isPremiseLink(linkAB) && linkAB.targets.get(1).equals(aId))
+                        schedule(new Step(Rule.DEDUCTION, now, linkAB, link));
+
+                // Modus ponens with its antecedent
+                var premiseA = mem.atoms.get(aId);
+                if (premiseA != null && isConfidentEnough(premiseA))
+                    schedule(new Step(Rule.MODUS_PONENS, now, premiseA, link));
+            }
 
-            // Collect Modus Ponens
-            Stream.of(Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).flatMap(mem::links).filter(this::isValidBinaryLink).filter(isConfidentEnough).forEach(linkAB -> atom(linkAB.targets.getFirst()).ifPresent(premiseA -> {
-                if (isConfidentEnough.test(premiseA)) queue.add(new Step(Rule.MODUS_PONENS, now, premiseA, linkAB));
-            }));
+            // Modus ponens with it as the antecedent
+            for (var linkAB : mem.table.linksWithTarget(atom.id))
+                if (isPremiseLink(linkAB) && linkAB.targets.getFirst().equals(atom.id))
+                    schedule(new Step(Rule.MODUS_PONENS, now, atom, linkAB));
 
             // TODO: Add potential Temporal Rule applications (e.g., Persistence)
             // TODO: Add potential HOL Rule applications (e.g., ForAll Instantiation)
+        }
+
+        private void schedule(Step step) {
+            var buffer = roundSteps.get();
+            if (buffer != null) buffer.add(step);
+            else agenda.add(step);
+        }
+
+        private boolean isPremiseLink(Link link) {
+            return (link.type == Type.INHERITANCE || link.type == Type.PREDICTIVE_IMPLICATION) && isValidBinaryLink(link) && isConfidentEnough(link);
+        }
 
-            return queue;
+        private static boolean isConfidentEnough(Atom a) {
+            return a.truth().conf() > TRUTH_MIN_CONFIDENCE_FOR_VALID_EVIDENCE;
         }
 
         /**
-         * Executes the highest-priority infers from the queue.
+         * Executes the highest-priority infers from the agenda.
          */
-        private int exeTopInfers(PriorityQueue<Step> queue, Set<String> executedSignatures) {
+        private int exeTopInfers(LongSet executedSignatures) {
+            var pool = this.pool;
+            if (pool != null) return exeTopInfers(executedSignatures, pool);
+
             var infersMade = 0;
             var processedCount = 0;
-            while (!queue.isEmpty() && processedCount < FORWARD_CHAINING_BATCH_SIZE) {
-                var p = queue.poll();
-                var signature = p.signature;
-
-                if (!executedSignatures.contains(signature)) {
-                    Optional<?> resultOpt = empty();
-                    // Ensure premises still exist and are valid before executing
-                    var pp = p.premise;
-                    if (Arrays.stream(pp).allMatch(a -> _atom(a.id) != null)) {
-                        // Add other rules here
-                        resultOpt = switch (p.ruleType) {
-                            case DEDUCTION -> deduce((Link) pp[0], (Link) pp[1]);
-                            case INVERSION -> invert((Link) pp[0]);
-                            case MODUS_PONENS -> modusPonens(pp[0], (Link) pp[1]);
-                            default -> resultOpt;
-                        };
-                    }
-
-                    executedSignatures.add(signature); // Mark as attempted (even if failed or premises vanished)
-
-                    if (p.ruleType == Rule.DEDUCTION) // Avoid A->B->C vs C<-B<-A redundancy
-                        executedSignatures.add(p.getSignatureSwapped());
-
-                    if (resultOpt.isPresent()) {
-                        infersMade++;
-                        // System.out.printf("  FC Executed: %s -> %s (Priority: %.3f)%n", potential.ruleType, ((Atom)resultOpt.get()).id(), potential.priority);
-                    }
-
+            Step p;
+            while (processedCount < FORWARD_CHAINING_BATCH_SIZE && (p = agenda.poll()) != null) {
+                if (executedSignatures.add(p.signature)) { // Mark as attempted (even if failed or premises vanished)
+                    if (execute(p)) infersMade++;
                     processedCount++;
                 }
             }
@@ -996,59 +2317,144 @@ public final class Cog {
         }
 
         /**
-         * Performs backward chaining query with unify.
+         * Parallel round: takes a batch per worker from the agenda, partitions it across the pool, and adds the steps
+         * its conclusions enable to the agenda once the whole round is done.
+         */
+        private int exeTopInfers(LongSet executedSignatures, ForkJoinPool pool) {
+            var batchSize = FORWARD_CHAINING_BATCH_SIZE * pool.getParallelism();
+            var batch = new ArrayList<Step>(batchSize);
+            Step p;
+            while (batch.size() < batchSize && (p = agenda.poll()) != null)
+                if (executedSignatures.add(p.signature)) batch.add(p); // Mark as attempted (even if failed or premises vanished)
+
+            var infersMade = new AtomicInteger();
+            var enabled = pool.submit(() -> batch.parallelStream().map(step -> {
+                var buffer = new ArrayList<Step>();
+                roundSteps.set(buffer);
+                try {
+                    if (execute(step)) infersMade.incrementAndGet();
+                } finally {
+                    roundSteps.remove();
+                }
+                return buffer;
+            }).toList()).join();
+            agenda.addAll(enabled);
+            return infersMade.get();
+        }
+
+        /**
+         * Applies a step's rule if its premises are still stored, reporting whether it inferred anything.
+         */
+        private boolean execute(Step p) {
+            // Ensure premises still exist and are valid before executing
+            var pp = p.premise;
+            if (!Arrays.stream(pp).allMatch(a -> _atom(a.id) != null)) return false;
+            // Add other rules here
+            Optional<?> resultOpt = switch (p.ruleType) {
+                case DEDUCTION -> deduce((Link) pp[0], (Link) pp[1]);
+                case INVERSION -> invert((Link) pp[0]);
+                case MODUS_PONENS -> modusPonens(pp[0], (Link) pp[1]);
+                default -> empty();
+            };
+            // System.out.printf("  FC Executed: %s -> %s (Priority: %.3f)%n", p.ruleType, ((Atom)resultOpt.get()).id(), p.priority);
+            return resultOpt.isPresent();
+        }
+
+        /**
+         * Performs backward chaining query with unify. Answers to completed goals are tabled, so repeated queries and
+         * shared subgoals are answered from the tables until memory changes.
          */
         public List<Answer> backward(Atom queryPattern, int maxDepth) {
-            return backward(queryPattern, maxDepth, Bind.EMPTY_BIND, new HashSet<>());
+            var outer = deriving.get() == null;
+            if (outer) deriving.set(Boolean.TRUE); // Conclusions learned while deriving don't invalidate the tables
+            try {
+                return backward(queryPattern, maxDepth, Bind.EMPTY_BIND, new Search(tableGeneration.get()));
+            } finally {
+                if (outer) deriving.remove();
+            }
+        }
+
+        private void invalidateTables() {
+            tableGeneration.incrementAndGet(); // Before clearing, so a result computed across it sees the bump in tabled()
+            if (!answerTables.isEmpty()) answerTables.clear();
+            if (!actionTables.isEmpty()) actionTables.clear();
+        }
+
+        /**
+         * Keeps an entry just put in a table only if no invalidation happened since the computation began in the given
+         * generation. Either the invalidation's clear() follows the put, or the bump is seen here and the entry removed.
+         */
+        private <K, V> void tabled(Map<K, V> table, K key, V value, long generation) {
+            if (tableGeneration.get() != generation) table.remove(key, value);
         }
 
-        private List<Answer> backward(Atom queryPattern, int depth, Bind bind, Set<String> visited) {
+        private List<Answer> backward(Atom queryPattern, int depth, Bind bind, Search search) {
             // Apply current bind to the query pattern
             var q = unify.subst(queryPattern, bind);
-            var visitedId = q.id + bind.hashCode(); // ID includes bind state
+            var goal = new Goal(q.id, bind, depth);
+            var tabled = answerTables.get(goal);
+            if (tabled != null) return tabled;
 
-            if (depth <= 0 || !visited.add(visitedId)) return Collections.emptyList(); // Depth limit or cycle detected
+            var visitedId = q.id + bind.hashCode(); // ID includes bind state
+            if (depth <= 0) return Collections.emptyList(); // Depth limit
+            var level = search.active.size();
+            var cycle = search.active.putIfAbsent(visitedId, level);
+            if (cycle != null) { // Cycle detected: answers of the goals since then are incomplete
+                search.cut = Math.min(search.cut, cycle);
+                return Collections.emptyList();
+            }
 
             List<Answer> results = new ArrayList<>();
             var nextDepth = depth - 1;
 
             // 1. Direct Match in memory (after substitution)
-            var Q = _atom(q.id);
-            if (Q != null && Q.truth().conf() > TRUTH_MIN_CONFIDENCE_FOR_VALID_EVIDENCE) {
-                // Check if the concrete match from memory unifies with the potentially var query
-                unify.unify(q, Q, bind).ifPresent(finalBind -> results.add(new Answer(finalBind, Q)));
+            if (q instanceof Link queryLink && Var.mentioned(q.id)) { // Open pattern: every stored link it unifies with
+                mem.query(queryLink, bind).filter(a -> a.inferred.truth().conf() > TRUTH_MIN_CONFIDENCE_FOR_VALID_EVIDENCE).forEach(results::add);
+            } else {
+                var Q = _atom(q.id);
+                if (Q != null && Q.truth().conf() > TRUTH_MIN_CONFIDENCE_FOR_VALID_EVIDENCE) {
+                    // Check if the concrete match from memory unifies with the potentially var query
+                    unify.unify(q, Q, bind).ifPresent(finalBind -> results.add(new Answer(finalBind, Q)));
+                }
             }
 
             // 2. Rule-Based Derivation (Backward Application using unify)
 
             // Try Modus Ponens Backward: Query B, find A and A->B
-            results.addAll(tryModusPonensBackward(q, nextDepth, bind, visited));
+            tryModusPonensBackward(q, nextDepth, bind, search, results);
 
             // Try Deduction Backward: Query A->C, find A->B and B->C
             if (q instanceof Link queryLink && isValidBinaryLink(queryLink))
-                results.addAll(tryDeductionBackward(queryLink, nextDepth, bind, visited));
+                tryDeductionBackward(queryLink, nextDepth, bind, search, results);
 
             // Try Inversion Backward: Query B->A, find A->B
             if (q instanceof Link queryLink && isValidBinaryLink(queryLink))
-                results.addAll(tryInversionBackward(queryLink, nextDepth, bind, visited));
+                tryInversionBackward(queryLink, nextDepth, bind, search, results);
 
 
             // Try ForAll Instantiation Backward: Query P(a), find ForAll(?X, P(?X)) rule
-            results.addAll(tryForAllBackward(q, nextDepth, bind, visited));
+            tryForAllBackward(q, nextDepth, bind, search, results);
 
             // TODO: Try Temporal Rules Backward (e.g., HoldsAt via Persistence/Initiates/Terminates)
 
 
-            visited.remove(visitedId); // Backtrack
+            search.active.remove(visitedId); // Backtrack
+            if (search.cut >= level) { // Complete: no cycle reached above this goal
+                search.cut = Integer.MAX_VALUE;
+                var answers = List.copyOf(results);
+                answerTables.put(goal, answers);
+                tabled(answerTables, goal, answers, search.generation);
+                return answers;
+            }
             return results; // Combine results from all successful paths
         }
 
         // --- Backward Rule Helpers ---
 
-        private List<Answer> tryModusPonensBackward(Atom queryB, int depth, Bind bind, Set<String> visited) {
-            List<Answer> results = new ArrayList<>();
+        private void tryModusPonensBackward(Atom queryB, int depth, Bind bind, Search search, List<Answer> results) {
             // Collect implications A->B, where B unifies with queryB
-            Stream.of(Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).flatMap(mem::links).filter(this::isValidBinaryLink).forEach(ruleAB -> {
+            var b = ground(queryB.id, bind);
+            Stream.of(Type.INHERITANCE, Type.PREDICTIVE_IMPLICATION).flatMap(t -> mem.links(t, 2, null, b)).filter(this::isValidBinaryLink).forEach(ruleAB -> {
                 var targets = ruleAB.targets;
 
                 var potentialB = _atom(targets.get(1));
@@ -1061,10 +2467,10 @@ public final class Cog {
                 unify.unify(potentialB, queryB, bind).ifPresent(bindB -> {
                     // If unified, create subgoal to prove the premise (A) using bind from B unify
                     var subgoalA = unify.subst(potentialA, bindB);
-                    for (var resA : backward(subgoalA, depth, bindB, visited)) {
+                    for (var resA : backward(subgoalA, depth, bindB, search)) {
                         // And confirm the rule A->B itself holds with sufficient confidence
                         var rulePattern = unify.subst(ruleAB, resA.bind);
-                        for (var resAB : backward(rulePattern, depth, resA.bind, visited)) {
+                        for (var resAB : backward(rulePattern, depth, resA.bind, search)) {
                             // If both subgoals met, calculate the inferred truth for B via MP
                             modusPonens(resA.inferred, (Link) resAB.inferred).ifPresent(inferredB -> {
                                 // Final unify check with the original query and final bind
@@ -1074,16 +2480,14 @@ public final class Cog {
                     }
                 });
             });
-            return results;
         }
 
-        private List<Answer> tryDeductionBackward(Link queryAC, int depth, Bind bind, Set<String> visited) {
-            List<Answer> results = new ArrayList<>();
+        private void tryDeductionBackward(Link queryAC, int depth, Bind bind, Search search, List<Answer> results) {
             var aIdQuery = queryAC.targets.get(0);
             var cIdQuery = queryAC.targets.get(1);
 
-            // Iterate through all links A->B of the same type
-            mem.links(queryAC.type).filter(this::isValidBinaryLink).forEach(ruleAB -> {
+            // Iterate through the links A->B of the same type
+            mem.links(queryAC.type, 2, ground(aIdQuery, bind), null).filter(this::isValidBinaryLink).forEach(ruleAB -> {
                 var targets = ruleAB.targets;
                 var aIdRule = targets.get(0);
                 var bIdRule = targets.get(1);
@@ -1095,9 +2499,9 @@ public final class Cog {
                     var subgoalBC = unify.subst(subgoalBCPattern, bindA);
 
                     // Recurse: Prove A->B (the rule itself)
-                    for (var ab : backward(ruleAB, depth, bindA, visited)) {
+                    for (var ab : backward(ruleAB, depth, bindA, search)) {
                         // Recurse: Prove B->C
-                        for (var bc : backward(subgoalBC, depth, ab.bind, visited)) {
+                        for (var bc : backward(subgoalBC, depth, ab.bind, search)) {
                             // If subgoals met, perform deduction forward to get inferred A->C
                             deduce((Link) ab.inferred, (Link) bc.inferred).ifPresent(inferredAC -> {
                                 // Final unify with original query and final bind
@@ -1107,16 +2511,14 @@ public final class Cog {
                     }
                 });
             });
-            return results;
         }
 
-        private List<Answer> tryInversionBackward(Link queryBA, int depth, Bind bind, Set<String> visited) {
-            List<Answer> results = new ArrayList<>();
+        private void tryInversionBackward(Link queryBA, int depth, Bind bind, Search search, List<Answer> results) {
             var bIdQuery = queryBA.targets.get(0);
             var aIdQuery = queryBA.targets.get(1);
 
             // Collect rules A->B of the same type
-            mem.links(queryBA.type).filter(this::isValidBinaryLink).forEach(ruleAB -> {
+            mem.links(queryBA.type, 2, ground(aIdQuery, bind), ground(bIdQuery, bind)).filter(this::isValidBinaryLink).forEach(ruleAB -> {
                 var targets = ruleAB.targets;
                 var aIdRule = targets.get(0);
                 var bIdRule = targets.get(1);
@@ -1124,7 +2526,7 @@ public final class Cog {
                 // Unify query B with rule B, and query A with rule A simultaneously
                 unify.unify(bIdQuery, bIdRule, bind).flatMap(_b -> unify.unify(aIdQuery, aIdRule, _b)).ifPresent(initBind -> {
                     // If compatible, subgoal is to prove A->B
-                    for (var ab : backward(ruleAB, depth, initBind, visited)) {
+                    for (var ab : backward(ruleAB, depth, initBind, search)) {
                         // If subgoal met, perform inversion forward
                         invert((Link) ab.inferred).ifPresent(inferredBA -> {
                             // Final unify check
@@ -1133,11 +2535,15 @@ public final class Cog {
                     }
                 });
             });
-            return results;
         }
 
-        private List<Answer> tryForAllBackward(Atom queryInstance, int depth, Bind bind, Set<String> visited) {
-            List<Answer> results = new ArrayList<>();
+        // The id under the bind if it is ground, else null: an index key for the rule targets it must equal
+        private static @Nullable String ground(String id, Bind bind) {
+            var g = bind.follow(id);
+            return Var.mentioned(g) ? null : g;
+        }
+
+        private void tryForAllBackward(Atom queryInstance, int depth, Bind bind, Search search, List<Answer> results) {
             mem.links(Type.FOR_ALL).forEach(forAllLink -> {
                 var targets = forAllLink.targets;
                 var targetCount = targets.size();
@@ -1151,7 +2557,7 @@ public final class Cog {
                         unify.unify(bodyPattern, queryInstance, bind).ifPresent(matchBind -> {
                             // If unify succeeds, the instance might hold if the ForAll rule itself holds.
                             // Check the ForAll rule's confidence recursively.
-                            for (var resForAll : backward(forAllLink, depth, matchBind, visited)) {
+                            for (var resForAll : backward(forAllLink, depth, matchBind, search)) {
                                 // The instance is supported with the confidence of the ForAll rule.
                                 // Substitute final bind into the original query instance.
                                 var finalInstance = unify.subst(queryInstance, resForAll.bind);
@@ -1162,7 +2568,6 @@ public final class Cog {
                     }
                 }
             });
-            return results;
         }
 
 
@@ -1172,8 +2577,8 @@ public final class Cog {
          * Attempts to plan a sequence of actions to achieve a goal state.
          */
         public Optional<List<Atom>> planToActionSequence(Atom goalPattern, int maxPlanDepth, int maxSearchDepth) {
-            System.out.println("\n--- Infer: Planning ---");
-            System.out.println("Goal Pattern: " + goalPattern.id);
+            log("\n--- Infer: Planning ---");
+            log("Goal Pattern: " + goalPattern.id);
             atom(goalPattern.id).ifPresent(g -> g.boost(IMPORTANCE_BOOST_ON_GOAL_FOCUS, mem.time.get()));
 
             // Use backward search from the goal
@@ -1200,7 +2605,10 @@ public final class Cog {
             }
 
             // 2. Find actions that could achieve the goal
-            var potentialSteps = findActionsAchieving(currentGoalPattern, searchDepth);
+            var generation = tableGeneration.get();
+            var actions = actionTables.computeIfAbsent(currentGoalPattern.id, g -> findActionsAchieving(currentGoalPattern, searchDepth));
+            tabled(actionTables, currentGoalPattern.id, actions, generation);
+            var potentialSteps = new ArrayList<>(actions);
             // Sort potential steps (e.g., by confidence of effect, heuristic) - higher confidence first
             potentialSteps.sort(Comparator.comparingDouble(PotentialStep::confidence).reversed());
 
@@ -1240,7 +2648,7 @@ public final class Cog {
             List<PotentialStep> steps = new ArrayList<>();
 
             // Find Predictive Implications: Sequence(Preconditions..., Action) => Goal
-            mem.links(Type.PREDICTIVE_IMPLICATION)
+            mem.links(Type.PREDICTIVE_IMPLICATION, 2, null, ground(goalPattern.id, Bind.EMPTY_BIND))
                     // .filter(rule -> rule.targets().size() == 2) // Premise -> Consequence
                     .forEach(rule -> {
                         if (rule.targets.size() != 2) return; // Skip malformed rules
@@ -1343,18 +2751,120 @@ public final class Cog {
             final Rule ruleType;
             final Atom[] premise;
             final double priority; // Combined importance * confidence of premises
-            final String signature; // Unique ID for visited set
+            final long signature; // Rule and unordered premise handles, for the visited set
 
             Step(Rule type, long now, Atom... premise) {
                 this.ruleType = type;
                 this.premise = premise;
                 // Priority based on product of premise importances weighted by confidence
                 this.priority = Arrays.stream(premise).mapToDouble(p -> p.getCurrentImportance(now) * p.truth().conf()).reduce(1, (a, b) -> a * b);
-                this.signature = ruleType + ":" + Arrays.stream(premise).map(atom -> atom.id).sorted().collect(Collectors.joining("|"));
+                // Handles are dense, so two of them and the rule pack into a long without collisions
+                long h0 = premise[0].handle, h1 = premise.length > 1 ? premise[1].handle : -1;
+                this.signature = (long) type.ordinal() << 60 ^ (Math.min(h0, h1) & 0x3FFFFFFFL) << 30 ^ Math.max(h0, h1) & 0x3FFFFFFFL;
+            }
+        }
+
+        /**
+         * Pending steps in priority buckets, one per power of two, each first-in first-out. Polling takes from the most
+         * important non-empty bucket; when full, the oldest step of the least important bucket is dropped.
+         */
+        private static final class Agenda {
+            private static final int BUCKETS = 32; // Priorities down to 2^-31; lower ones share the last bucket
+            private final ArrayDeque<Step>[] buckets;
+            private final int capacity;
+            private int size, top = -1; // Highest possibly non-empty bucket
+
+            @SuppressWarnings("unchecked")
+            Agenda(int capacity) {
+                this.capacity = capacity;
+                buckets = (ArrayDeque<Step>[]) new ArrayDeque<?>[BUCKETS];
+                Arrays.setAll(buckets, b -> new ArrayDeque<>());
+            }
+
+            private static int bucket(double priority) {
+                return priority >= 1 ? BUCKETS - 1 : priority > 0 ? Math.max(0, BUCKETS - 1 + Math.getExponent(priority)) : 0;
+            }
+
+            synchronized void add(Step s) {
+                var b = bucket(s.priority);
+                buckets[b].addLast(s);
+                top = Math.max(top, b);
+                if (++size > capacity) {
+                    for (var q : buckets) {
+                        if (q.pollFirst() != null) break;
+                    }
+                    size--;
+                }
+            }
+
+            synchronized void addAll(List<? extends List<Step>> steps) {
+                for (var list : steps) for (var s : list) add(s);
+            }
+
+            synchronized @Nullable Step poll() {
+                for (; top >= 0; top--) {
+                    var s = buckets[top].pollFirst();
+                    if (s != null) {
+                        size--;
+                        return s;
+                    }
+                }
+                return null;
             }
 
-            String getSignatureSwapped() { // For symmetric rules like Deduction A->B->C vs C<-B<-A
-                return premise.length == 2 ? ruleType + ":" + Stream.of(premise[1].id, premise[0].id).sorted().collect(Collectors.joining("|")) : signature;
+            synchronized boolean isEmpty() {
+                return size == 0;
+            }
+        }
+
+        /**
+         * Open-addressing set of longs.
+         */
+        private static final class LongSet {
+            private static final long FREE = Long.MIN_VALUE; // Stored as a separate flag
+            private long[] keys = new long[64];
+            private int size;
+            private boolean hasFree;
+
+            {
+                Arrays.fill(keys, FREE);
+            }
+
+            /**
+             * Adds x, returning false if it was already present.
+             */
+            boolean add(long x) {
+                if (x == FREE) {
+                    if (hasFree) return false;
+                    return hasFree = true;
+                }
+                var mask = keys.length - 1;
+                var i = slot(x, mask);
+                while (keys[i] != FREE) {
+                    if (keys[i] == x) return false;
+                    i = (i + 1) & mask;
+                }
+                keys[i] = x;
+                if (++size * 2 > keys.length) grow();
+                return true;
+            }
+
+            private void grow() {
+                var old = keys;
+                keys = new long[old.length * 2];
+                Arrays.fill(keys, FREE);
+                var mask = keys.length - 1;
+                for (var x : old) {
+                    if (x == FREE) continue;
+                    var i = slot(x, mask);
+                    while (keys[i] != FREE) i = (i + 1) & mask;
+                    keys[i] = x;
+                }
+            }
+
+            private static int slot(long x, int mask) {
+                x *= 0x9E3779B97F4A7C15L;
+                return (int) (x ^ (x >>> 32)) & mask;
             }
         }
 
@@ -1363,6 +2873,26 @@ public final class Cog {
          */
         private record PotentialStep(Atom action, List<Atom> preconditions, double confidence) {
         }
+
+        /**
+         * Table key of a backward chaining goal: the query after substitution, its bind, and the remaining depth.
+         */
+        private record Goal(String id, Bind bind, int depth) {
+        }
+
+        /**
+         * State of one backward chaining query: goals being proved, by id, with their stack level, and the lowest level
+         * a detected cycle has reached back to since the last completed goal.
+         */
+        private static final class Search {
+            final Map<String, Integer> active = new HashMap<>();
+            final long generation; // Table generation when the query began
+            int cut = Integer.MAX_VALUE;
+
+            Search(long generation) {
+                this.generation = generation;
+            }
+        }
     }
 
     /**
@@ -1371,11 +2901,12 @@ public final class Cog {
      * efficient, thread-safe updates to volatile importance fields.
      */
     public abstract static sealed class Atom permits Node, Link {
-        private static final VarHandle STI, LTI, LAST_ACCESS_TIME;
+        private static final VarHandle TRUTH, STI, LTI, LAST_ACCESS_TIME;
 
         static {
             try {
                 var l = MethodHandles.lookup();
+                TRUTH = l.findVarHandle(Atom.class, "truth", Truth.class);
                 STI = l.findVarHandle(Atom.class, "sti", double.class);
                 LTI = l.findVarHandle(Atom.class, "lti", double.class);
                 LAST_ACCESS_TIME = l.findVarHandle(Atom.class, "lastAccessTime", long.class);
@@ -1386,9 +2917,17 @@ public final class Cog {
 
         public final String id;
 
-        private volatile Truth truth; // Mutable truth
+        /**
+         * Dense handle assigned by AtomTable while stored in a Memory; -1 otherwise. Accessors load {@link #bank}, enter
+         * it, then load the handle; AtomTable reuses a freed handle only after every caller that entered before its
+         * atom was removed has exited, so a stalled update never lands in the slot of a newly admitted atom.
+         */
+        volatile int handle = -1;
 
-        // Volatile fields managed by VarHandles for atomic updates
+        private volatile Truth truth; // Mutable reference to an immutable truth; revised by CAS
+
+        // Importance lives in the Memory's attention bank while stored, and in these VarHandle-managed fields otherwise
+        private volatile @Nullable AttentionBank bank;
         @SuppressWarnings("unused")
         private volatile double sti, lti;
         @SuppressWarnings("unused")
@@ -1408,24 +2947,118 @@ public final class Cog {
         // Internal setter used by memory revision
         final void truth(Truth truth) {
             this.truth = truth;
+            confChanged(truth);
+        }
+
+        /**
+         * Replaces the truth only if it is still the expected one; the CAS step of lock-free revision.
+         */
+        final boolean truth(Truth expected, Truth next) {
+            if (!TRUTH.compareAndSet(this, expected, next)) return false;
+            confChanged(next);
+            return true;
+        }
+
+        // Handle of this atom in b, or -1 if it is no longer stored there. Call between b.enter() and b.exit().
+        private int handleIn(AttentionBank b) {
+            var h = handle;
+            return bank == b ? h : -1;
+        }
+
+        private void confChanged(Truth truth) {
+            var b = bank;
+            if (b == null) return;
+            var inside = b.enter();
+            try {
+                var h = handleIn(b);
+                if (h >= 0) b.conf(h, truth.conf());
+            } finally {
+                b.exit(inside);
+            }
         }
 
         private void sti(double x) {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) {
+                        b.sti(h, x);
+                        return;
+                    }
+                } finally {
+                    b.exit(inside);
+                }
+            }
             STI.setVolatile(this, x);
         }
 
         public void lti(double x) {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) {
+                        b.lti(h, x);
+                        return;
+                    }
+                } finally {
+                    b.exit(inside);
+                }
+            }
             LTI.setVolatile(this, x);
         }
 
         public double lti() {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) return b.lti(h);
+                } finally {
+                    b.exit(inside);
+                }
+            }
             return (double) LTI.getVolatile(this);
         }
 
         public double sti() {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) return b.sti(h);
+                } finally {
+                    b.exit(inside);
+                }
+            }
             return (double) STI.getVolatile(this);
         }
 
+        /**
+         * Moves importance into the bank; called by AtomTable after assigning the handle.
+         */
+        final void admit(AttentionBank b) {
+            b.admit(handle, (double) STI.getVolatile(this), (double) LTI.getVolatile(this), (long) LAST_ACCESS_TIME.getVolatile(this), truth.conf());
+            bank = b;
+        }
+
+        /**
+         * Moves importance back out of the bank; called by AtomTable before releasing the handle.
+         */
+        final void evict() {
+            var b = bank;
+            if (b == null) return;
+            STI.setVolatile(this, b.sti(handle));
+            LTI.setVolatile(this, b.lti(handle));
+            LAST_ACCESS_TIME.setVolatile(this, b.lastAccess(handle));
+            bank = null;
+        }
+
         /**
          * priority initialization
          */
@@ -1442,43 +3075,58 @@ public final class Cog {
         final void boost(double boost, long now) {
             boost = Math.max(0, boost); // Ensure non-negative boost
 
+            var b = bank;
+            if (b != null) { // One grace-period entry for the whole event
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) {
+                        var newSTI = b.update(h, false, IMPORTANCE_STI_DECAY_RATE, boost);
+                        b.update(h, true, IMPORTANCE_LTI_DECAY_RATE, newSTI * IMPORTANCE_STI_TO_LTI_RATE);
+                        b.lastAccess(h, now);
+                        return;
+                    }
+                } finally {
+                    b.exit(inside);
+                }
+            }
+
             // Atomically update STI: newSTI = min(1.0, currentSTI * decay + boost)
-            var newSTI = updateImportance(sti(), IMPORTANCE_STI_DECAY_RATE, boost, STI);
+            var newSTI = updateImportance(STI, IMPORTANCE_STI_DECAY_RATE, boost);
 
-            updateImportance(lti(), IMPORTANCE_LTI_DECAY_RATE, newSTI * IMPORTANCE_STI_TO_LTI_RATE, LTI);
+            // Atomically update LTI: newLTI = min(1.0, currentLTI * decay + newSTI * learning_rate)
+            updateImportance(LTI, IMPORTANCE_LTI_DECAY_RATE, newSTI * IMPORTANCE_STI_TO_LTI_RATE);
 
-            updateAccessTime(now); // Also update access time on importance boost
+            LAST_ACCESS_TIME.setVolatile(this, now); // Also update access time on importance boost
         }
 
-        private double updateImportance(double value, double decayRate, double add, VarHandle h) {
-            // Atomically update LTI: newLTI = min(1.0, currentLTI * decay + newSTI * learning_rate)
+        // Boost of an importance field of an atom that is not stored in a bank
+        private double updateImportance(VarHandle field, double decayRate, double add) {
             double current, next;
             do {
-                current = value;
-                next = Math.min(1, current * (1 - decayRate * 0.1) + add);
-            } while (!h.compareAndSet(this, current, next));
+                current = (double) field.getVolatile(this); // Re-read on retry; a stale value would spin forever
+                next = AttentionBank.updated(current, decayRate, add);
+            } while (!field.compareAndSet(this, current, next));
             return next;
         }
 
-        /**
-         * Atomically decays importance (called periodically by maintenance task).
-         * TODO consider param now?
-         */
-        final void decayImportance(long now) {
-            var currentSTI = sti();
-            var decayedSTI = currentSTI * (1 - IMPORTANCE_STI_DECAY_RATE);
-            sti(decayedSTI); // Direct set is fine here if only maintenance thread calls decay
-
-            var currentLTI = lti();
-            // LTI also learns from the decayed STI value
-            var decayedLTI = currentLTI * (1 - IMPORTANCE_LTI_DECAY_RATE) + decayedSTI * IMPORTANCE_STI_TO_LTI_RATE * 0.1; // Slow learn during decay
-            lti(Math.min(1, decayedLTI));
-        }
-
         /**
          * Updates the last access time atomically.
          */
         void updateAccessTime(long time) {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) {
+                        b.lastAccess(h, time);
+                        return;
+                    }
+                } finally {
+                    b.exit(inside);
+                }
+            }
             LAST_ACCESS_TIME.setVolatile(this, time);
         }
 
@@ -1486,19 +3134,30 @@ public final class Cog {
          * Calculates a combined importance score, factoring STI, LTI, recency, and confidence.
          */
         public final double getCurrentImportance(long now) {
-            var lastAccess = lastAccessTime();
-
-            double timeSinceAccess = Math.max(0, now - lastAccess);
-            // Recency factor: decays exponentially, influences mostly STI contribution
-            var recencyFactor = Math.exp(-timeSinceAccess / (FORGETTING_CHECK_INTERVAL_MS * 3.0)); // Decay over ~3 cycles
-
-            // Combine STI (weighted by recency) and LTI
-            var combinedImportance = sti() * recencyFactor * 0.5 + lti() * 0.5;
-            // Modulate by confidence - less confident atoms are less important overall
-            return combinedImportance * truth.conf();
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) return b.importance(h, now);
+                } finally {
+                    b.exit(inside);
+                }
+            }
+            return AttentionBank.importance((double) STI.getVolatile(this), (double) LTI.getVolatile(this), (long) LAST_ACCESS_TIME.getVolatile(this), truth.conf(), now);
         }
 
         public final long lastAccessTime() {
+            var b = bank;
+            if (b != null) {
+                var inside = b.enter();
+                try {
+                    var h = handleIn(b);
+                    if (h >= 0) return b.lastAccess(h);
+                } finally {
+                    b.exit(inside);
+                }
+            }
             return (long) LAST_ACCESS_TIME.getVolatile(this);
         }
 
@@ -1532,7 +3191,11 @@ public final class Cog {
         public final String name; // The human-readable name
 
         public Node(String name, Truth truth) {
-            super(id(name), truth);
+            this(id(name), name, truth);
+        }
+
+        Node(String id, String name, Truth truth) {
+            super(id, truth);
             this.name = name;
         }
 
@@ -1565,9 +3228,24 @@ public final class Cog {
      */
     public static final class Var extends Node {
         public static final String EMPTY = varID("");
+        private static final String PREFIX = "V<" + VAR_PREFIX; // Start of every var id
+
+        /**
+         * Whether an id is a var's.
+         */
+        public static boolean is(String id) {
+            return id.startsWith(PREFIX);
+        }
+
+        /**
+         * Whether an id is or contains a var's, i.e. is not ground.
+         */
+        public static boolean mentioned(String id) {
+            return id.contains(PREFIX);
+        }
 
         public Var(String name) {
-            super(VAR_PREFIX + name, Truth.UNKNOWN); // Importance handled by memory (usually protected)
+            super(varID(name), VAR_PREFIX + name, Truth.UNKNOWN); // Importance handled by memory (usually protected)
         }
 
         public static String varID(String name) {
@@ -1591,8 +3269,18 @@ public final class Cog {
      */
     public static final class Link extends Atom {
         public final Cog.Type type;
+        private static final VarHandle TIME;
+
+        static {
+            try {
+                TIME = MethodHandles.lookup().findVarHandle(Link.class, "time", Time.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
         public final List<String> targets; // Immutable list of target Atom IDs
-        private Time time; // Optional, mutable time specification
+        private volatile Time time; // Optional, mutable time specification
 
         public Link(Cog.Type type, List<String> targets, Truth truth, Time time) {
             super(id(type, targets), truth);
@@ -1613,11 +3301,21 @@ public final class Cog {
             return time;
         }
 
-        // Internal setter used by memory revision
+        // Internal setter
         void setTime(Time time) {
             this.time = time;
         }
 
+        /**
+         * Atomically merges a time specification into this link's; used by memory revision.
+         */
+        void mergeTime(Time t) {
+            Time current;
+            do {
+                current = time;
+            } while (!TIME.compareAndSet(this, current, Time.merge(current, t)));
+        }
+
         @Override
         public Atom withTruth(Truth newTruth) {
             //TODO if newTruth is equal, do we need a new instance?
@@ -1812,7 +3510,7 @@ public final class Cog {
             }
             if (map.containsValue(varId)) { // Trying to bind X to Y where Y is already bound to Z
                 // Check for cycles or inconsistencies: If valueId is a var already bound to something else.
-                if (valueId.startsWith(Var.EMPTY)) {
+                if (Var.is(valueId)) {
                     var mv = get(valueId);
                     if (mv != null && !mv.equals(varId)) return empty();
                 }
@@ -1867,7 +3565,7 @@ public final class Cog {
             if (next == null) return at;
             var visited = new HashSet<>();
             while (visited.add(at)) {
-                if (next.startsWith(Var.EMPTY)) {
+                if (Var.is(next)) {
                     at = next;
                     next = get(at);
                     if (next == null) break;
@@ -1884,7 +3582,7 @@ public final class Cog {
      * Performs unify between Atom patterns.
      */
     public static class Unify {
-        private final Memory mem; // Needed to resolve IDs to Atoms if necessary
+        private final Memory mem; // Needed to resolve IDs to Atoms if necessary; peeked, as matching is not a use
 
         public Unify(Memory mem) {
             this.mem = mem;
@@ -1942,15 +3640,15 @@ public final class Cog {
 
             if (pId.equals(iId)) return Optional.of(bind);
 
-            if (pId.startsWith(Var.EMPTY)) return bind.put(pId, iId);
+            if (Var.is(pId)) return bind.put(pId, iId);
 
-            if (iId.startsWith(Var.EMPTY)) return bind.put(iId, pId);
+            if (Var.is(iId)) return bind.put(iId, pId);
 
             // If neither are vars and they are not equal, they don't unify directly by ID.
             // However, if they represent complex structures (Links), we need to unify their structure.
-            var patternAtomOpt = mem._atom(pId);
+            var patternAtomOpt = mem.peek(pId);
             if (patternAtomOpt != null) {
-                var instanceAtomOpt = mem._atom(iId);
+                var instanceAtomOpt = mem.peek(iId);
                 if (instanceAtomOpt != null)
                     return unify(patternAtomOpt, instanceAtomOpt, bind); // Delegate to full Atom unify
             }
@@ -1971,16 +3669,16 @@ public final class Cog {
                 var bound = bind.get(current);
                 var visited = new HashSet<>();
                 while (bound != null && visited.add(current)) {
-                    if (bound.startsWith(Var.EMPTY)) {
+                    if (Var.is(bound)) {
                         current = bound;
                         bound = bind.get(current);
                     } else {
                         // Bound to a concrete value ID, retrieve the corresponding Atom
-                        return mem.atomOrElse(bound, pattern); // Return original if bound value doesn't exist
+                        return Objects.requireNonNullElse(mem.peek(bound), pattern); // Return original if bound value doesn't exist
                     }
                 }
                 // If loop detected or unbound, return the last var in the chain or original
-                return mem.atomOrElse(current, pattern);
+                return Objects.requireNonNullElse(mem.peek(current), pattern);
             }
 
             if (pattern instanceof Link link) {
@@ -1989,7 +3687,7 @@ public final class Cog {
                 List<String> newTargets = new ArrayList<>(originalTargets.size());
                 for (var targetId : originalTargets) {
                     // Recursively substitute in targets
-                    var targetPattern = mem._atom(targetId); // Get Atom for target ID
+                    var targetPattern = mem.peek(targetId); // Get Atom for target ID
                     String newTargetId;
                     if (targetPattern != null) {
                         var substitutedTarget = subst(targetPattern, bind);
@@ -2046,13 +3744,20 @@ public final class Cog {
         private int steps = 0;
 
         BasicGridWorld(Cog cle, int size, int goalX, int goalY) {
+            this(cle, "Self", size, goalX, goalY);
+        }
+
+        /**
+         * A world whose agent is represented by the named node, so that several worlds can share one Cog.
+         */
+        BasicGridWorld(Cog cle, String self, int size, int goalX, int goalY) {
             this.cle = cle;
             this.worldSize = size;
             this.goalX = goalX;
             this.goalY = goalY;
 
             // Create core nodes used by the environment/agent representation
-            this.agentNode = cle.node("Self");
+            this.agentNode = cle.node(self);
             this.atLocationPred = cle.node("Predicate:AtLocation");
             this.moveN = cle.node("Action:MoveNorth");
             this.moveS = cle.node("Action:MoveSouth");
@@ -2121,10 +3826,10 @@ public final class Cog {
 
             if (agentX == goalX && agentY == goalY) {
                 reward = 1.0; // Goal reward
-                System.out.println("GridWorld: Agent reached the goal!");
+                log("GridWorld: Agent reached the goal!");
             } else if (!running() && !(agentX == goalX && agentY == goalY)) {
                 reward = -1.0; // Penalty for running out of time
-                System.out.println("GridWorld: Agent ran out of steps.");
+                log("GridWorld: Agent ran out of steps.");
             }
 
             // Return new state perception and reward
@@ -2133,7 +3838,11 @@ public final class Cog {
 
         @Override
         public boolean running() {
-            return steps < maxSteps && !(agentX == goalX && agentY == goalY);
+            return steps < maxSteps && !reached();
+        }
+
+        boolean reached() {
+            return agentX == goalX && agentY == goalY;
         }
     }
 
@@ -2143,33 +3852,43 @@ public final class Cog {
     public class Agent {
         private final RandomGenerator random = new Random();
         private Atom lastAction = null, previousState = null, currentGoal = null;
+        // Notified with the nanoseconds each planning attempt took
+        private final List<LongConsumer> planListeners = new CopyOnWriteArrayList<>();
+
+        /**
+         * Registers a listener called with the duration, in nanoseconds, of each planning attempt.
+         */
+        public void onPlan(LongConsumer listener) {
+            planListeners.add(listener);
+        }
 
         /**
-         * Runs the main agent perceive-reason-act-learn loop.
+         * Runs the main agent perceive-reason-act-learn loop, returning the number of cycles run.
          */
-        public void run(Game env, Atom goal, int maxCycles) {
-            System.out.println("\n--- Agent: Starting Run ---");
+        public int run(Game env, Atom goal, int maxCycles) {
+            log("\n--- Agent: Starting Run ---");
             this.currentGoal = goal;
 
             mem._atom(goal.id).boost(IMPORTANCE_BOOST_ON_GOAL_FOCUS, iteration());
 
-            System.out.println("Initial Goal: " + currentGoal.id + " " + currentGoal.truth());
+            log("Initial Goal: " + currentGoal.id + " " + currentGoal.truth());
 
             // Initial perception
             var initialPerception = env.perceive();
             previousState = perceiveAndLearnState(initialPerception.perceived);
 
-            for (var cycle = 0; cycle < maxCycles && env.running(); cycle++) {
+            var cycle = 0;
+            for (; cycle < maxCycles && env.running(); cycle++) {
                 var now = iteration(); // Use shared logical time
-                System.out.printf("\n--- Agent Cycle %d (Time: %d) ---%n", cycle + 1, now);
+                log("\n--- Agent Cycle %d (Time: %d) ---%n", cycle + 1, now);
                 if (previousState != null) {
-                    System.out.println("Current State Atom: " + previousState.id);
+                    log("Current State Atom: " + previousState.id);
                     // Optional: Display current state details
                     // mem.getLinksWithTarget(previousStateAtom.id())
                     //    .filter(l -> l.type() == Link.Type.MEMBER) // Assuming state composed of MEMBER links
                     //   .forEach(m -> System.out.println("  - " + m.targets().get(0)));
                 } else {
-                    System.out.println("Current State Atom: Unknown");
+                    log("Current State Atom: Unknown");
                 }
 
 
@@ -2180,12 +3899,12 @@ public final class Cog {
                 var selectedActionOpt = selectAction(env);
 
                 if (selectedActionOpt.isEmpty()) {
-                    System.out.println("Agent: No suitable action found or planned. Idling.");
+                    log("Agent: No suitable action found or planned. Idling.");
                     lastAction = null; // No action taken
                     // Optional: decay importance or take other idle action?
                 } else {
                     lastAction = selectedActionOpt.get();
-                    System.out.println("Agent: Selected Action: " + lastAction.id);
+                    log("Agent: Selected Action: " + lastAction.id);
 
                     // 3. Execute Action
                     var actionResult = env.exe(lastAction);
@@ -2202,14 +3921,16 @@ public final class Cog {
 
                 // 6. Goal Check
                 if (goalAchieved()) {
-                    System.out.println("*** Agent: Goal Achieved! (" + currentGoal.id + ") ***");
+                    log("*** Agent: Goal Achieved! (" + currentGoal.id + ") ***");
+                    cycle++;
                     break; // Terminate loop on goal achievement
                 }
 
                 // Optional delay
                 // try { Thread.sleep(10); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
             }
-            System.out.println("--- Agent: Run Finished ---");
+            log("--- Agent: Run Finished ---");
+            return cycle;
         }
 
         /**
@@ -2280,22 +4001,25 @@ public final class Cog {
             if (availableActions.isEmpty()) return empty();
 
             // 1. Try Planning towards the current goal
+            var start = System.nanoTime();
             var planOpt = infer.planToActionSequence(currentGoal, PLANNING_DEFAULT_MAX_PLAN_DEPTH, INFER_DEFAULT_MAX_DEPTH);
+            var planNanos = System.nanoTime() - start;
+            for (var l : planListeners) l.accept(planNanos);
             if (planOpt.isPresent() && !planOpt.get().isEmpty()) {
                 var firstActionInPlan = planOpt.get().getFirst(); // Get the first action recommended by the plan
                 // Check if the planned action is actually available now
                 if (availableActions.stream().anyMatch(a -> a.id.equals(firstActionInPlan.id))) {
-                    System.out.println("Agent: Selecting action from plan: " + firstActionInPlan.id);
+                    log("Agent: Selecting action from plan: " + firstActionInPlan.id);
                     return Optional.of(firstActionInPlan);
                 } else {
-                    System.out.println("Agent: Planned action " + firstActionInPlan.id + " not available. Evaluating alternatives.");
+                    log("Agent: Planned action " + firstActionInPlan.id + " not available. Evaluating alternatives.");
                 }
             } else {
-                System.out.println("Agent: Planning failed or yielded empty plan.");
+                log("Agent: Planning failed or yielded empty plan.");
             }
 
             // 2. Fallback: Reactive Selection based on learned utility ("GoodAction" or predicted reward)
-            System.out.println("Agent: Falling back to reactive selection...");
+            log("Agent: Falling back to reactive selection...");
             Map<Atom, Double> actionUtilities = new ConcurrentHashMap<>();
             var goodActionNode = mem.node("GoodAction"); // Target node for utility
             if (goodActionNode != null) {
@@ -2319,17 +4043,17 @@ public final class Cog {
                     .max(Map.Entry.comparingByValue());
 
             if (bestActionEntry.isPresent()) {
-                System.out.printf("Agent: Selecting action by max utility: %s (Utility: %.3f)%n", bestActionEntry.get().getKey().id, bestActionEntry.get().getValue());
+                log("Agent: Selecting action by max utility: %s (Utility: %.3f)%n", bestActionEntry.get().getKey().id, bestActionEntry.get().getValue());
                 return Optional.of(bestActionEntry.get().getKey());
             }
 
             // 3. Final Fallback: Exploration (Random Action)
             if (random.nextDouble() < AGENT_RANDOM_ACTION_PROBABILITY) {
-                System.out.println("Agent: No preferred action. Selecting randomly for exploration.");
+                log("Agent: No preferred action. Selecting randomly for exploration.");
                 return Optional.of(availableActions.get(random.nextInt(availableActions.size())));
             } else {
                 // If not exploring, and no good options, maybe pick the least bad one or idle. Let's pick random for now.
-                System.out.println("Agent: No preferred action and not exploring. Selecting randomly.");
+                log("Agent: No preferred action and not exploring. Selecting randomly.");
                 return Optional.of(availableActions.get(random.nextInt(availableActions.size())));
             }
         }
@@ -2368,7 +4092,7 @@ public final class Cog {
                     var utilityLink = new Link(Type.INHERITANCE, List.of(lastAction.id, goodActionNode.id), utilityEvidence, null);
                     utilityLink.pri(0.7, now);
                     var learnedUtility = mem.learn(utilityLink); // Learn/revise the utility link
-                    System.out.printf("  Learn: Action-Utility Update %s -> %s%n", learnedUtility.id, learnedUtility.truth());
+                    log("  Learn: Action-Utility Update %s -> %s%n", learnedUtility.id, learnedUtility.truth());
                 }
             }
         }
@@ -0,0 +1,189 @@
+package dumb.cognote18;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link Cog.LlmGateway} against a local HTTP stand-in for the LLM API. The stand-in answers each prompt with
+ * "(echo prompt)" and holds every response until {@link #release} opens, so tests can look at the gateway while
+ * requests are in flight.
+ */
+class LlmGatewayTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger(), active = new AtomicInteger(), maxActive = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    @TempDir
+    Path notesDir;
+    private JSONObject config;
+    private Cog cog;
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/api/chat", this::answer);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (cog != null) cog.mainExecutor.shutdownNow();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void concurrencyIsCapped() throws Exception {
+        var llm = gateway(false, 2, null);
+        var results = IntStream.range(0, 6).mapToObj(i -> submit(llm, "prompt" + i, null)).toList();
+        awaitRequests(2);
+        Thread.sleep(200);
+        assertEquals(2, requests.get(), "only llmMaxConcurrent requests reach the API");
+        assertEquals(4, llm.queued());
+        release.countDown();
+        for (var i = 0; i < results.size(); i++) assertEquals("(echo prompt" + i + ")", results.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(6, requests.get());
+        assertEquals(2, maxActive.get());
+    }
+
+    @Test
+    void raisedLimitAppliesWithoutRestart() throws Exception {
+        var llm = gateway(false, 1, null);
+        var results = IntStream.range(0, 3).mapToObj(i -> submit(llm, "prompt" + i, null)).toList();
+        awaitRequests(1);
+        assertTrue(cog.updateConfig(config.put("llmMaxConcurrent", 3).toString()));
+        awaitRequests(3);
+        release.countDown();
+        for (var r : results) r.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(3, maxActive.get());
+    }
+
+    @Test
+    void identicalInFlightPromptsShareOneRequest() throws Exception {
+        var llm = gateway(false, 4, null);
+        var results = IntStream.range(0, 3).mapToObj(i -> submit(llm, "same", null)).toList();
+        awaitRequests(1);
+        Thread.sleep(200);
+        release.countDown();
+        for (var r : results) assertEquals("(echo same)", r.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void secondCallIsServedFromCache(@TempDir Path cacheDir) throws Exception {
+        release.countDown();
+        var llm = gateway(false, 1, cacheDir);
+        assertEquals("(echo cached)", submit(llm, "cached", null).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+
+        var text = new StringBuilder();
+        var again = submit(llm, "cached", text::append);
+        assertTrue(again.isDone(), "a cache hit completes without waiting for the API");
+        assertEquals("(echo cached)", again.get());
+        assertEquals("(echo cached)", text.toString());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void streamingDeliversFormsBeforeTheResponseEnds() throws Exception {
+        var llm = gateway(true, 1, null);
+        var splitter = new Cog.KifStreamSplitter();
+        var forms = new LinkedBlockingQueue<String>();
+        var result = submit(llm, "stream", chunk -> forms.addAll(splitter.feed(chunk)));
+
+        assertEquals("(instance Fluffy Cat)", forms.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS), "first line arrives while the response is held");
+        assertFalse(result.isDone());
+        release.countDown();
+        assertEquals("(instance Fluffy Cat)\nFluffy (the cat) is orange.\n(echo stream)", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("(echo stream)"), splitter.finish().stream().toList(), "prose lines are dropped, the unterminated last line is kept");
+        assertTrue(forms.isEmpty());
+    }
+
+    private Cog.LlmGateway gateway(boolean stream, int maxConcurrent, Path cacheDir) {
+        config = new JSONObject()
+                .put("llmApiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/api/chat")
+                .put("llmModel", "stand-in")
+                .put("llmMaxConcurrent", maxConcurrent)
+                .put("llmCacheDir", cacheDir == null ? "" : cacheDir.toString())
+                .put("llmStream", stream);
+        cog = new Cog(0, null, config, notesDir.resolve("notes.json"));
+        return cog.llm;
+    }
+
+    private static CompletableFuture<String> submit(Cog.LlmGateway llm, String prompt, Consumer<String> onText) {
+        return llm.submit(prompt, 0, onText, () -> {});
+    }
+
+    private void awaitRequests(int n) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (requests.get() < n && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(n, requests.get());
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try (exchange) {
+            var body = new JSONObject(new JSONTokener(exchange.getRequestBody()));
+            var prompt = body.getJSONArray("messages").getJSONObject(0).getString("content");
+            var out = exchange.getResponseBody();
+            if (body.getBoolean("stream")) {
+                exchange.sendResponseHeaders(200, 0);
+                write(out, chunk("(instance Fluffy Cat)\nFluffy (the"));
+                hold();
+                write(out, chunk(" cat) is orange.\n"));
+                write(out, chunk("(echo " + prompt + ")"));
+                write(out, new JSONObject().put("done", true).toString() + "\n");
+            } else {
+                hold();
+                var reply = new JSONObject().put("message", new JSONObject().put("content", "(echo " + prompt + ")")).toString().getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, reply.length);
+                out.write(reply);
+            }
+        }
+    }
+
+    /** Waits for {@link #release}. The request stops counting as active here, before the gateway can see its reply end. */
+    private void hold() {
+        try {
+            release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private static String chunk(String content) {
+        return new JSONObject().put("message", new JSONObject().put("content", content)).toString() + "\n";
+    }
+
+    private static void write(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}